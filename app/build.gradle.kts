@@ -29,6 +29,17 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Robolectric carga los recursos de la app (por ejemplo, las nacionalidades)
+        unitTests.isIncludeAndroidResources = true
+        unitTests.all {
+            // Robolectric abre archivos por ParcelFileDescriptor (importar y restaurar)
+            it.jvmArgs("--add-opens=java.base/java.io=ALL-UNNAMED")
+            // Las pruebas lentas (por ejemplo, migrar un millón de filas) solo corren con
+            // ./gradlew test -PslowTests
+            it.systemProperty("slowTests", project.hasProperty("slowTests"))
+        }
+    }
 }
 
 dependencies {
@@ -39,6 +50,8 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.biometric)
     testImplementation(libs.junit)
+    testImplementation(libs.sqlite.jdbc)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -28,11 +28,18 @@ import androidx.core.content.ContextCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.ejercicioenclase.adapter.HistoryAdapter;
+import com.example.ejercicioenclase.metrics.ScanMetrics;
+import com.example.ejercicioenclase.model.Genero;
 import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.repository.UserChange;
 import com.example.ejercicioenclase.util.Utils;
+import com.example.ejercicioenclase.viewmodel.FormState;
 import com.example.ejercicioenclase.viewmodel.UserViewModel;
+import com.example.ejercicioenclase.widget.FrameChronometer;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.textfield.TextInputEditText;
 
@@ -67,19 +74,30 @@ public class MainActivity extends AppCompatActivity {
     private BiometricPrompt.PromptInfo promptInfo;
     private Executor executor;
 
-    // Chrono update handler
-    private Handler chronoHandler;
-    private Runnable chronoRunnable;
-    private long startTimeMillis;
-    private boolean isChronoRunning = false;
+    // Cronómetro sincronizado con los cuadros de pantalla
+    private FrameChronometer chronometer;
 
     // Permisos
     private ActivityResultLauncher<String[]> requestPermissionLauncher;
+    private ActivityResultLauncher<String[]> importLauncher;
+    private ActivityResultLauncher<String[]> restoreLauncher;
+    // Exportación que espera los permisos de almacenamiento (CSV o respaldo)
+    private Runnable pendingExport;
     private static final String[] REQUIRED_PERMISSIONS = new String[]{
             android.Manifest.permission.WRITE_EXTERNAL_STORAGE,
             android.Manifest.permission.READ_EXTERNAL_STORAGE
     };
 
+    // Tipos que ofrecen los selectores de archivos para un CSV
+    private static final String[] CSV_MIME_TYPES = new String[]{
+            "text/csv", "text/comma-separated-values", "text/plain"
+    };
+
+    // Los respaldos no tienen un tipo registrado; los selectores los ofrecen como binarios
+    private static final String[] BACKUP_MIME_TYPES = new String[]{
+            "application/octet-stream", "*/*"
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -107,6 +125,10 @@ public class MainActivity extends AppCompatActivity {
         // Configurar lanzador de permisos
         setupPermissionLauncher();
 
+        // Configurar selectores del CSV a importar y del respaldo a restaurar
+        setupImportLauncher();
+        setupRestoreLauncher();
+
         // Observar cambios en el ViewModel
         observeViewModel();
     }
@@ -163,7 +185,7 @@ public class MainActivity extends AppCompatActivity {
                         SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
                         String formattedDate = dateFormat.format(calendar.getTime());
                         fechaNacimientoEditText.setText(formattedDate);
-                        updateUserData();
+                        userViewModel.onFieldChanged(FormState.Field.FECHA_NACIMIENTO, formattedDate);
                     },
                     year, month, day);
 
@@ -172,18 +194,24 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupGenderSpinner() {
-        String[] genders = new String[]{"Masculino", "Femenino", "Otro"};
+        String[] genders = Genero.values();
         ArrayAdapter<String> adapter = new ArrayAdapter<>(
                 this, android.R.layout.simple_dropdown_item_1line, genders);
         generoAutoCompleteTextView.setAdapter(adapter);
 
         generoAutoCompleteTextView.setOnItemClickListener((parent, view, position, id) -> {
-            updateUserData();
+            userViewModel.onFieldChanged(FormState.Field.GENERO, generoAutoCompleteTextView.getText());
         });
     }
 
     private void setupTextChangeListeners() {
-        TextWatcher textWatcher = new TextWatcher() {
+        // Un watcher por campo: cada tecla actualiza solo ese campo del formulario
+        nombreEditText.addTextChangedListener(fieldWatcher(FormState.Field.NOMBRE));
+        apellidoEditText.addTextChangedListener(fieldWatcher(FormState.Field.APELLIDO));
+    }
+
+    private TextWatcher fieldWatcher(FormState.Field field) {
+        return new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
@@ -192,18 +220,16 @@ public class MainActivity extends AppCompatActivity {
 
             @Override
             public void afterTextChanged(Editable s) {
-                updateUserData();
+                userViewModel.onFieldChanged(field, s);
             }
         };
-
-        nombreEditText.addTextChangedListener(textWatcher);
-        apellidoEditText.addTextChangedListener(textWatcher);
     }
 
     private void setupClickListeners() {
         // Botón de escaneo de huella
         scanButton.setOnClickListener(v -> {
             if (checkBiometricSupport()) {
+                userViewModel.onBiometricPromptShown();
                 biometricPrompt.authenticate(promptInfo);
             } else {
                 Toast.makeText(MainActivity.this,
@@ -217,6 +243,12 @@ public class MainActivity extends AppCompatActivity {
 
         // Botón de historial
         historyButton.setOnClickListener(v -> showHistoryDialog());
+
+        // Mantener presionado el historial: importar una lista de personas desde CSV
+        historyButton.setOnLongClickListener(v -> {
+            importLauncher.launch(CSV_MIME_TYPES);
+            return true;
+        });
     }
 
     private void setupBiometricPrompt() {
@@ -273,39 +305,16 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupChronometer() {
-        chronoHandler = new Handler(Looper.getMainLooper());
-        chronoRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isChronoRunning) {
-                    long elapsedMillis = System.currentTimeMillis() - startTimeMillis;
-                    chronoTextView.setText(Utils.formatElapsedTime(elapsedMillis));
-                    chronoHandler.postDelayed(this, 10); // Actualizar cada 10 ms
-                }
-            }
-        };
+        chronometer = new FrameChronometer(chronoTextView);
     }
 
     private void startChronometer() {
-        if (!isChronoRunning) {
-            isChronoRunning = true;
-            startTimeMillis = System.currentTimeMillis();
-            chronoHandler.post(chronoRunnable);
-        }
+        // Usa el mismo instante de inicio (elapsedRealtime) que el ViewModel
+        chronometer.start(userViewModel.getScanStartTime());
     }
 
     private void stopChronometer() {
-        isChronoRunning = false;
-        chronoHandler.removeCallbacks(chronoRunnable);
-    }
-
-    private void updateUserData() {
-        String nombre = nombreEditText.getText() != null ? nombreEditText.getText().toString() : "";
-        String apellido = apellidoEditText.getText() != null ? apellidoEditText.getText().toString() : "";
-        String fechaNacimiento = fechaNacimientoEditText.getText() != null ? fechaNacimientoEditText.getText().toString() : "";
-        String genero = generoAutoCompleteTextView.getText() != null ? generoAutoCompleteTextView.getText().toString() : "";
-
-        userViewModel.prepareNewUser(nombre, apellido, fechaNacimiento, genero);
+        chronometer.stop();
     }
 
     private void observeViewModel() {
@@ -335,7 +344,43 @@ public class MainActivity extends AppCompatActivity {
         // Observar usuario actual
         userViewModel.getCurrentUser().observe(this, user -> {
             if (user != null && user.getNacionalidad() != null) {
+                long uiStart = System.nanoTime();
                 updateResultUI(user);
+                ScanMetrics.getInstance().recordSince(ScanMetrics.Stage.UI_UPDATE, uiStart);
+            }
+        });
+
+        // Observar avance y resultado de la exportación
+        userViewModel.getExportProgress().observe(this, progress -> {
+            if (progress != null && progress < 100) {
+                statusTextView.setText("Exportando registros... " + progress + "%");
+            }
+        });
+
+        // Los resultados se muestran una sola vez, no de nuevo al rotar la pantalla
+        userViewModel.getExportResult().observe(this, event -> {
+            String message = event != null ? event.getContentIfNotHandled() : null;
+            if (message != null) {
+                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+            }
+        });
+
+        // Observar avance y resultado de la importación
+        userViewModel.getImportProgress().observe(this, progress -> {
+            if (progress != null && progress < 100) {
+                statusTextView.setText("Importando registros... " + progress + "%");
+            }
+        });
+
+        userViewModel.getImportResult().observe(this, event -> {
+            if (event == null) {
+                return;
+            }
+            // El estado se restaura tras rotar; el Toast solo aparece la primera vez
+            statusTextView.setText(event.peekContent());
+            String message = event.getContentIfNotHandled();
+            if (message != null) {
+                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
             }
         });
 
@@ -368,48 +413,74 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void showHistoryDialog() {
-        // Obtener todos los usuarios
-        List<User> users = userViewModel.getAllUsers();
+        // Cargar solo la primera página; el resto se carga al desplazarse
+        HistoryAdapter adapter = new HistoryAdapter(this, userViewModel::getUsersPage,
+                userViewModel::runInBackground);
 
-        if (users.isEmpty()) {
-            Toast.makeText(this, "No hay registros en el historial", Toast.LENGTH_SHORT).show();
-            return;
-        }
+        // Los escaneos guardados con el diálogo abierto se agregan sin recargar la lista
+        Observer<List<UserChange>> changesObserver = adapter::applyChanges;
+        userViewModel.getHistoryChanges().observe(this, changesObserver);
 
-        // Crear strings para mostrar en el diálogo
-        String[] items = new String[users.size()];
-        for (int i = 0; i < users.size(); i++) {
-            User user = users.get(i);
-            items[i] = String.format("%s %s - %s - %s",
-                    user.getNombre(), user.getApellido(), user.getNacionalidad(),
-                    Utils.formatElapsedTime(user.getTiempoEscaneo()));
-        }
+        adapter.loadFirstPage(isEmpty -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
 
-        // Crear y mostrar el diálogo
+            if (isEmpty) {
+                userViewModel.getHistoryChanges().removeObserver(changesObserver);
+                Toast.makeText(this, "No hay registros en el historial", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            // Crear y mostrar el diálogo
+            new MaterialAlertDialogBuilder(this)
+                    .setTitle("Historial de Escaneos")
+                    .setAdapter(adapter, null)
+                    .setPositiveButton("Exportar", (dialog, which) -> exportHistoryToCsv())
+                    .setNeutralButton("Respaldo", (dialog, which) -> showBackupDialog())
+                    .setNegativeButton("Cerrar", null)
+                    .setOnDismissListener(dialog ->
+                            userViewModel.getHistoryChanges().removeObserver(changesObserver))
+                    .show();
+        });
+    }
+
+    private void showBackupDialog() {
         new MaterialAlertDialogBuilder(this)
-                .setTitle("Historial de Escaneos")
-                .setItems(items, null)
-                .setPositiveButton("Exportar", (dialog, which) -> exportHistoryToCsv())
-                .setNegativeButton("Cerrar", null)
+                .setTitle("Respaldo del historial")
+                .setItems(new String[]{"Crear respaldo", "Restaurar respaldo"}, (dialog, which) -> {
+                    if (which == 0) {
+                        exportBackup();
+                    } else {
+                        restoreLauncher.launch(BACKUP_MIME_TYPES);
+                    }
+                })
+                .setNegativeButton("Cancelar", null)
                 .show();
     }
 
     private void exportHistoryToCsv() {
         // Verificar permisos
-        if (checkPermissions()) {
-            // Exportar registros
-            List<User> users = userViewModel.getAllUsers();
-            boolean success = Utils.exportToCSV(this, users);
+        if (checkPermissions(this::exportHistoryToCsv)) {
+            // Exportar registros en segundo plano; el resultado llega por LiveData
+            userViewModel.exportHistoryToCsv();
+        }
+    }
 
-            if (!success) {
-                Toast.makeText(this, "Error al exportar los registros", Toast.LENGTH_SHORT).show();
-            }
+    private void exportBackup() {
+        if (checkPermissions(this::exportBackup)) {
+            // Mismo flujo que la exportación CSV, con el formato binario comprimido
+            userViewModel.exportBackup();
         }
     }
 
-    private boolean checkPermissions() {
+    /**
+     * @param retry exportación a repetir si el usuario concede los permisos
+     */
+    private boolean checkPermissions(Runnable retry) {
         for (String permission : REQUIRED_PERMISSIONS) {
             if (ContextCompat.checkSelfPermission(this, permission) != PackageManager.PERMISSION_GRANTED) {
+                pendingExport = retry;
                 requestPermissionLauncher.launch(REQUIRED_PERMISSIONS);
                 return false;
             }
@@ -417,6 +488,22 @@ public class MainActivity extends AppCompatActivity {
         return true;
     }
 
+    private void setupImportLauncher() {
+        importLauncher = registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+            if (uri != null) {
+                userViewModel.importRosterFromCsv(uri);
+            }
+        });
+    }
+
+    private void setupRestoreLauncher() {
+        restoreLauncher = registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+            if (uri != null) {
+                userViewModel.restoreBackup(uri);
+            }
+        });
+    }
+
     private void setupPermissionLauncher() {
         requestPermissionLauncher = registerForActivityResult(
                 new ActivityResultContracts.RequestMultiplePermissions(), permissions -> {
@@ -425,8 +512,12 @@ public class MainActivity extends AppCompatActivity {
                         allGranted = allGranted && granted;
                     }
 
+                    Runnable export = pendingExport;
+                    pendingExport = null;
                     if (allGranted) {
-                        exportHistoryToCsv();
+                        if (export != null) {
+                            export.run();
+                        }
                     } else {
                         Toast.makeText(this,
                                 "Se necesitan permisos de almacenamiento para exportar los registros",
@@ -0,0 +1,151 @@
+package com.example.ejercicioenclase.adapter;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.repository.UserChange;
+import com.example.ejercicioenclase.util.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Adaptador del historial que carga los registros por páginas a medida que se desplaza la lista.
+ * Solo se crean vistas para las filas visibles y la siguiente página se precarga
+ * en segundo plano antes de llegar al final. Los cambios del repositorio se aplican
+ * sobre las filas ya cargadas en lugar de recargar el historial.
+ */
+public class HistoryAdapter extends BaseAdapter {
+    // Tamaño fijo de cada página del historial
+    public static final int PAGE_SIZE = 50;
+
+    // Cuántas filas antes del final se dispara la precarga de la siguiente página
+    private static final int PREFETCH_DISTANCE = 15;
+
+    /**
+     * Fuente de páginas del historial (paginación por clave sobre el ID)
+     */
+    public interface PageLoader {
+        List<User> loadPage(long beforeId, int pageSize);
+    }
+
+    /**
+     * Notifica cuando termina la carga de la primera página
+     */
+    public interface OnFirstPageLoadedListener {
+        void onFirstPageLoaded(boolean isEmpty);
+    }
+
+    private final LayoutInflater inflater;
+    private final PageLoader pageLoader;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HistoryList users = new HistoryList();
+
+    // Cambios recibidos mientras se carga una página; se aplican después de agregarla
+    private final List<UserChange> pendingChanges = new ArrayList<>();
+
+    // Se reutiliza para armar el texto de cada fila
+    private final StringBuilder rowText = new StringBuilder(64);
+
+    private boolean loading = false;
+
+    public HistoryAdapter(Context context, PageLoader pageLoader, Executor executor) {
+        this.inflater = LayoutInflater.from(context);
+        this.pageLoader = pageLoader;
+        this.executor = executor;
+    }
+
+    /**
+     * Carga la primera página y avisa si el historial está vacío
+     */
+    public void loadFirstPage(OnFirstPageLoadedListener listener) {
+        loadNextPage(listener);
+    }
+
+    private void loadNextPage(OnFirstPageLoadedListener listener) {
+        if (loading || users.isEndReached()) {
+            return;
+        }
+        loading = true;
+
+        final long beforeId = users.nextPageBeforeId();
+        executor.execute(() -> {
+            List<User> page = pageLoader.loadPage(beforeId, PAGE_SIZE);
+            mainHandler.post(() -> {
+                loading = false;
+                users.appendPage(page, PAGE_SIZE);
+                users.apply(pendingChanges);
+                pendingChanges.clear();
+                notifyDataSetChanged();
+
+                if (listener != null) {
+                    listener.onFirstPageLoaded(users.size() == 0);
+                }
+            });
+        });
+    }
+
+    /**
+     * Aplica los cambios publicados por el repositorio. Debe llamarse en el hilo principal.
+     */
+    public void applyChanges(List<UserChange> changes) {
+        if (changes == null) {
+            return;
+        }
+        if (loading) {
+            pendingChanges.addAll(changes);
+        } else if (users.apply(changes)) {
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return users.size();
+    }
+
+    @Override
+    public User getItem(int position) {
+        return users.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return users.get(position).getId();
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView textView = (TextView) (convertView != null ? convertView
+                : inflater.inflate(android.R.layout.simple_list_item_1, parent, false));
+
+        User user = users.get(position);
+        rowText.setLength(0);
+        rowText.append(user.getNombre()).append(' ').append(user.getApellido())
+                .append(" - ").append(user.getNacionalidad())
+                .append(" - ");
+        Utils.appendElapsedTime(rowText, user.getTiempoEscaneo());
+        textView.setText(rowText.toString());
+
+        // Precarga la siguiente página antes de que el usuario llegue al final
+        if (position >= users.size() - PREFETCH_DISTANCE) {
+            loadNextPage(null);
+        }
+
+        return textView;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ejercicioenclase.adapter;
+
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.repository.UserChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filas cargadas del historial, ordenadas por ID descendente (las más recientes primero).
+ * Las páginas se agregan al final y los cambios publicados por el repositorio se aplican
+ * en su posición con búsqueda binaria, sin volver a consultar la base de datos.
+ */
+class HistoryList {
+    private final List<User> users = new ArrayList<>();
+    private boolean endReached = false;
+
+    int size() {
+        return users.size();
+    }
+
+    User get(int position) {
+        return users.get(position);
+    }
+
+    boolean isEndReached() {
+        return endReached;
+    }
+
+    /**
+     * ID desde el cual se pide la siguiente página, o 0 para la primera
+     */
+    long nextPageBeforeId() {
+        return users.isEmpty() ? 0 : users.get(users.size() - 1).getId();
+    }
+
+    /**
+     * Agrega una página cargada por beforeId. Se ignoran las filas que ya llegaron
+     * como cambios mientras la página estaba en camino.
+     */
+    void appendPage(List<User> page, int pageSize) {
+        endReached = page.size() < pageSize;
+        long oldestId = users.isEmpty() ? Long.MAX_VALUE : users.get(users.size() - 1).getId();
+        for (User user : page) {
+            if (user.getId() < oldestId) {
+                users.add(user);
+                oldestId = user.getId();
+            }
+        }
+    }
+
+    /**
+     * Aplica un grupo de cambios. Aplicar dos veces el mismo grupo no altera el resultado.
+     * @return true si cambió alguna fila cargada
+     */
+    boolean apply(List<UserChange> changes) {
+        boolean changed = false;
+        for (UserChange change : changes) {
+            int position = indexOf(change.getUserId());
+            switch (change.getType()) {
+                case INSERT:
+                    if (position >= 0) {
+                        users.set(position, change.getUser());
+                        changed = true;
+                    } else if (isLoadedRange(-position - 1)) {
+                        users.add(-position - 1, change.getUser());
+                        changed = true;
+                    }
+                    break;
+                case UPDATE:
+                    if (position >= 0) {
+                        users.set(position, change.getUser());
+                        changed = true;
+                    }
+                    break;
+                case DELETE:
+                    if (position >= 0) {
+                        users.remove(position);
+                        changed = true;
+                    }
+                    break;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Una fila nueva solo se muestra si cae dentro de las páginas ya cargadas;
+     * las que quedan después de la última fila llegarán con la siguiente página.
+     */
+    private boolean isLoadedRange(int insertionPoint) {
+        return insertionPoint < users.size() || endReached;
+    }
+
+    /**
+     * Búsqueda binaria por ID sobre el orden descendente
+     * @return la posición, o (-(punto de inserción) - 1) si no está cargado
+     */
+    private int indexOf(long id) {
+        int low = 0;
+        int high = users.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = users.get(mid).getId();
+            if (midId > id) {
+                low = mid + 1;
+            } else if (midId < id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.ejercicioenclase.analytics;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TimeZone;
+
+/**
+ * Copia columnar del historial de escaneos para calcular estadísticas sin
+ * crear objetos User: cada columna es un arreglo primitivo ordenado por ID.
+ * Los conteos y sumas por nacionalidad se mantienen al agregar, actualizar o
+ * eliminar filas; los percentiles usan una copia ordenada que se recalcula
+ * solo después de un cambio. Las bajas se marcan y se compactan por lotes.
+ */
+public class ScanStatistics {
+    // Día desconocido (filas sin fecha de escaneo)
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Cantidad de nacionalidades registradas; el último balde agrupa las desconocidas
+    private final int nationalityCount;
+
+    // Columnas, ordenadas por ID ascendente
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private short[] nacionalidades = new short[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int slots;
+
+    // Filas eliminadas que aún ocupan su posición
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // Agregados mantenidos de forma incremental
+    private final long[] countByNationality;
+    private final long[] timeSumByNationality;
+    private long liveCount;
+    private long timeSum;
+
+    // Tiempos ordenados para los percentiles; null cuando hay que recalcularlos
+    private long[] sortedTimes;
+    private long[][] sortedTimesByNationality;
+
+    /**
+     * @param nationalityCount cantidad de códigos de nacionalidad válidos (0 a nationalityCount - 1)
+     */
+    public ScanStatistics(int nationalityCount) {
+        this.nationalityCount = nationalityCount;
+        countByNationality = new long[nationalityCount + 1];
+        timeSumByNationality = new long[nationalityCount + 1];
+    }
+
+    /**
+     * Día local (días desde la época) de un momento de escaneo, o NO_DAY si no se conoce
+     */
+    public static int dayOf(long epochMillis, TimeZone timeZone) {
+        if (epochMillis <= 0) {
+            return NO_DAY;
+        }
+        return (int) Math.floorDiv(epochMillis + timeZone.getOffset(epochMillis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Agrega una fila; si el ID ya existe, la reemplaza
+     * @param nacionalidad código del registro de nacionalidades, o un código negativo si es desconocida
+     * @param day día del escaneo (ver dayOf) o NO_DAY
+     */
+    public synchronized void add(long id, short nacionalidad, long tiempoEscaneo, int day) {
+        if (update(id, nacionalidad, tiempoEscaneo, day)) {
+            return;
+        }
+
+        int slot;
+        if (slots == 0 || id > ids[slots - 1]) {
+            // Caso normal: los IDs autoincrementales llegan en orden
+            ensureCapacity(slots + 1);
+            slot = slots++;
+        } else {
+            slot = Arrays.binarySearch(ids, 0, slots, id);
+            if (slot >= 0) {
+                // La posición pertenecía a una fila eliminada con el mismo ID
+                deleted.clear(slot);
+                deletedCount--;
+            } else {
+                slot = -slot - 1;
+                insertSlot(slot);
+            }
+        }
+
+        ids[slot] = id;
+        setRow(slot, nacionalidad, tiempoEscaneo, day);
+        addToAggregates(slot);
+    }
+
+    /**
+     * Actualiza una fila existente
+     * @return false si el ID no existe
+     */
+    public synchronized boolean update(long id, short nacionalidad, long tiempoEscaneo, int day) {
+        int slot = indexOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        removeFromAggregates(slot);
+        setRow(slot, nacionalidad, tiempoEscaneo, day);
+        addToAggregates(slot);
+        return true;
+    }
+
+    /**
+     * Elimina una fila
+     * @return false si el ID no existe
+     */
+    public synchronized boolean remove(long id) {
+        int slot = indexOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        removeFromAggregates(slot);
+        deleted.set(slot);
+        deletedCount++;
+
+        // Compacta cuando las bajas ocupan más de la cuarta parte de las posiciones
+        if (deletedCount > slots / 4) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Cantidad de escaneos registrados
+     */
+    public synchronized long size() {
+        return liveCount;
+    }
+
+    /**
+     * Cantidad de escaneos de una nacionalidad
+     */
+    public synchronized long count(short nacionalidad) {
+        return countByNationality[bucket(nacionalidad)];
+    }
+
+    /**
+     * Conteo por código de nacionalidad; la última posición agrupa las desconocidas
+     */
+    public synchronized long[] countsByNationality() {
+        return countByNationality.clone();
+    }
+
+    /**
+     * Promedio de tiempoEscaneo en milisegundos, o NaN si no hay escaneos
+     */
+    public synchronized double averageTime() {
+        return liveCount == 0 ? Double.NaN : (double) timeSum / liveCount;
+    }
+
+    /**
+     * Promedio de tiempoEscaneo de una nacionalidad, o NaN si no tiene escaneos
+     */
+    public synchronized double averageTime(short nacionalidad) {
+        int bucket = bucket(nacionalidad);
+        long count = countByNationality[bucket];
+        return count == 0 ? Double.NaN : (double) timeSumByNationality[bucket] / count;
+    }
+
+    /**
+     * Percentil de tiempoEscaneo (método del rango más cercano)
+     * @param percentile valor entre 0 y 100
+     * @return el tiempo en milisegundos, o -1 si no hay escaneos
+     */
+    public synchronized long percentileTime(double percentile) {
+        ensureSorted();
+        return nearestRank(sortedTimes, percentile);
+    }
+
+    /**
+     * Percentil de tiempoEscaneo de una nacionalidad, o -1 si no tiene escaneos
+     */
+    public synchronized long percentileTime(short nacionalidad, double percentile) {
+        ensureSorted();
+        return nearestRank(sortedTimesByNationality[bucket(nacionalidad)], percentile);
+    }
+
+    /**
+     * Escaneos por día en el rango indicado (ambos extremos incluidos)
+     * @return un conteo por día, empezando por firstDay
+     */
+    public synchronized int[] scansPerDay(int firstDay, int lastDay) {
+        if (lastDay < firstDay) {
+            throw new IllegalArgumentException("Rango de días inválido");
+        }
+        int[] counts = new int[lastDay - firstDay + 1];
+        for (int slot = 0; slot < slots; slot++) {
+            int day = days[slot];
+            if (day >= firstDay && day <= lastDay && (deletedCount == 0 || !deleted.get(slot))) {
+                counts[day - firstDay]++;
+            }
+        }
+        return counts;
+    }
+
+    private int indexOf(long id) {
+        int slot = Arrays.binarySearch(ids, 0, slots, id);
+        return slot >= 0 && !deleted.get(slot) ? slot : -1;
+    }
+
+    private int bucket(short nacionalidad) {
+        return nacionalidad >= 0 && nacionalidad < nationalityCount ? nacionalidad : nationalityCount;
+    }
+
+    private void setRow(int slot, short nacionalidad, long tiempoEscaneo, int day) {
+        nacionalidades[slot] = (short) bucket(nacionalidad);
+        times[slot] = tiempoEscaneo;
+        days[slot] = day;
+    }
+
+    private void addToAggregates(int slot) {
+        int bucket = nacionalidades[slot];
+        countByNationality[bucket]++;
+        timeSumByNationality[bucket] += times[slot];
+        liveCount++;
+        timeSum += times[slot];
+        invalidateSorted();
+    }
+
+    private void removeFromAggregates(int slot) {
+        int bucket = nacionalidades[slot];
+        countByNationality[bucket]--;
+        timeSumByNationality[bucket] -= times[slot];
+        liveCount--;
+        timeSum -= times[slot];
+        invalidateSorted();
+    }
+
+    private void invalidateSorted() {
+        sortedTimes = null;
+        sortedTimesByNationality = null;
+    }
+
+    /**
+     * Recalcula las copias ordenadas de los tiempos, general y por nacionalidad
+     */
+    private void ensureSorted() {
+        if (sortedTimes != null) {
+            return;
+        }
+
+        long[] all = new long[(int) liveCount];
+        long[][] byNationality = new long[nationalityCount + 1][];
+        int[] fill = new int[nationalityCount + 1];
+        for (int bucket = 0; bucket <= nationalityCount; bucket++) {
+            byNationality[bucket] = new long[(int) countByNationality[bucket]];
+        }
+
+        int next = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (deletedCount > 0 && deleted.get(slot)) {
+                continue;
+            }
+            int bucket = nacionalidades[slot];
+            all[next++] = times[slot];
+            byNationality[bucket][fill[bucket]++] = times[slot];
+        }
+
+        Arrays.sort(all);
+        for (long[] bucketTimes : byNationality) {
+            Arrays.sort(bucketTimes);
+        }
+        sortedTimes = all;
+        sortedTimesByNationality = byNationality;
+    }
+
+    private static long nearestRank(long[] sorted, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private void insertSlot(int slot) {
+        ensureCapacity(slots + 1);
+        int moved = slots - slot;
+        System.arraycopy(ids, slot, ids, slot + 1, moved);
+        System.arraycopy(times, slot, times, slot + 1, moved);
+        System.arraycopy(nacionalidades, slot, nacionalidades, slot + 1, moved);
+        System.arraycopy(days, slot, days, slot + 1, moved);
+        // Desplaza también las marcas de baja posteriores a la posición nueva
+        for (int i = deleted.previousSetBit(slots - 1); i >= slot; i = deleted.previousSetBit(i - 1)) {
+            deleted.clear(i);
+            deleted.set(i + 1);
+        }
+        slots++;
+    }
+
+    /**
+     * Elimina físicamente las filas marcadas como borradas
+     */
+    private void compact() {
+        int next = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (deleted.get(slot)) {
+                continue;
+            }
+            if (next != slot) {
+                ids[next] = ids[slot];
+                times[next] = times[slot];
+                nacionalidades[next] = nacionalidades[slot];
+                days[next] = days[slot];
+            }
+            next++;
+        }
+        slots = next;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        times = Arrays.copyOf(times, newCapacity);
+        nacionalidades = Arrays.copyOf(nacionalidades, newCapacity);
+        days = Arrays.copyOf(days, newCapacity);
+    }
+}
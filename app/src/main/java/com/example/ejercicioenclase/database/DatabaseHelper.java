@@ -1,15 +1,22 @@
 package com.example.ejercicioenclase.database;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
+import com.example.ejercicioenclase.metrics.ScanMetrics;
+import com.example.ejercicioenclase.metrics.ScanMetrics.DbOperation;
 import com.example.ejercicioenclase.model.User;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,21 +27,23 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     // Información de la base de datos
     private static final String DATABASE_NAME = "fingerprint_scanner.db";
-    private static final int DATABASE_VERSION = 1;
+    // Público: los respaldos guardan la versión del esquema del que salieron
+    public static final int DATABASE_VERSION = 3;
 
     // Singleton para asegurar una sola instancia de la base de datos
     private static DatabaseHelper instance;
 
     // Tabla de usuarios
-    private static final String TABLE_USERS = "users";
-    private static final String COLUMN_ID = "id";
-    private static final String COLUMN_NOMBRE = "nombre";
-    private static final String COLUMN_APELLIDO = "apellido";
-    private static final String COLUMN_FECHA_NACIMIENTO = "fecha_nacimiento";
-    private static final String COLUMN_GENERO = "genero";
-    private static final String COLUMN_NACIONALIDAD = "nacionalidad";
-    private static final String COLUMN_HUELLA_ID = "huella_id";
-    private static final String COLUMN_TIEMPO_ESCANEO = "tiempo_escaneo";
+    public static final String TABLE_USERS = "users";
+    public static final String COLUMN_ID = "id";
+    public static final String COLUMN_NOMBRE = "nombre";
+    public static final String COLUMN_APELLIDO = "apellido";
+    public static final String COLUMN_FECHA_NACIMIENTO = "fecha_nacimiento";
+    public static final String COLUMN_GENERO = "genero";
+    public static final String COLUMN_NACIONALIDAD = "nacionalidad";
+    public static final String COLUMN_HUELLA_ID = "huella_id";
+    public static final String COLUMN_TIEMPO_ESCANEO = "tiempo_escaneo";
+    public static final String COLUMN_FECHA_ESCANEO = "fecha_escaneo";
 
     // Sentencia SQL para crear la tabla de usuarios
     private static final String CREATE_TABLE_USERS =
@@ -46,9 +55,169 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + COLUMN_GENERO + " TEXT,"
             + COLUMN_NACIONALIDAD + " TEXT,"
             + COLUMN_HUELLA_ID + " TEXT,"
-            + COLUMN_TIEMPO_ESCANEO + " INTEGER"
+            + COLUMN_TIEMPO_ESCANEO + " INTEGER,"
+            + COLUMN_FECHA_ESCANEO + " INTEGER"
             + ")";
 
+    // Índices de búsqueda (versión 2 del esquema)
+    private static final String INDEX_APELLIDO_NOMBRE = "idx_users_apellido_nombre";
+    private static final String INDEX_NACIONALIDAD = "idx_users_nacionalidad";
+    private static final String INDEX_HUELLA_ID = "idx_users_huella_id";
+
+    // Tabla FTS para la búsqueda por nombre; usa la tabla de usuarios como contenido
+    private static final String TABLE_USERS_FTS = "users_fts";
+
+    private static final String CREATE_INDEX_APELLIDO_NOMBRE =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_APELLIDO_NOMBRE + " ON " + TABLE_USERS + "("
+            + COLUMN_APELLIDO + " COLLATE NOCASE,"
+            + COLUMN_NOMBRE + " COLLATE NOCASE"
+            + ")";
+
+    private static final String CREATE_INDEX_NACIONALIDAD =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_NACIONALIDAD + " ON " + TABLE_USERS + "("
+            + COLUMN_NACIONALIDAD + ")";
+
+    private static final String CREATE_INDEX_HUELLA_ID =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_HUELLA_ID + " ON " + TABLE_USERS + "("
+            + COLUMN_HUELLA_ID + ")";
+
+    private static final String CREATE_TABLE_USERS_FTS =
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_USERS_FTS + " USING fts4("
+            + "content=\"" + TABLE_USERS + "\","
+            + COLUMN_NOMBRE + ","
+            + COLUMN_APELLIDO + ","
+            + "tokenize=unicode61"
+            + ")";
+
+    // Triggers que mantienen sincronizado el índice FTS con la tabla de usuarios
+    private static final String[] CREATE_FTS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS users_fts_bu BEFORE UPDATE ON " + TABLE_USERS + " BEGIN "
+                    + "DELETE FROM " + TABLE_USERS_FTS + " WHERE docid = old." + COLUMN_ID + "; END",
+            "CREATE TRIGGER IF NOT EXISTS users_fts_bd BEFORE DELETE ON " + TABLE_USERS + " BEGIN "
+                    + "DELETE FROM " + TABLE_USERS_FTS + " WHERE docid = old." + COLUMN_ID + "; END",
+            "CREATE TRIGGER IF NOT EXISTS users_fts_au AFTER UPDATE ON " + TABLE_USERS + " BEGIN "
+                    + "INSERT INTO " + TABLE_USERS_FTS + "(docid, " + COLUMN_NOMBRE + ", " + COLUMN_APELLIDO + ") "
+                    + "VALUES (new." + COLUMN_ID + ", new." + COLUMN_NOMBRE + ", new." + COLUMN_APELLIDO + "); END",
+            "CREATE TRIGGER IF NOT EXISTS users_fts_ai AFTER INSERT ON " + TABLE_USERS + " BEGIN "
+                    + "INSERT INTO " + TABLE_USERS_FTS + "(docid, " + COLUMN_NOMBRE + ", " + COLUMN_APELLIDO + ") "
+                    + "VALUES (new." + COLUMN_ID + ", new." + COLUMN_NOMBRE + ", new." + COLUMN_APELLIDO + "); END"
+    };
+
+    // Migraciones del esquema, una por cada incremento de DATABASE_VERSION
+    // (las pruebas las aplican sobre SQLite por JDBC)
+    static final MigrationRunner MIGRATIONS = new MigrationRunner(
+            // v2: índices de búsqueda y tabla FTS
+            new Migration(1, 2) {
+                @Override
+                public void migrate(Sql db) {
+                    createSearchIndexes(db);
+                    // Llena el índice FTS con los usuarios que ya existían
+                    db.execSQL("INSERT INTO " + TABLE_USERS_FTS + "(" + TABLE_USERS_FTS + ") VALUES('rebuild')");
+                }
+            },
+            // v3: momento del escaneo, para las estadísticas por día
+            new Migration(2, 3) {
+                @Override
+                public void migrate(Sql db) {
+                    addColumn(db, TABLE_USERS, COLUMN_FECHA_ESCANEO + " INTEGER");
+                }
+            }
+    );
+
+    // Proyección explícita de las columnas que se leen en cada consulta
+    static final String[] USER_PROJECTION = {
+            COLUMN_ID,
+            COLUMN_NOMBRE,
+            COLUMN_APELLIDO,
+            COLUMN_FECHA_NACIMIENTO,
+            COLUMN_GENERO,
+            COLUMN_NACIONALIDAD,
+            COLUMN_HUELLA_ID,
+            COLUMN_TIEMPO_ESCANEO,
+            COLUMN_FECHA_ESCANEO
+    };
+
+    // Búsquedas que deben resolverse con los índices o la tabla FTS, sin recorrer
+    // la tabla completa; las pruebas revisan su plan con EXPLAIN QUERY PLAN
+    static final String SEARCH_BY_NAME =
+            "SELECT " + qualifiedProjection() + " FROM " + TABLE_USERS
+            + " JOIN " + TABLE_USERS_FTS + " ON " + TABLE_USERS_FTS + ".docid = " + TABLE_USERS + "." + COLUMN_ID
+            + " WHERE " + TABLE_USERS_FTS + " MATCH ?"
+            + " ORDER BY " + TABLE_USERS + "." + COLUMN_ID + " DESC LIMIT ?";
+
+    static final String USERS_BY_NACIONALIDAD =
+            "SELECT " + qualifiedProjection() + " FROM " + TABLE_USERS
+            + " WHERE " + COLUMN_NACIONALIDAD + " = ?"
+            + " ORDER BY " + COLUMN_ID + " DESC LIMIT ?";
+
+    static final String USER_BY_HUELLA =
+            "SELECT " + qualifiedProjection() + " FROM " + TABLE_USERS
+            + " WHERE " + COLUMN_HUELLA_ID + " = ?"
+            + " ORDER BY " + COLUMN_ID + " ASC LIMIT 1";
+
+    // Columnas que necesitan las estadísticas del historial
+    private static final String[] SCAN_COLUMNS_PROJECTION = {
+            COLUMN_ID,
+            COLUMN_NACIONALIDAD,
+            COLUMN_TIEMPO_ESCANEO,
+            COLUMN_FECHA_ESCANEO
+    };
+
+    // Sentencias SQL precompiladas para las operaciones de escritura
+    // (INSERT_USER también lo usa el módulo de benchmarks)
+    static final String INSERT_USER =
+            "INSERT INTO " + TABLE_USERS + " ("
+            + COLUMN_NOMBRE + ","
+            + COLUMN_APELLIDO + ","
+            + COLUMN_FECHA_NACIMIENTO + ","
+            + COLUMN_GENERO + ","
+            + COLUMN_NACIONALIDAD + ","
+            + COLUMN_HUELLA_ID + ","
+            + COLUMN_TIEMPO_ESCANEO + ","
+            + COLUMN_FECHA_ESCANEO
+            + ") VALUES (?,?,?,?,?,?,?,?)";
+
+    private static final String UPDATE_USER =
+            "UPDATE " + TABLE_USERS + " SET "
+            + COLUMN_NOMBRE + " = ?,"
+            + COLUMN_APELLIDO + " = ?,"
+            + COLUMN_FECHA_NACIMIENTO + " = ?,"
+            + COLUMN_GENERO + " = ?,"
+            + COLUMN_NACIONALIDAD + " = ?,"
+            + COLUMN_HUELLA_ID + " = ?,"
+            + COLUMN_TIEMPO_ESCANEO + " = ?,"
+            + COLUMN_FECHA_ESCANEO + " = ?"
+            + " WHERE " + COLUMN_ID + " = ?";
+
+    private static final String DELETE_USER =
+            "DELETE FROM " + TABLE_USERS + " WHERE " + COLUMN_ID + " = ?";
+
+    // Un escaneo se identifica por su huella y su momento (índice sobre huella_id);
+    // también la usa el módulo de benchmarks
+    static final String FIND_SCAN =
+            "SELECT " + COLUMN_ID + " FROM " + TABLE_USERS
+            + " WHERE " + COLUMN_HUELLA_ID + " = ? AND " + COLUMN_FECHA_ESCANEO + " = ? LIMIT 1";
+
+    // (también la usa el módulo de benchmarks)
+    static final String FIND_HUELLA =
+            "SELECT " + COLUMN_ID + " FROM " + TABLE_USERS + " WHERE " + COLUMN_HUELLA_ID + " = ? LIMIT 1";
+
+    // Cantidad de filas por transacción en las inserciones por lotes
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Contadores de operaciones de base de datos
+    private final ScanMetrics metrics = ScanMetrics.getInstance();
+
+    // Conexión única que se mantiene abierta mientras viva el proceso
+    private SQLiteDatabase database;
+
+    // Sentencias compiladas una sola vez y reutilizadas en cada llamada
+    private SQLiteStatement insertStatement;
+    private SQLiteStatement updateStatement;
+    private SQLiteStatement deleteStatement;
+    private SQLiteStatement findScanStatement;
+    private SQLiteStatement findHuellaStatement;
+
     // Método para obtener la instancia única (Singleton)
     public static synchronized DatabaseHelper getInstance(Context context) {
         if (instance == null) {
@@ -57,121 +226,449 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return instance;
     }
 
+    /**
+     * Cierra y descarta la instancia única; las pruebas empiezan cada una con una base de datos nueva
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
     private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // WAL permite lecturas mientras se escribe y evita un fsync completo por transacción
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Devuelve la conexión compartida, abriéndola solo la primera vez
+     */
+    private synchronized SQLiteDatabase getDatabase() {
+        if (database == null || !database.isOpen()) {
+            releaseStatements();
+            database = getWritableDatabase();
+        }
+        return database;
+    }
+
+    /**
+     * Cierra la conexión compartida y sus sentencias compiladas
+     */
+    @Override
+    public synchronized void close() {
+        releaseStatements();
+        database = null;
+        super.close();
+    }
+
+    private void releaseStatements() {
+        if (insertStatement != null) {
+            insertStatement.close();
+            insertStatement = null;
+        }
+        if (updateStatement != null) {
+            updateStatement.close();
+            updateStatement = null;
+        }
+        if (deleteStatement != null) {
+            deleteStatement.close();
+            deleteStatement = null;
+        }
+        if (findScanStatement != null) {
+            findScanStatement.close();
+            findScanStatement = null;
+        }
+        if (findHuellaStatement != null) {
+            findHuellaStatement.close();
+            findHuellaStatement = null;
+        }
+    }
+
+    /**
+     * Enlaza los campos del usuario en el orden de INSERT_USER / UPDATE_USER
+     */
+    private static void bindUser(SQLiteStatement statement, User user) {
+        bindNullableString(statement, 1, user.getNombre());
+        bindNullableString(statement, 2, user.getApellido());
+        bindNullableString(statement, 3, user.getFechaNacimiento());
+        bindNullableString(statement, 4, user.getGenero());
+        bindNullableString(statement, 5, user.getNacionalidad());
+        bindNullableString(statement, 6, user.getHuellaId());
+        statement.bindLong(7, user.getTiempoEscaneo());
+        if (user.getFechaEscaneo() > 0) {
+            statement.bindLong(8, user.getFechaEscaneo());
+        } else {
+            statement.bindNull(8);
+        }
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL(CREATE_TABLE_USERS);
+        for (String sql : schemaStatements()) {
+            db.execSQL(sql);
+        }
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        onCreate(db);
+        // Las migraciones conservan los datos existentes
+        MIGRATIONS.migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * Crea los índices de búsqueda y la tabla FTS con sus triggers
+     */
+    private static void createSearchIndexes(Migration.Sql db) {
+        for (String sql : searchIndexStatements()) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Sentencias que crean el esquema actual completo, en orden.
+     * El módulo de benchmarks las ejecuta sobre SQLite por JDBC.
+     */
+    static List<String> schemaStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add(CREATE_TABLE_USERS);
+        statements.addAll(searchIndexStatements());
+        return statements;
+    }
+
+    private static List<String> searchIndexStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add(CREATE_INDEX_APELLIDO_NOMBRE);
+        statements.add(CREATE_INDEX_NACIONALIDAD);
+        statements.add(CREATE_INDEX_HUELLA_ID);
+        statements.add(CREATE_TABLE_USERS_FTS);
+        Collections.addAll(statements, CREATE_FTS_TRIGGERS);
+        return statements;
     }
 
     /**
      * Inserta un nuevo usuario en la base de datos
+     * @return el ID de la nueva fila, o -1 si ocurrió un error
      */
-    public long insertUser(User user) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
+    public synchronized long insertUser(User user) {
+        SQLiteDatabase db = getDatabase();
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(INSERT_USER);
+        }
 
-        values.put(COLUMN_NOMBRE, user.getNombre());
-        values.put(COLUMN_APELLIDO, user.getApellido());
-        values.put(COLUMN_FECHA_NACIMIENTO, user.getFechaNacimiento());
-        values.put(COLUMN_GENERO, user.getGenero());
-        values.put(COLUMN_NACIONALIDAD, user.getNacionalidad());
-        values.put(COLUMN_HUELLA_ID, user.getHuellaId());
-        values.put(COLUMN_TIEMPO_ESCANEO, user.getTiempoEscaneo());
+        metrics.countDbOperation(DbOperation.INSERT);
+        try {
+            bindUser(insertStatement, user);
+            return insertStatement.executeInsert();
+        } catch (SQLException e) {
+            Log.e(TAG, "Error al insertar usuario", e);
+            return -1;
+        } finally {
+            insertStatement.clearBindings();
+        }
+    }
+
+    /**
+     * Inserta varios usuarios reutilizando la sentencia compilada,
+     * con una sola transacción (y un solo fsync) por cada bloque de filas
+     * @param chunkSize cantidad máxima de filas por transacción
+     * @return los IDs generados en el mismo orden de la lista (-1 para las filas que fallaron)
+     */
+    public synchronized long[] insertUsers(List<User> users, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize debe ser mayor que cero");
+        }
+
+        long[] ids = new long[users.size()];
+        metrics.countDbOperations(DbOperation.BATCH_INSERT, ids.length);
+        SQLiteDatabase db = getDatabase();
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(INSERT_USER);
+        }
 
-        long id = db.insert(TABLE_USERS, null, values);
-        db.close();
-        return id;
+        for (int start = 0; start < ids.length; start += chunkSize) {
+            int end = Math.min(start + chunkSize, ids.length);
+            db.beginTransaction();
+            try {
+                for (int i = start; i < end; i++) {
+                    try {
+                        bindUser(insertStatement, users.get(i));
+                        ids[i] = insertStatement.executeInsert();
+                    } catch (SQLException e) {
+                        Log.e(TAG, "Error al insertar usuario del lote", e);
+                        ids[i] = -1;
+                    } finally {
+                        insertStatement.clearBindings();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        return ids;
     }
 
     /**
-     * Actualiza un usuario existente en la base de datos
+     * Aplica inserciones y actualizaciones en una sola transacción (commit agrupado de la cola de escritura)
+     * @return por cada escritura, el ID insertado o la cantidad de filas actualizadas (-1 si falló)
      */
-    public int updateUser(User user) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
+    public synchronized long[] writeBatch(List<UserWrite> writes) {
+        long[] results = new long[writes.size()];
+        SQLiteDatabase db = getDatabase();
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(INSERT_USER);
+        }
+        if (updateStatement == null) {
+            updateStatement = db.compileStatement(UPDATE_USER);
+        }
 
-        values.put(COLUMN_NOMBRE, user.getNombre());
-        values.put(COLUMN_APELLIDO, user.getApellido());
-        values.put(COLUMN_FECHA_NACIMIENTO, user.getFechaNacimiento());
-        values.put(COLUMN_GENERO, user.getGenero());
-        values.put(COLUMN_NACIONALIDAD, user.getNacionalidad());
-        values.put(COLUMN_HUELLA_ID, user.getHuellaId());
-        values.put(COLUMN_TIEMPO_ESCANEO, user.getTiempoEscaneo());
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < results.length; i++) {
+                UserWrite write = writes.get(i);
+                SQLiteStatement statement = write.isInsert() ? insertStatement : updateStatement;
+                try {
+                    bindUser(statement, write.getUser());
+                    if (write.isInsert()) {
+                        metrics.countDbOperation(DbOperation.INSERT);
+                        results[i] = statement.executeInsert();
+                    } else {
+                        metrics.countDbOperation(DbOperation.UPDATE);
+                        statement.bindLong(9, write.getUser().getId());
+                        results[i] = statement.executeUpdateDelete();
+                    }
+                } catch (SQLException e) {
+                    Log.e(TAG, "Error al aplicar escritura del lote", e);
+                    results[i] = -1;
+                } finally {
+                    statement.clearBindings();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return results;
+    }
 
-        int rowsUpdated = db.update(TABLE_USERS, values, COLUMN_ID + " = ?",
-                new String[]{String.valueOf(user.getId())});
-        db.close();
-        return rowsUpdated;
+    /**
+     * Inserta escaneos del diario en una sola transacción, omitiendo los que ya están
+     * en la tabla (misma huella y fecha de escaneo), de modo que repetir un lote no
+     * duplica filas
+     * @param existing se marcan las posiciones de los escaneos que ya existían
+     * @return por cada escaneo, el ID de su fila (nueva o existente), o -1 si falló
+     */
+    public synchronized long[] insertScans(List<User> users, BitSet existing) {
+        SQLiteDatabase db = getDatabase();
+        if (findScanStatement == null) {
+            findScanStatement = db.compileStatement(FIND_SCAN);
+        }
+        return insertIfAbsent(db, users, existing, true);
     }
 
     /**
-     * Obtiene todos los usuarios de la base de datos
+     * Inserta personas importadas en una sola transacción, omitiendo las que tienen un
+     * ID de huella ya registrado. Las filas se buscan dentro de la transacción, así que
+     * un ID repetido en el mismo lote también se omite.
+     * @param duplicates se marcan las posiciones omitidas
+     * @return por cada persona, el ID de su fila (nueva o existente), o -1 si falló
      */
-    public List<User> getAllUsers() {
-        List<User> userList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_USERS + " ORDER BY " + COLUMN_ID + " DESC";
+    public synchronized long[] importUsers(List<User> users, BitSet duplicates) {
+        SQLiteDatabase db = getDatabase();
+        if (findHuellaStatement == null) {
+            findHuellaStatement = db.compileStatement(FIND_HUELLA);
+        }
+        return insertIfAbsent(db, users, duplicates, false);
+    }
 
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
+    private long[] insertIfAbsent(SQLiteDatabase db, List<User> users, BitSet existing, boolean matchFecha) {
+        long[] ids = new long[users.size()];
+        metrics.countDbOperations(DbOperation.BATCH_INSERT, ids.length);
+        if (insertStatement == null) {
+            insertStatement = db.compileStatement(INSERT_USER);
+        }
 
+        db.beginTransaction();
         try {
-            if (cursor.moveToFirst()) {
-                do {
-                    User user = new User();
-                    user.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                    user.setNombre(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NOMBRE)));
-                    user.setApellido(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_APELLIDO)));
-                    user.setFechaNacimiento(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FECHA_NACIMIENTO)));
-                    user.setGenero(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_GENERO)));
-                    user.setNacionalidad(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NACIONALIDAD)));
-                    user.setHuellaId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_HUELLA_ID)));
-                    user.setTiempoEscaneo(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIEMPO_ESCANEO)));
-
-                    userList.add(user);
-                } while (cursor.moveToNext());
+            for (int i = 0; i < ids.length; i++) {
+                User user = users.get(i);
+                long existingId = matchFecha ? findScan(user) : findHuella(user.getHuellaId());
+                if (existingId > 0) {
+                    ids[i] = existingId;
+                    existing.set(i);
+                    continue;
+                }
+                try {
+                    bindUser(insertStatement, user);
+                    ids[i] = insertStatement.executeInsert();
+                } catch (SQLException e) {
+                    Log.e(TAG, "Error al insertar usuario del lote", e);
+                    ids[i] = -1;
+                } finally {
+                    insertStatement.clearBindings();
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error al obtener usuarios", e);
+            db.setTransactionSuccessful();
         } finally {
-            if (cursor != null && !cursor.isClosed()) {
-                cursor.close();
-            }
+            db.endTransaction();
+        }
+        return ids;
+    }
+
+    /**
+     * ID de la fila del mismo escaneo, o -1 si no existe o no se puede identificar
+     */
+    private long findScan(User user) {
+        if (user.getHuellaId() == null || user.getFechaEscaneo() <= 0) {
+            return -1;
+        }
+        try {
+            findScanStatement.bindString(1, user.getHuellaId());
+            findScanStatement.bindLong(2, user.getFechaEscaneo());
+            return findScanStatement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        } finally {
+            findScanStatement.clearBindings();
+        }
+    }
+
+    /**
+     * ID de la primera fila con el ID de huella indicado, o -1 si no existe
+     */
+    private long findHuella(String huellaId) {
+        if (huellaId == null) {
+            return -1;
+        }
+        try {
+            findHuellaStatement.bindString(1, huellaId);
+            return findHuellaStatement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        } finally {
+            findHuellaStatement.clearBindings();
         }
+    }
+
+    /**
+     * Actualiza un usuario existente en la base de datos
+     */
+    public synchronized int updateUser(User user) {
+        SQLiteDatabase db = getDatabase();
+        if (updateStatement == null) {
+            updateStatement = db.compileStatement(UPDATE_USER);
+        }
+
+        metrics.countDbOperation(DbOperation.UPDATE);
+        try {
+            bindUser(updateStatement, user);
+            updateStatement.bindLong(9, user.getId());
+            return updateStatement.executeUpdateDelete();
+        } finally {
+            updateStatement.clearBindings();
+        }
+    }
+
+    /**
+     * Obtiene todos los usuarios de la base de datos
+     */
+    public List<User> getAllUsers() {
+        List<User> userList = new ArrayList<>();
+
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.query(TABLE_USERS, USER_PROJECTION, null, null,
+                null, null, COLUMN_ID + " DESC");
+        readUsers(cursor, userList);
+        return userList;
+    }
+
+    /**
+     * Obtiene una página del historial usando paginación por clave sobre el ID
+     * @param beforeId se devuelven solo los usuarios con ID menor; 0 o negativo para la primera página
+     * @param pageSize cantidad máxima de usuarios de la página
+     */
+    public List<User> getUsersPage(long beforeId, int pageSize) {
+        List<User> userList = new ArrayList<>(pageSize);
+        String selection = beforeId > 0 ? COLUMN_ID + " < ?" : null;
+        String[] selectionArgs = beforeId > 0 ? new String[]{String.valueOf(beforeId)} : null;
+
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.query(TABLE_USERS, USER_PROJECTION, selection, selectionArgs,
+                null, null, COLUMN_ID + " DESC", String.valueOf(pageSize));
+        readUsers(cursor, userList);
+        return userList;
+    }
 
-        db.close();
+    /**
+     * Obtiene los usuarios siguientes al ID indicado, en orden de ID ascendente
+     * (paginación por clave para recorrer la tabla completa por partes)
+     * @param afterId se devuelven solo los usuarios con ID mayor; 0 para empezar desde el primero
+     * @param pageSize cantidad máxima de usuarios de la página
+     */
+    public List<User> getUsersAfter(long afterId, int pageSize) {
+        List<User> userList = new ArrayList<>(pageSize);
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.query(TABLE_USERS, USER_PROJECTION, COLUMN_ID + " > ?",
+                new String[]{String.valueOf(afterId)}, null, null, COLUMN_ID + " ASC", String.valueOf(pageSize));
+        readUsers(cursor, userList);
         return userList;
     }
 
+    /**
+     * Abre un cursor sobre todos los usuarios, del más reciente al más antiguo,
+     * para recorrerlos sin materializar la lista completa. El llamador debe cerrarlo.
+     */
+    public Cursor queryAllUsers() {
+        metrics.countDbOperation(DbOperation.QUERY);
+        return getDatabase().query(TABLE_USERS, USER_PROJECTION, null, null,
+                null, null, COLUMN_ID + " DESC");
+    }
+
+    /**
+     * Abre un cursor con las columnas de las estadísticas (ID, nacionalidad,
+     * tiempo y fecha de escaneo) en orden de ID ascendente. El llamador debe cerrarlo.
+     */
+    public Cursor queryScanColumns() {
+        metrics.countDbOperation(DbOperation.QUERY);
+        return getDatabase().query(TABLE_USERS, SCAN_COLUMNS_PROJECTION, null, null,
+                null, null, COLUMN_ID + " ASC");
+    }
+
+    /**
+     * Cuenta los usuarios registrados
+     */
+    public long getUserCount() {
+        metrics.countDbOperation(DbOperation.QUERY);
+        return DatabaseUtils.queryNumEntries(getDatabase(), TABLE_USERS);
+    }
+
     /**
      * Obtiene un usuario por su ID
      */
     public User getUser(long userId) {
-        SQLiteDatabase db = this.getReadableDatabase();
+        SQLiteDatabase db = getDatabase();
         User user = null;
 
-        Cursor cursor = db.query(TABLE_USERS, null, COLUMN_ID + " = ?",
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.query(TABLE_USERS, USER_PROJECTION, COLUMN_ID + " = ?",
                 new String[]{String.valueOf(userId)}, null, null, null);
 
         try {
             if (cursor != null && cursor.moveToFirst()) {
-                user = new User();
-                user.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                user.setNombre(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NOMBRE)));
-                user.setApellido(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_APELLIDO)));
-                user.setFechaNacimiento(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FECHA_NACIMIENTO)));
-                user.setGenero(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_GENERO)));
-                user.setNacionalidad(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_NACIONALIDAD)));
-                user.setHuellaId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_HUELLA_ID)));
-                user.setTiempoEscaneo(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_TIEMPO_ESCANEO)));
+                user = new UserRowMapper(cursor).map(cursor);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error al obtener usuario", e);
@@ -181,16 +678,121 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             }
         }
 
-        db.close();
         return user;
     }
 
+    /**
+     * Busca usuarios cuyo nombre o apellido empiece con las palabras indicadas (índice FTS)
+     */
+    public List<User> searchUsersByName(String prefix, int limit) {
+        List<User> userList = new ArrayList<>();
+        String match = buildPrefixMatch(prefix);
+        if (match.isEmpty()) {
+            return userList;
+        }
+
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.rawQuery(SEARCH_BY_NAME, new String[]{match, String.valueOf(limit)});
+        readUsers(cursor, userList);
+        return userList;
+    }
+
+    /**
+     * Obtiene los usuarios de una nacionalidad (índice sobre nacionalidad)
+     */
+    public List<User> getUsersByNacionalidad(String nacionalidad, int limit) {
+        List<User> userList = new ArrayList<>();
+
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.rawQuery(USERS_BY_NACIONALIDAD, new String[]{nacionalidad, String.valueOf(limit)});
+        readUsers(cursor, userList);
+        return userList;
+    }
+
+    /**
+     * Obtiene el registro de enrolamiento (el primero) del ID de huella indicado (índice sobre huella_id)
+     */
+    public User getUserByHuellaId(String huellaId) {
+        List<User> userList = new ArrayList<>(1);
+
+        SQLiteDatabase db = getDatabase();
+        metrics.countDbOperation(DbOperation.QUERY);
+        Cursor cursor = db.rawQuery(USER_BY_HUELLA, new String[]{huellaId});
+        readUsers(cursor, userList);
+        return userList.isEmpty() ? null : userList.get(0);
+    }
+
+    /**
+     * Lee todas las filas del cursor y lo cierra
+     */
+    private static void readUsers(Cursor cursor, List<User> userList) {
+        try {
+            UserRowMapper mapper = new UserRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                userList.add(mapper.map(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al leer usuarios", e);
+        } finally {
+            if (!cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Columnas de la proyección calificadas con la tabla, para consultas con JOIN
+     */
+    private static String qualifiedProjection() {
+        StringBuilder columns = new StringBuilder();
+        for (String column : USER_PROJECTION) {
+            if (columns.length() > 0) {
+                columns.append(',');
+            }
+            columns.append(TABLE_USERS).append('.').append(column);
+        }
+        return columns.toString();
+    }
+
+    /**
+     * Convierte el texto buscado en una consulta FTS de prefijos: "juan pe" -> "juan*" "pe*"
+     */
+    static String buildPrefixMatch(String text) {
+        StringBuilder match = new StringBuilder();
+        if (text == null) {
+            return "";
+        }
+
+        for (String token : text.trim().split("\\s+")) {
+            String clean = token.replace("\"", "");
+            if (clean.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(clean).append("*\"");
+        }
+        return match.toString();
+    }
+
     /**
      * Elimina un usuario de la base de datos
      */
-    public void deleteUser(long userId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_USERS, COLUMN_ID + " = ?", new String[]{String.valueOf(userId)});
-        db.close();
+    public synchronized void deleteUser(long userId) {
+        SQLiteDatabase db = getDatabase();
+        if (deleteStatement == null) {
+            deleteStatement = db.compileStatement(DELETE_USER);
+        }
+
+        metrics.countDbOperation(DbOperation.DELETE);
+        try {
+            deleteStatement.bindLong(1, userId);
+            deleteStatement.executeUpdateDelete();
+        } finally {
+            deleteStatement.clearBindings();
+        }
     }
 }
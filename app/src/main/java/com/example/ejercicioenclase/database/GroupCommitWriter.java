@@ -0,0 +1,195 @@
+package com.example.ejercicioenclase.database;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de escritura con un solo hilo escritor y commit agrupado: muchos hilos
+ * encolan escrituras y el escritor aplica todas las que estén esperando en un
+ * solo lote (una transacción, un fsync). Cada escritura recibe un future que se
+ * completa con su resultado cuando el lote termina.
+ */
+public class GroupCommitWriter<T> implements AutoCloseable {
+
+    /**
+     * Aplica un lote de escrituras en una sola transacción
+     */
+    public interface BatchSink<T> {
+        /**
+         * @return un resultado por escritura, en el mismo orden (por ejemplo, el ID insertado)
+         */
+        long[] writeBatch(List<T> batch);
+
+        /**
+         * Se llama en el hilo escritor después de completar los futures de un lote
+         * confirmado, por ejemplo para avisar a los observadores. Un error aquí ya
+         * no afecta al lote.
+         */
+        default void afterCommit(List<T> batch, long[] results) {
+        }
+    }
+
+    private static final String TAG = "GroupCommitWriter";
+
+    // Cada cuánto revisa el escritor si se cerró la cola
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private static final class Pending<T> {
+        final T item;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+
+    private final BatchSink<T> sink;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending<T>> queue;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+
+    /**
+     * @param maxBatchSize máximo de escrituras por transacción
+     * @param capacity máximo de escrituras en espera; al llenarse, submit bloquea al llamador
+     */
+    public GroupCommitWriter(String name, BatchSink<T> sink, int maxBatchSize, int capacity) {
+        if (maxBatchSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("maxBatchSize y capacity deben ser mayores que cero");
+        }
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::runWriter, name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Encola una escritura; bloquea si la cola está llena
+     * @return un future con el resultado de la escritura, o fallido si la cola está cerrada
+     */
+    public CompletableFuture<Long> submit(T item) {
+        Pending<T> pending = new Pending<>(item);
+        if (closed) {
+            pending.result.completeExceptionally(new IllegalStateException("La cola de escritura está cerrada"));
+            return pending.result;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(e);
+            return pending.result;
+        }
+        // Si la cola se cerró mientras se encolaba, puede que el escritor ya haya terminado
+        // y close ya la haya vaciado. Si sigue en la cola nadie la va a aplicar; si no,
+        // la tomó el escritor o close y ellos completan el future.
+        if (closed && queue.remove(pending)) {
+            pending.result.completeExceptionally(new IllegalStateException("La cola de escritura está cerrada"));
+        }
+        return pending.result;
+    }
+
+    /**
+     * Lotes aplicados desde que se creó la cola
+     */
+    public long batchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Escrituras aplicadas desde que se creó la cola
+     */
+    public long writeCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * Deja de aceptar escrituras, aplica las que estaban en espera y detiene el escritor.
+     * Si el hilo que cierra es interrumpido deja de esperar y conserva la interrupción.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Escrituras que se encolaron mientras se cerraba la cola
+        Pending<T> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("La cola de escritura está cerrada"));
+        }
+    }
+
+    private void runWriter() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        List<T> items = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Pending<T> first;
+            try {
+                first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Nadie interrumpe al escritor salvo al terminar el proceso
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+
+            // Agrupa todo lo que llegó mientras se aplicaba el lote anterior
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            for (Pending<T> pending : batch) {
+                items.add(pending.item);
+            }
+            applyBatch(batch, items);
+            batch.clear();
+            items.clear();
+        }
+    }
+
+    private void applyBatch(List<Pending<T>> batch, List<T> items) {
+        long[] results;
+        try {
+            results = sink.writeBatch(items);
+            if (results == null || results.length != batch.size()) {
+                throw new IllegalStateException("El lote de " + batch.size() + " escrituras devolvió "
+                        + (results == null ? "null" : results.length + " resultados"));
+            }
+        } catch (Throwable e) {
+            // Falla solo este lote; el escritor sigue atendiendo la cola
+            for (Pending<T> pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+            return;
+        }
+
+        batchCount.incrementAndGet();
+        writeCount.addAndGet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results[i]);
+        }
+
+        try {
+            sink.afterCommit(items, results);
+        } catch (Throwable e) {
+            Log.e(TAG, "Error después de confirmar un lote de " + batch.size() + " escrituras", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.ejercicioenclase.database;
+
+/**
+ * Paso de migración del esquema entre dos versiones consecutivas.
+ * Las migraciones nunca deben borrar datos: se usa ALTER TABLE cuando basta
+ * y, si no, se copia la tabla a una nueva con el esquema actualizado.
+ */
+public abstract class Migration {
+
+    /**
+     * Base de datos que se migra; en la app es SQLiteDatabase::execSQL y en las
+     * pruebas, SQLite por JDBC
+     */
+    public interface Sql {
+        void execSQL(String sql);
+    }
+
+    public final int startVersion;
+    public final int endVersion;
+
+    protected Migration(int startVersion, int endVersion) {
+        if (endVersion != startVersion + 1) {
+            throw new IllegalArgumentException("Una migración debe avanzar exactamente una versión: "
+                    + startVersion + " -> " + endVersion);
+        }
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    /**
+     * Aplica el cambio de esquema. Se ejecuta dentro de la transacción de onUpgrade.
+     */
+    public abstract void migrate(Sql db);
+
+    /**
+     * Estrategia incremental: agrega una columna sin tocar las filas existentes
+     */
+    protected static void addColumn(Sql db, String table, String columnDefinition) {
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + columnDefinition);
+    }
+
+    /**
+     * Estrategia de copia: crea la tabla con el nuevo esquema, copia las columnas
+     * indicadas y reemplaza la tabla original
+     * @param createSql sentencia CREATE TABLE con el nombre de la tabla final
+     * @param columns columnas que existen en ambos esquemas, separadas por comas
+     */
+    protected static void rebuildTable(Sql db, String table, String createSql, String columns) {
+        String oldTable = table + "_old";
+        db.execSQL("ALTER TABLE " + table + " RENAME TO " + oldTable);
+        db.execSQL(createSql);
+        db.execSQL("INSERT INTO " + table + " (" + columns + ") SELECT " + columns + " FROM " + oldTable);
+        db.execSQL("DROP TABLE " + oldTable);
+    }
+}
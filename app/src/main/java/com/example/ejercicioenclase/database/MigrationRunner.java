@@ -0,0 +1,82 @@
+package com.example.ejercicioenclase.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta en orden las migraciones necesarias para llevar el esquema
+ * de una versión a otra, midiendo el tiempo de cada paso
+ */
+public class MigrationRunner {
+    private static final String TAG = "MigrationRunner";
+
+    private final Migration[] migrations;
+
+    public MigrationRunner(Migration... migrations) {
+        this.migrations = migrations.clone();
+    }
+
+    /**
+     * Devuelve la secuencia ordenada de migraciones de oldVersion a newVersion
+     * @throws IllegalStateException si falta algún paso intermedio
+     */
+    public List<Migration> findPath(int oldVersion, int newVersion) {
+        List<Migration> path = new ArrayList<>();
+        for (int version = oldVersion; version < newVersion; version++) {
+            Migration step = null;
+            for (Migration migration : migrations) {
+                if (migration.startVersion == version) {
+                    if (step != null) {
+                        throw new IllegalStateException("Migración duplicada desde la versión " + version);
+                    }
+                    step = migration;
+                }
+            }
+            if (step == null) {
+                throw new IllegalStateException("No hay migración desde la versión " + version
+                        + " hacia " + (version + 1));
+            }
+            path.add(step);
+        }
+        return path;
+    }
+
+    /**
+     * Aplica las migraciones. SQLiteOpenHelper ya envuelve onUpgrade en una
+     * transacción, así que si un paso falla no se aplica ninguno.
+     */
+    public void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        List<Migration> path = findPath(oldVersion, newVersion);
+        long[] stepMillis = run(db::execSQL, path);
+        long totalMillis = 0;
+        for (int i = 0; i < stepMillis.length; i++) {
+            Migration migration = path.get(i);
+            Log.i(TAG, "Migración " + migration.startVersion + " -> " + migration.endVersion
+                    + " completada en " + stepMillis[i] + " ms");
+            totalMillis += stepMillis[i];
+        }
+        Log.i(TAG, "Esquema actualizado de " + oldVersion + " a " + newVersion
+                + " en " + totalMillis + " ms");
+    }
+
+    /**
+     * Aplica las migraciones sin registrar nada; el llamador maneja la transacción
+     * @return milisegundos que tardó cada paso, en orden
+     */
+    public long[] migrate(Migration.Sql db, int oldVersion, int newVersion) {
+        return run(db, findPath(oldVersion, newVersion));
+    }
+
+    private static long[] run(Migration.Sql db, List<Migration> path) {
+        long[] stepMillis = new long[path.size()];
+        for (int i = 0; i < stepMillis.length; i++) {
+            long start = System.nanoTime();
+            path.get(i).migrate(db);
+            stepMillis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        return stepMillis;
+    }
+}
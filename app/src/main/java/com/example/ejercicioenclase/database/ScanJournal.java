@@ -0,0 +1,494 @@
+package com.example.ejercicioenclase.database;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de escaneos en disco, solo de anexar: cada escaneo terminado se escribe
+ * como un registro [largo][CRC32][contenido] antes de llegar a la base de datos.
+ * El contenido es [byte 1 si trae plantilla][plantilla][usuario codificado con UserCodec],
+ * así que al reaplicar el diario también se puede enrolar la huella.
+ * Los registros se sincronizan con el disco por lotes (sync) y se liberan uno por uno
+ * a medida que se aplican (release), en cualquier orden: cuando no queda ninguno
+ * pendiente el diario se vacía, y si los ya aplicados ocupan demasiado se compacta
+ * dejando solo los pendientes.
+ * Al abrirlo se recuperan los registros completos y se descarta una cola rota
+ * por una caída a mitad de escritura.
+ */
+public class ScanJournal implements Closeable {
+    private static final int MAGIC = 0x4650534A; // "FPSJ"
+    private static final int FORMAT_VERSION = 1;
+
+    // Encabezado: magic, versión del diario y versión del formato de usuario
+    static final int HEADER_SIZE = 12;
+    // Antes de cada registro: largo y CRC32 del contenido
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    // Bytes ya liberados a partir de los cuales se compacta el diario, siempre que
+    // superen a los pendientes (así copiar cuesta menos que lo que se recupera)
+    static final int COMPACT_THRESHOLD = 256 * 1024;
+
+    /**
+     * Escaneo guardado en el diario: el usuario y, si hay que enrolarla, su plantilla
+     */
+    public static final class Entry {
+        private final User user;
+        private final byte[] template;
+        // Número de registro que le asignó el diario al anexarlo o recuperarlo; -1 si no está
+        private long sequence = -1;
+
+        public Entry(User user, byte[] template) {
+            this.user = user;
+            this.template = template;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * Plantilla a enrolar con la fila, o null si la huella ya estaba enrolada
+         */
+        public byte[] getTemplate() {
+            return template;
+        }
+    }
+
+    private final File file;
+    private final UserCodec codec;
+    private final CRC32 crc = new CRC32();
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(256);
+
+    // Final del último registro completo
+    private long size;
+    // Registros del archivo desde el más antiguo sin liberar hasta el último, en una cola
+    // circular: su número de secuencia, dónde terminan y si ya se liberaron
+    private long[] recordSequences = new long[64];
+    private long[] recordEnds = new long[64];
+    private boolean[] recordReleased = new boolean[64];
+    private int recordHead;
+    private int recordCount;
+    private long nextSequence;
+    // Registros escritos que todavía no se aplicaron a la base de datos
+    private int pending;
+    // Final del último registro liberado antes de la cola; lo anterior ya no hace falta
+    private long releasedEnd = HEADER_SIZE;
+    // Bytes de los registros liberados dentro de la cola, que siguen en el archivo
+    private long releasedBytes;
+    private List<Entry> recovered = Collections.emptyList();
+
+    private ScanJournal(File file, UserCodec codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    /**
+     * Abre el diario, creándolo si no existe, y recupera los registros pendientes
+     * @throws IOException si el archivo existe pero no tiene un formato válido
+     */
+    public static ScanJournal open(File file, UserCodec codec) throws IOException {
+        ScanJournal journal = new ScanJournal(file, codec);
+        journal.load();
+        return journal;
+    }
+
+    private void load() throws IOException {
+        boolean created = !file.exists() || file.length() < HEADER_SIZE;
+        openChannel();
+
+        if (created) {
+            channel.truncate(0);
+            writeFully(header(), 0);
+            channel.force(true);
+            size = HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Repite hasta leer el encabezado completo
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                || header.getInt() != UserCodec.FORMAT_VERSION) {
+            close();
+            throw new IOException("Formato de diario de escaneos no reconocido: " + file);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        size = readRecords(entries);
+        if (size < channel.size()) {
+            // Registro incompleto o dañado al final: se descarta
+            channel.truncate(size);
+            channel.force(true);
+        }
+        recovered = entries;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(UserCodec.FORMAT_VERSION).flip();
+        return header;
+    }
+
+    private void openChannel() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * Lee los registros válidos desde el encabezado
+     * @return la posición donde termina el último registro válido
+     */
+    private long readRecords(List<Entry> entries) throws IOException {
+        channel.position(HEADER_SIZE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        long end = HEADER_SIZE;
+        byte[] payload = new byte[256];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    return end;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+            } catch (EOFException e) {
+                // Registro cortado a mitad de escritura
+                return end;
+            }
+
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                return end;
+            }
+            Entry entry;
+            try {
+                entry = decodeEntry(payload, length);
+            } catch (IOException e) {
+                // El CRC coincidió pero el contenido no se puede decodificar
+                return end;
+            }
+            end += RECORD_HEADER_SIZE + length;
+            addRecord(entry, end);
+            entries.add(entry);
+        }
+    }
+
+    private Entry decodeEntry(byte[] payload, int length) throws IOException {
+        byte[] template = null;
+        int offset = 1;
+        if (payload[0] == 1) {
+            if (length < 1 + FingerprintTemplate.SIZE) {
+                throw new IOException("Registro sin plantilla completa");
+            }
+            template = Arrays.copyOfRange(payload, 1, 1 + FingerprintTemplate.SIZE);
+            offset += FingerprintTemplate.SIZE;
+        } else if (payload[0] != 0) {
+            throw new IOException("Marca de plantilla inválida: " + payload[0]);
+        }
+        return new Entry(codec.decode(payload, offset, length - offset), template);
+    }
+
+    /**
+     * Registros recuperados al abrir el diario, todavía no aplicados.
+     * Solo se entregan una vez.
+     */
+    public synchronized List<Entry> takeRecovered() {
+        List<Entry> entries = recovered;
+        recovered = Collections.emptyList();
+        return entries;
+    }
+
+    /**
+     * Anexa un escaneo. Queda en el archivo (sobrevive a la muerte del proceso) al
+     * volver; para sobrevivir a un corte de energía hace falta sync. Un mismo Entry
+     * se anexa una sola vez y se libera con release.
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        if (entry.sequence >= 0) {
+            throw new IllegalStateException("El escaneo ya está en el diario");
+        }
+        ByteBuffer record = encodeRecord(entry);
+        int recordSize = record.limit();
+        writeFully(record, size);
+        size += recordSize;
+        addRecord(entry, size);
+    }
+
+    private void addRecord(Entry entry, long end) {
+        if (recordCount == recordEnds.length) {
+            int capacity = recordEnds.length * 2;
+            long[] sequences = new long[capacity];
+            long[] ends = new long[capacity];
+            boolean[] released = new boolean[capacity];
+            for (int i = 0; i < recordCount; i++) {
+                int slot = slot(i);
+                sequences[i] = recordSequences[slot];
+                ends[i] = recordEnds[slot];
+                released[i] = recordReleased[slot];
+            }
+            recordSequences = sequences;
+            recordEnds = ends;
+            recordReleased = released;
+            recordHead = 0;
+        }
+        entry.sequence = nextSequence++;
+        int slot = slot(recordCount);
+        recordSequences[slot] = entry.sequence;
+        recordEnds[slot] = end;
+        recordReleased[slot] = false;
+        recordCount++;
+        pending++;
+    }
+
+    // Posición en los arreglos del i-ésimo registro de la cola
+    private int slot(int i) {
+        return (recordHead + i) & (recordEnds.length - 1);
+    }
+
+    /**
+     * Posición en la cola del registro con la secuencia indicada, o -1 si ya salió de ella
+     */
+    private int indexOf(long sequence) {
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = recordSequences[slot(mid)];
+            if (value < sequence) {
+                low = mid + 1;
+            } else if (value > sequence) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Arma el registro completo en recordBuffer, listo para escribir
+     */
+    private ByteBuffer encodeRecord(Entry entry) throws IOException {
+        byte[] user = codec.encode(entry.getUser());
+        byte[] template = entry.getTemplate();
+        if (template != null) {
+            FingerprintTemplate.checkSize(template);
+        }
+        int payloadSize = 1 + (template != null ? template.length : 0) + user.length;
+        if (payloadSize > MAX_RECORD_SIZE) {
+            throw new IOException("Registro demasiado grande: " + payloadSize + " bytes");
+        }
+        int recordSize = RECORD_HEADER_SIZE + payloadSize;
+        if (recordBuffer.capacity() < recordSize) {
+            recordBuffer = ByteBuffer.allocate(Math.max(recordSize, recordBuffer.capacity() * 2));
+        }
+
+        recordBuffer.clear();
+        recordBuffer.putInt(payloadSize).putInt(0);
+        recordBuffer.put((byte) (template != null ? 1 : 0));
+        if (template != null) {
+            recordBuffer.put(template);
+        }
+        recordBuffer.put(user);
+        crc.reset();
+        crc.update(recordBuffer.array(), RECORD_HEADER_SIZE, payloadSize);
+        recordBuffer.putInt(4, (int) crc.getValue()).flip();
+        return recordBuffer;
+    }
+
+    /**
+     * Fuerza al disco todos los registros anexados hasta ahora (un fsync por lote).
+     * No toma el lock, para que los escaneos se sigan anexando mientras tanto.
+     */
+    public void sync() throws IOException {
+        FileChannel current;
+        synchronized (this) {
+            current = channel;
+        }
+        try {
+            current.force(false);
+        } catch (ClosedChannelException e) {
+            // Una compactación reemplazó el archivo; el nuevo se escribió ya sincronizado
+            synchronized (this) {
+                if (channel == current) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica que estos escaneos ya se aplicaron; se liberan en cualquier orden, así
+     * que un escaneo que falló puede seguir pendiente detrás de otros ya aplicados.
+     * Cuando no queda ninguno pendiente el diario se vacía; si no, se compacta cuando
+     * lo liberado supera COMPACT_THRESHOLD y ocupa más que lo pendiente.
+     * @throws IllegalStateException si alguno no está pendiente en este diario
+     */
+    public synchronized void release(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            int index = indexOf(entry.sequence);
+            if (index < 0 || recordReleased[slot(index)]) {
+                throw new IllegalStateException("El escaneo no está pendiente en el diario");
+            }
+            int slot = slot(index);
+            long start = index == 0 ? releasedEnd : recordEnds[slot(index - 1)];
+            recordReleased[slot] = true;
+            releasedBytes += recordEnds[slot] - start;
+            pending--;
+        }
+        // Los liberados del principio de la cola ya no hace falta recorrerlos
+        while (recordCount > 0 && recordReleased[recordHead]) {
+            long end = recordEnds[recordHead];
+            releasedBytes -= end - releasedEnd;
+            releasedEnd = end;
+            recordHead = (recordHead + 1) & (recordEnds.length - 1);
+            recordCount--;
+        }
+
+        long appliedBytes = releasedEnd - HEADER_SIZE + releasedBytes;
+        if (pending == 0) {
+            if (size > HEADER_SIZE) {
+                channel.truncate(HEADER_SIZE);
+                size = HEADER_SIZE;
+            }
+            releasedEnd = HEADER_SIZE;
+        } else if (appliedBytes >= COMPACT_THRESHOLD && appliedBytes >= size - HEADER_SIZE - appliedBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Reescribe el diario solo con los registros pendientes
+     */
+    private void compact() throws IOException {
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - releasedEnd));
+        long position = releasedEnd;
+        while (tail.hasRemaining()) {
+            int read = channel.read(tail, position);
+            if (read < 0) {
+                throw new EOFException("El diario terminó antes de lo esperado: " + file);
+            }
+            position += read;
+        }
+
+        ByteBuffer records = ByteBuffer.allocate((int) (size - releasedEnd - releasedBytes));
+        long start = releasedEnd;
+        for (int i = 0; i < recordCount; i++) {
+            int slot = slot(i);
+            if (!recordReleased[slot]) {
+                tail.limit((int) (recordEnds[slot] - releasedEnd)).position((int) (start - releasedEnd));
+                records.put(tail);
+            }
+            start = recordEnds[slot];
+        }
+        records.flip();
+        replaceFile(records);
+
+        // Las posiciones cambian recién cuando el archivo nuevo reemplazó al anterior
+        int kept = 0;
+        long end = HEADER_SIZE;
+        start = releasedEnd;
+        for (int i = 0; i < recordCount; i++) {
+            int slot = slot(i);
+            long recordEnd = recordEnds[slot];
+            if (!recordReleased[slot]) {
+                end += recordEnd - start;
+                int target = slot(kept++);
+                recordSequences[target] = recordSequences[slot];
+                recordEnds[target] = end;
+                recordReleased[target] = false;
+            }
+            start = recordEnd;
+        }
+        recordCount = kept;
+        releasedEnd = HEADER_SIZE;
+        releasedBytes = 0;
+    }
+
+    /**
+     * Reemplaza el diario por uno nuevo con los registros indicados. El archivo nuevo
+     * se escribe y sincroniza aparte y luego se renombra sobre el anterior, así que una
+     * caída deja uno de los dos completo.
+     */
+    private void replaceFile(ByteBuffer records) throws IOException {
+        File replacement = new File(file.getPath() + ".tmp");
+        long length = HEADER_SIZE + records.remaining();
+        try (RandomAccessFile out = new RandomAccessFile(replacement, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            ByteBuffer header = header();
+            while (header.hasRemaining()) {
+                outChannel.write(header);
+            }
+            while (records.hasRemaining()) {
+                outChannel.write(records);
+            }
+            outChannel.force(true);
+        }
+
+        close();
+        if (!replacement.renameTo(file)) {
+            openChannel();
+            throw new IOException("No se pudo reemplazar el diario de escaneos: " + file);
+        }
+        openChannel();
+        size = length;
+    }
+
+    /**
+     * Registros escritos que no se aplicaron todavía
+     */
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    /**
+     * Tamaño del diario en bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ejercicioenclase.database;
+
+import android.database.Cursor;
+
+import com.example.ejercicioenclase.model.User;
+
+/**
+ * Convierte filas de la tabla de usuarios en objetos User.
+ * Los índices de las columnas se resuelven una sola vez por cursor,
+ * no en cada fila.
+ */
+public class UserRowMapper {
+    private final int idIndex;
+    private final int nombreIndex;
+    private final int apellidoIndex;
+    private final int fechaNacimientoIndex;
+    private final int generoIndex;
+    private final int nacionalidadIndex;
+    private final int huellaIdIndex;
+    private final int tiempoEscaneoIndex;
+    private final int fechaEscaneoIndex;
+
+    public UserRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID);
+        nombreIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NOMBRE);
+        apellidoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_APELLIDO);
+        fechaNacimientoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_NACIMIENTO);
+        generoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_GENERO);
+        nacionalidadIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NACIONALIDAD);
+        huellaIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_HUELLA_ID);
+        tiempoEscaneoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIEMPO_ESCANEO);
+        fechaEscaneoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_ESCANEO);
+    }
+
+    /**
+     * Lee la fila actual del cursor
+     */
+    public User map(Cursor cursor) {
+        User user = new User();
+        user.setId(cursor.getInt(idIndex));
+        user.setNombre(cursor.getString(nombreIndex));
+        user.setApellido(cursor.getString(apellidoIndex));
+        user.setFechaNacimiento(cursor.getString(fechaNacimientoIndex));
+        user.setGenero(cursor.getString(generoIndex));
+        user.setNacionalidad(cursor.getString(nacionalidadIndex));
+        user.setHuellaId(cursor.getString(huellaIdIndex));
+        user.setTiempoEscaneo(cursor.getLong(tiempoEscaneoIndex));
+        // Las filas anteriores a la versión 3 del esquema no tienen fecha de escaneo (NULL -> 0)
+        user.setFechaEscaneo(cursor.getLong(fechaEscaneoIndex));
+        return user;
+    }
+}
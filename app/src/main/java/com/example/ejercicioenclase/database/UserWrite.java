@@ -0,0 +1,32 @@
+package com.example.ejercicioenclase.database;
+
+import com.example.ejercicioenclase.model.User;
+
+/**
+ * Escritura pendiente de un usuario para la cola de escritura (inserción o actualización)
+ */
+public final class UserWrite {
+    private final boolean insert;
+    private final User user;
+
+    private UserWrite(boolean insert, User user) {
+        this.insert = insert;
+        this.user = user;
+    }
+
+    public static UserWrite insert(User user) {
+        return new UserWrite(true, user);
+    }
+
+    public static UserWrite update(User user) {
+        return new UserWrite(false, user);
+    }
+
+    public boolean isInsert() {
+        return insert;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
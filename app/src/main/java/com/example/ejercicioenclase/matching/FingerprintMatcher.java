@@ -0,0 +1,13 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Motor de comparación de huellas 1:N contra la galería de plantillas enroladas
+ */
+public interface FingerprintMatcher {
+
+    /**
+     * Busca la plantilla enrolada más parecida a la muestra
+     * @return la mejor coincidencia dentro del umbral de aceptación, o MatchResult.NO_MATCH
+     */
+    MatchResult identify(byte[] probe);
+}
@@ -0,0 +1,111 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Constantes y utilidades de las plantillas de huella: vectores de
+ * características de longitud fija, un byte sin signo por característica
+ */
+public final class FingerprintTemplate {
+    // Cantidad de características (bytes) por plantilla
+    public static final int SIZE = 64;
+
+    // Formato del ID de huella: prefijo seguido de 16 dígitos hexadecimales en minúscula
+    private static final String ID_PREFIX = "FP-";
+    private static final int ID_LENGTH = ID_PREFIX.length() + 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private FingerprintTemplate() {
+    }
+
+    /**
+     * Verifica que la plantilla tenga la longitud esperada
+     */
+    public static void checkSize(byte[] template) {
+        if (template == null || template.length != SIZE) {
+            throw new IllegalArgumentException("La plantilla debe tener " + SIZE + " bytes");
+        }
+    }
+
+    /**
+     * Genera el ID de huella a partir del contenido de la plantilla (hash FNV-1a de 64 bits)
+     */
+    public static String fingerprintId(byte[] template) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : template) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return idFromLong(hash);
+    }
+
+    /**
+     * Texto del ID de huella para su valor de 64 bits ("FP-%016x")
+     */
+    public static String idFromLong(long value) {
+        char[] chars = new char[ID_LENGTH];
+        ID_PREFIX.getChars(0, ID_PREFIX.length(), chars, 0);
+        for (int i = ID_LENGTH - 1; i >= ID_PREFIX.length(); i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Verifica que el ID tenga exactamente el formato que produce idFromLong
+     */
+    public static boolean isCanonicalId(String huellaId) {
+        if (huellaId == null || huellaId.length() != ID_LENGTH || !huellaId.startsWith(ID_PREFIX)) {
+            return false;
+        }
+        for (int i = ID_PREFIX.length(); i < ID_LENGTH; i++) {
+            char c = huellaId.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Valor de 64 bits de un ID canónico (ver isCanonicalId)
+     */
+    public static long idToLong(String huellaId) {
+        if (!isCanonicalId(huellaId)) {
+            throw new IllegalArgumentException("ID de huella no canónico: " + huellaId);
+        }
+        long value = 0;
+        for (int i = ID_PREFIX.length(); i < ID_LENGTH; i++) {
+            value = (value << 4) | Character.digit(huellaId.charAt(i), 16);
+        }
+        return value;
+    }
+
+    /**
+     * Agrega la plantilla en hexadecimal, dos dígitos por característica
+     */
+    public static void appendHex(StringBuilder sb, byte[] template) {
+        for (byte b : template) {
+            sb.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+    }
+
+    /**
+     * Plantilla escrita con appendHex
+     * @return null si el texto no tiene exactamente SIZE * 2 dígitos hexadecimales
+     */
+    public static byte[] parseHex(String text) {
+        if (text == null || text.length() != SIZE * 2) {
+            return null;
+        }
+        byte[] template = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            int high = Character.digit(text.charAt(2 * i), 16);
+            int low = Character.digit(text.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            template[i] = (byte) ((high << 4) | low);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Comparación 1:N secuencial: recorre todo el índice en un solo hilo y
+ * abandona cada candidato en cuanto su distancia supera la mejor encontrada
+ */
+public class LinearFingerprintMatcher implements FingerprintMatcher {
+    private final TemplateIndex index;
+    private final int acceptDistance;
+
+    /**
+     * @param acceptDistance distancia máxima para aceptar una coincidencia
+     */
+    public LinearFingerprintMatcher(TemplateIndex index, int acceptDistance) {
+        this.index = index;
+        this.acceptDistance = acceptDistance;
+    }
+
+    @Override
+    public MatchResult identify(byte[] probe) {
+        FingerprintTemplate.checkSize(probe);
+
+        long bestKey = TemplateIndex.NO_KEY;
+        int bestDistance = acceptDistance;
+        int slots = index.slotCount();
+        for (int slot = 0; slot < slots; slot++) {
+            long key = index.keyAt(slot);
+            if (key == TemplateIndex.NO_KEY) {
+                continue;
+            }
+            int distance = index.distance(slot, probe, bestDistance);
+            if (distance <= bestDistance) {
+                bestDistance = distance;
+                bestKey = key;
+            }
+        }
+        return bestKey == TemplateIndex.NO_KEY ? MatchResult.NO_MATCH : new MatchResult(bestKey, bestDistance);
+    }
+}
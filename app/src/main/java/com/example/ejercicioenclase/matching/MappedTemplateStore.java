@@ -0,0 +1,243 @@
+package com.example.ejercicioenclase.matching;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Almacén de plantillas fuera del heap: un archivo de registros de tamaño fijo
+ * (mismo formato que TemplateIndex) mapeado en memoria con NIO.
+ *
+ * Las altas se agregan al final. El registro se escribe y se sincroniza antes de
+ * actualizar el contador del encabezado, así que si el proceso muere a mitad de
+ * una escritura el registro incompleto queda fuera del contador y se ignora al
+ * abrir. Las bajas marcan el registro como borrado y, cuando los borrados superan
+ * una cuarta parte, el archivo se compacta en uno nuevo que reemplaza al anterior
+ * con un rename atómico.
+ */
+public class MappedTemplateStore implements Closeable {
+    private static final int MAGIC = 0x46505453; // "FPTS"
+    private static final int FORMAT_VERSION = 1;
+
+    // Encabezado: magic, versión, tamaño de plantilla, registros confirmados, registros borrados
+    static final int HEADER_SIZE = 32;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_TEMPLATE_SIZE = 8;
+    private static final int OFFSET_COUNT = 16;
+    private static final int OFFSET_DELETED = 24;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final File file;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int count;
+    private int deleted;
+
+    private MappedTemplateStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Abre el almacén, creándolo si no existe
+     * @throws IOException si el archivo existe pero no tiene un formato válido
+     */
+    public static MappedTemplateStore open(File file) throws IOException {
+        MappedTemplateStore store = new MappedTemplateStore(file);
+        store.map();
+        return store;
+    }
+
+    private void map() throws IOException {
+        boolean created = !file.exists() || file.length() < HEADER_SIZE;
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+
+        if (created) {
+            randomAccessFile.setLength(HEADER_SIZE + (long) INITIAL_CAPACITY * TemplateIndex.RECORD_SIZE);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+            mapped.putInt(OFFSET_MAGIC, MAGIC);
+            mapped.putInt(OFFSET_VERSION, FORMAT_VERSION);
+            mapped.putInt(OFFSET_TEMPLATE_SIZE, FingerprintTemplate.SIZE);
+            mapped.putLong(OFFSET_COUNT, 0);
+            mapped.putLong(OFFSET_DELETED, 0);
+            mapped.force();
+            count = 0;
+            deleted = 0;
+            return;
+        }
+
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+        if (mapped.getInt(OFFSET_MAGIC) != MAGIC
+                || mapped.getInt(OFFSET_VERSION) != FORMAT_VERSION
+                || mapped.getInt(OFFSET_TEMPLATE_SIZE) != FingerprintTemplate.SIZE) {
+            close();
+            throw new IOException("Formato de almacén de plantillas no reconocido: " + file);
+        }
+
+        long capacity = (randomAccessFile.length() - HEADER_SIZE) / TemplateIndex.RECORD_SIZE;
+        long storedCount = mapped.getLong(OFFSET_COUNT);
+        long storedDeleted = mapped.getLong(OFFSET_DELETED);
+        if (storedCount < 0 || storedCount > capacity || storedDeleted < 0 || storedDeleted > storedCount) {
+            close();
+            throw new IOException("Encabezado del almacén de plantillas dañado: " + file);
+        }
+        count = (int) storedCount;
+        deleted = (int) storedDeleted;
+    }
+
+    /**
+     * Agrega la plantilla de un usuario de forma segura ante caídas
+     */
+    public synchronized void append(long key, byte[] template) throws IOException {
+        appendAll(new long[]{key}, new byte[][]{template}, 1);
+    }
+
+    /**
+     * Agrega varias plantillas con dos sincronizaciones en total, en lugar de dos por
+     * plantilla. Si el proceso muere a mitad de camino no queda visible ninguna.
+     */
+    public synchronized void appendAll(long[] keys, byte[][] templates, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            if (keys[i] == TemplateIndex.NO_KEY) {
+                throw new IllegalArgumentException("Clave inválida: " + keys[i]);
+            }
+            FingerprintTemplate.checkSize(templates[i]);
+        }
+        if (n == 0) {
+            return;
+        }
+        ensureCapacity(count + n);
+
+        for (int i = 0; i < n; i++) {
+            int offset = HEADER_SIZE + (count + i) * TemplateIndex.RECORD_SIZE;
+            mapped.putLong(offset, keys[i]);
+            byte[] template = templates[i];
+            for (int j = 0; j < FingerprintTemplate.SIZE; j++) {
+                mapped.put(offset + TemplateIndex.KEY_SIZE + j, template[j]);
+            }
+        }
+        // Primero los registros, después el contador que los hace visibles
+        mapped.force();
+        mapped.putLong(OFFSET_COUNT, count + n);
+        mapped.force();
+        count += n;
+    }
+
+    /**
+     * Marca como borrada la plantilla de la clave indicada y compacta si hace falta
+     * @return true si existía
+     */
+    public synchronized boolean remove(long key) throws IOException {
+        for (int slot = 0; slot < count; slot++) {
+            int offset = HEADER_SIZE + slot * TemplateIndex.RECORD_SIZE;
+            if (mapped.getLong(offset) == key) {
+                mapped.putLong(offset, TemplateIndex.NO_KEY);
+                mapped.putLong(OFFSET_DELETED, deleted + 1);
+                mapped.force();
+                deleted++;
+                if (deleted > count / 4) {
+                    compact();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reescribe el archivo solo con los registros activos y lo reemplaza atómicamente
+     */
+    public synchronized void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".compact");
+        int live = count - deleted;
+
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(OFFSET_MAGIC, MAGIC);
+            header.putInt(OFFSET_VERSION, FORMAT_VERSION);
+            header.putInt(OFFSET_TEMPLATE_SIZE, FingerprintTemplate.SIZE);
+            header.putLong(OFFSET_COUNT, live);
+            header.putLong(OFFSET_DELETED, 0);
+            outChannel.write(header);
+
+            ByteBuffer source = mapped.duplicate();
+            for (int slot = 0; slot < count; slot++) {
+                int offset = HEADER_SIZE + slot * TemplateIndex.RECORD_SIZE;
+                if (mapped.getLong(offset) == TemplateIndex.NO_KEY) {
+                    continue;
+                }
+                source.limit(offset + TemplateIndex.RECORD_SIZE).position(offset);
+                outChannel.write(source);
+            }
+            outChannel.force(true);
+        }
+
+        closeChannel();
+        if (!compacted.renameTo(file)) {
+            map();
+            throw new IOException("No se pudo reemplazar el almacén compactado: " + file);
+        }
+        map();
+    }
+
+    /**
+     * Vista de los registros (sin el encabezado) para el índice; no copia los datos.
+     * Deja de ser válida después de un append que amplíe el archivo o de una compactación.
+     */
+    public synchronized ByteBuffer records() {
+        ByteBuffer view = mapped.duplicate();
+        view.position(HEADER_SIZE);
+        return view.slice();
+    }
+
+    /**
+     * Cantidad de registros, incluidos los borrados
+     */
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Cantidad de registros borrados pendientes de compactar
+     */
+    public synchronized int deleted() {
+        return deleted;
+    }
+
+    private void ensureCapacity(int slots) throws IOException {
+        long capacity = (mapped.capacity() - HEADER_SIZE) / TemplateIndex.RECORD_SIZE;
+        if (slots <= capacity) {
+            return;
+        }
+        long newCapacity = Math.max(slots, capacity * 2);
+        randomAccessFile.setLength(HEADER_SIZE + newCapacity * TemplateIndex.RECORD_SIZE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+    }
+
+    private void closeChannel() throws IOException {
+        mapped = null;
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+            channel = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (mapped != null) {
+            mapped.force();
+        }
+        closeChannel();
+    }
+}
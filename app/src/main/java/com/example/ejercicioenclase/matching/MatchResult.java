@@ -0,0 +1,22 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Resultado de una identificación 1:N
+ */
+public final class MatchResult {
+    public static final MatchResult NO_MATCH = new MatchResult(TemplateIndex.NO_KEY, Integer.MAX_VALUE);
+
+    // ID de fila del usuario enrolado que coincidió
+    public final long key;
+    // Distancia entre la muestra y la plantilla (menor es más parecido)
+    public final int distance;
+
+    public MatchResult(long key, int distance) {
+        this.key = key;
+        this.distance = distance;
+    }
+
+    public boolean isMatch() {
+        return key != TemplateIndex.NO_KEY;
+    }
+}
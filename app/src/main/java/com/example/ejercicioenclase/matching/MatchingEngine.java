@@ -0,0 +1,220 @@
+package com.example.ejercicioenclase.matching;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Punto de entrada del subsistema de comparación de huellas. Mantiene el índice
+ * de plantillas enroladas y permite identificar muestras mientras se enrolan
+ * otras (varias lecturas concurrentes, escrituras exclusivas).
+ * Las plantillas se guardan en un archivo mapeado en memoria, fuera del heap,
+ * y el índice lee directamente de él.
+ */
+public class MatchingEngine implements TemplateSource {
+    private static final String TAG = "MatchingEngine";
+
+    // Archivo de plantillas dentro del almacenamiento privado de la app
+    private static final String TEMPLATE_FILE = "fingerprint_templates.bin";
+
+    // Distancia L1 máxima para aceptar una coincidencia (en promedio 10 por característica)
+    public static final int ACCEPT_DISTANCE = 10 * FingerprintTemplate.SIZE;
+
+    // Distancia con la que una coincidencia se considera segura y se detiene la búsqueda en paralelo
+    public static final int EARLY_STOP_DISTANCE = 5 * FingerprintTemplate.SIZE;
+
+    // A partir de esta cantidad de plantillas la búsqueda se reparte entre todos los núcleos
+    public static final int PARALLEL_THRESHOLD = 20_000;
+
+    // Candidatos que conserva cada tarea de la búsqueda en paralelo
+    private static final int TOP_K = 5;
+
+    private static MatchingEngine instance;
+
+    // null si no se pudo abrir el archivo; en ese caso las plantillas quedan solo en memoria
+    private final MappedTemplateStore store;
+    private final TemplateIndex index;
+    private final FingerprintMatcher linearMatcher;
+    private final FingerprintMatcher parallelMatcher;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Búsqueda de plantillas por ID; se arma al pedirla y se descarta con cada cambio del índice
+    private TemplateIndex.KeyLookup keyLookup;
+
+    // Implementación del patrón Singleton
+    public static synchronized MatchingEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new MatchingEngine(openStore(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    /**
+     * Cierra y descarta la instancia única; las pruebas empiezan cada una con un almacén nuevo
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.lock.writeLock().lock();
+            try {
+                if (instance.store != null) {
+                    instance.store.close();
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo cerrar el almacén de plantillas", e);
+            } finally {
+                instance.lock.writeLock().unlock();
+            }
+            instance = null;
+        }
+    }
+
+    private static MappedTemplateStore openStore(Context context) {
+        try {
+            return MappedTemplateStore.open(new File(context.getFilesDir(), TEMPLATE_FILE));
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo abrir el almacén de plantillas, se usará memoria", e);
+            return null;
+        }
+    }
+
+    private MatchingEngine(MappedTemplateStore store) {
+        this.store = store;
+        index = store != null
+                ? TemplateIndex.wrap(store.records(), store.count(), store.deleted())
+                : new TemplateIndex();
+        linearMatcher = new LinearFingerprintMatcher(index, ACCEPT_DISTANCE);
+        parallelMatcher = new ParallelFingerprintMatcher(index,
+                ACCEPT_DISTANCE, EARLY_STOP_DISTANCE, TOP_K, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Identifica la muestra contra todas las plantillas enroladas
+     */
+    public MatchResult identify(byte[] probe) {
+        lock.readLock().lock();
+        try {
+            // Con galerías pequeñas el costo de repartir el trabajo supera la ganancia
+            FingerprintMatcher matcher = index.size() >= PARALLEL_THRESHOLD ? parallelMatcher : linearMatcher;
+            return matcher.identify(probe);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Enrola la plantilla del usuario con el ID de fila indicado
+     */
+    public void enroll(long userId, byte[] template) {
+        enrollAll(new long[]{userId}, new byte[][]{template}, 1);
+    }
+
+    /**
+     * Enrola varias plantillas a la vez: el archivo se sincroniza una vez por lote
+     * y el índice se actualiza una sola vez
+     */
+    public void enrollAll(long[] userIds, byte[][] templates, int count) {
+        if (count == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            keyLookup = null;
+            if (store == null) {
+                for (int i = 0; i < count; i++) {
+                    index.add(userIds[i], templates[i]);
+                }
+                return;
+            }
+            store.appendAll(userIds, templates, count);
+            refreshIndex();
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar " + count + " plantillas", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el usuario ya tiene una plantilla enrolada
+     */
+    public boolean isEnrolled(long userId) {
+        return copyTemplate(userId, null);
+    }
+
+    /**
+     * Copia la plantilla enrolada del usuario. La primera consulta después de un
+     * cambio del índice lo recorre completo; las siguientes son una búsqueda binaria.
+     * @param dest destino de la plantilla, o null para solo consultar si existe
+     */
+    @Override
+    public boolean copyTemplate(long userId, byte[] dest) {
+        lock.readLock().lock();
+        try {
+            if (keyLookup != null) {
+                return copySlot(keyLookup.slotOf(userId), dest);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (keyLookup == null) {
+                keyLookup = index.keyLookup();
+            }
+            return copySlot(keyLookup.slotOf(userId), dest);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Debe llamarse con el lock tomado
+    private boolean copySlot(int slot, byte[] dest) {
+        if (slot < 0) {
+            return false;
+        }
+        if (dest != null) {
+            index.copyTemplate(slot, dest);
+        }
+        return true;
+    }
+
+    /**
+     * Quita la plantilla del usuario eliminado
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            keyLookup = null;
+            if (store == null) {
+                index.remove(userId);
+                return;
+            }
+            store.remove(userId);
+            refreshIndex();
+        } catch (IOException e) {
+            Log.e(TAG, "Error al quitar la plantilla del usuario " + userId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de plantillas enroladas
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // El mapeo cambia al crecer o compactar el archivo
+    private void refreshIndex() {
+        index.reset(store.records(), store.count(), store.deleted());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ejercicioenclase.matching;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Comparación 1:N en paralelo: divide la galería en rangos que se procesan en un
+ * ForkJoinPool. Cada tarea mantiene su propio top-k y los resultados se combinan
+ * al unir las tareas. Si alguna plantilla queda por debajo de la distancia de
+ * parada temprana, las demás tareas dejan de buscar.
+ */
+public class ParallelFingerprintMatcher implements FingerprintMatcher {
+    // Tamaño mínimo de rango por tarea; por debajo la división no compensa
+    private static final int MIN_SLOTS_PER_TASK = 4096;
+
+    // Cada cuántas plantillas se consulta la señal de parada
+    private static final int STOP_CHECK_INTERVAL = 256;
+
+    private final TemplateIndex index;
+    private final int acceptDistance;
+    private final int earlyStopDistance;
+    private final int topK;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param acceptDistance distancia máxima para aceptar una coincidencia
+     * @param earlyStopDistance distancia con la que una coincidencia se da por segura y se detiene la búsqueda
+     * @param topK cantidad de candidatos que conserva cada tarea
+     * @param parallelism cantidad de hilos del pool
+     */
+    public ParallelFingerprintMatcher(TemplateIndex index, int acceptDistance, int earlyStopDistance,
+                                      int topK, int parallelism) {
+        if (topK <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("topK y parallelism deben ser mayores que cero");
+        }
+        this.index = index;
+        this.acceptDistance = acceptDistance;
+        this.earlyStopDistance = earlyStopDistance;
+        this.topK = topK;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public MatchResult identify(byte[] probe) {
+        MatchResult[] candidates = identifyCandidates(probe);
+        return candidates.length == 0 ? MatchResult.NO_MATCH : candidates[0];
+    }
+
+    /**
+     * Devuelve hasta topK candidatos dentro del umbral, del más parecido al menos parecido
+     */
+    public MatchResult[] identifyCandidates(byte[] probe) {
+        FingerprintTemplate.checkSize(probe);
+        SearchTask root = new SearchTask(probe, 0, index.slotCount(), new AtomicBoolean());
+        return pool.invoke(root).toResults();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Detiene los hilos del pool
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class SearchTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] probe;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean stop;
+
+        SearchTask(byte[] probe, int from, int to, AtomicBoolean stop) {
+            this.probe = probe;
+            this.from = from;
+            this.to = to;
+            this.stop = stop;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= MIN_SLOTS_PER_TASK) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            SearchTask left = new SearchTask(probe, from, middle, stop);
+            left.fork();
+            TopK result = new SearchTask(probe, middle, to, stop).compute();
+            result.addAll(left.join());
+            return result;
+        }
+
+        private TopK scan() {
+            TopK best = new TopK(topK, acceptDistance);
+            for (int slot = from; slot < to; slot++) {
+                if ((slot - from) % STOP_CHECK_INTERVAL == 0 && stop.get()) {
+                    break;
+                }
+                long key = index.keyAt(slot);
+                if (key == TemplateIndex.NO_KEY) {
+                    continue;
+                }
+                int distance = index.distance(slot, probe, best.limit());
+                best.offer(key, distance);
+                if (distance <= earlyStopDistance) {
+                    stop.set(true);
+                    break;
+                }
+            }
+            return best;
+        }
+    }
+}
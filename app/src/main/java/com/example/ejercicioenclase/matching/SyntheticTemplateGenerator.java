@@ -0,0 +1,49 @@
+package com.example.ejercicioenclase.matching;
+
+import java.util.Random;
+
+/**
+ * Genera plantillas sintéticas para simular capturas y poblar galerías de prueba.
+ * Una misma identidad produce siempre la misma plantilla base; cada captura
+ * le suma un ruido pequeño, como ocurre al volver a escanear el mismo dedo.
+ */
+public class SyntheticTemplateGenerator {
+    // Variación máxima por característica entre dos capturas del mismo dedo
+    public static final int CAPTURE_NOISE = 3;
+
+    private final Random random;
+
+    public SyntheticTemplateGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Plantilla de un dedo nuevo, sin relación con las anteriores
+     */
+    public byte[] nextTemplate() {
+        byte[] template = new byte[FingerprintTemplate.SIZE];
+        random.nextBytes(template);
+        return template;
+    }
+
+    /**
+     * Plantilla base determinística para una identidad
+     */
+    public static byte[] templateFor(String identity) {
+        byte[] template = new byte[FingerprintTemplate.SIZE];
+        new Random(identity.hashCode() * 0x9E3779B97F4A7C15L).nextBytes(template);
+        return template;
+    }
+
+    /**
+     * Simula una nueva captura del mismo dedo agregando ruido a la plantilla base
+     */
+    public byte[] capture(byte[] base) {
+        byte[] template = new byte[FingerprintTemplate.SIZE];
+        for (int i = 0; i < template.length; i++) {
+            int value = (base[i] & 0xFF) + random.nextInt(2 * CAPTURE_NOISE + 1) - CAPTURE_NOISE;
+            template[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return template;
+    }
+}
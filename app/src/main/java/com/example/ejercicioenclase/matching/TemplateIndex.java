@@ -0,0 +1,236 @@
+package com.example.ejercicioenclase.matching;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Índice compacto de plantillas en un único buffer de bytes.
+ * Cada registro ocupa RECORD_SIZE bytes: la clave (ID de fila del usuario,
+ * long) seguida de la plantilla. Un registro con clave NO_KEY está borrado
+ * y se ignora al comparar. No es seguro para hilos: el llamador sincroniza.
+ * El buffer puede ser propio (en el heap) o una vista de un archivo mapeado
+ * en memoria (ver wrap), en cuyo caso el índice es de solo lectura.
+ */
+public class TemplateIndex {
+    // Clave reservada para registros borrados
+    public static final long NO_KEY = 0;
+
+    public static final int KEY_SIZE = 8;
+    public static final int RECORD_SIZE = KEY_SIZE + FingerprintTemplate.SIZE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Cada cuántos bytes se revisa la distancia parcial para abandonar un candidato
+    private static final int EARLY_EXIT_STRIDE = 8;
+
+    private ByteBuffer records;
+    private int count;
+    private int deleted;
+
+    // true si el buffer pertenece a otro componente (por ejemplo, un archivo mapeado)
+    private final boolean external;
+
+    public TemplateIndex() {
+        records = ByteBuffer.allocate(INITIAL_CAPACITY * RECORD_SIZE);
+        external = false;
+    }
+
+    private TemplateIndex(ByteBuffer records, int count, int deleted) {
+        this.external = true;
+        reset(records, count, deleted);
+    }
+
+    /**
+     * Crea un índice de solo lectura sobre registros que ya están en un buffer,
+     * sin copiarlos
+     */
+    public static TemplateIndex wrap(ByteBuffer records, int count, int deleted) {
+        return new TemplateIndex(records, count, deleted);
+    }
+
+    /**
+     * Apunta un índice creado con wrap a la versión actual de los registros
+     */
+    public void reset(ByteBuffer records, int count, int deleted) {
+        if (!external) {
+            throw new IllegalStateException("Solo los índices creados con wrap se pueden reasignar");
+        }
+        this.records = records;
+        this.count = count;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Cantidad de registros, incluidos los borrados
+     */
+    public int slotCount() {
+        return count;
+    }
+
+    /**
+     * Cantidad de plantillas activas
+     */
+    public int size() {
+        return count - deleted;
+    }
+
+    /**
+     * Clave del registro; NO_KEY si fue borrado
+     */
+    public long keyAt(int slot) {
+        return records.getLong(slot * RECORD_SIZE);
+    }
+
+    /**
+     * Copia la plantilla del registro en dest
+     */
+    public void copyTemplate(int slot, byte[] dest) {
+        FingerprintTemplate.checkSize(dest);
+        int base = slot * RECORD_SIZE + KEY_SIZE;
+        for (int i = 0; i < FingerprintTemplate.SIZE; i++) {
+            dest[i] = records.get(base + i);
+        }
+    }
+
+    /**
+     * Arma una búsqueda de registro por clave. Recorre todo el índice, así que se
+     * construye una vez y se reutiliza mientras el índice no cambie.
+     */
+    public KeyLookup keyLookup() {
+        long[] keys = new long[size()];
+        int live = 0;
+        for (int slot = 0; slot < count && live < keys.length; slot++) {
+            long key = keyAt(slot);
+            if (key != NO_KEY) {
+                keys[live++] = key;
+            }
+        }
+        keys = live == keys.length ? keys : Arrays.copyOf(keys, live);
+        Arrays.sort(keys);
+
+        int[] slots = new int[keys.length];
+        for (int slot = 0; slot < count; slot++) {
+            long key = keyAt(slot);
+            if (key != NO_KEY) {
+                int position = Arrays.binarySearch(keys, key);
+                if (position >= 0) {
+                    slots[position] = slot;
+                }
+            }
+        }
+        return new KeyLookup(keys, slots);
+    }
+
+    /**
+     * Posición de cada clave del índice: claves ordenadas y, en paralelo, su registro
+     */
+    public static final class KeyLookup {
+        private final long[] keys;
+        private final int[] slots;
+
+        private KeyLookup(long[] keys, int[] slots) {
+            this.keys = keys;
+            this.slots = slots;
+        }
+
+        /**
+         * @return el registro de la clave, o -1 si no está en el índice
+         */
+        public int slotOf(long key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? slots[position] : -1;
+        }
+    }
+
+    /**
+     * Agrega una plantilla para la clave indicada
+     */
+    public void add(long key, byte[] template) {
+        checkWritable();
+        if (key == NO_KEY) {
+            throw new IllegalArgumentException("Clave inválida: " + key);
+        }
+        FingerprintTemplate.checkSize(template);
+        ensureCapacity(count + 1);
+
+        int offset = count * RECORD_SIZE;
+        records.putLong(offset, key);
+        for (int i = 0; i < FingerprintTemplate.SIZE; i++) {
+            records.put(offset + KEY_SIZE + i, template[i]);
+        }
+        count++;
+    }
+
+    /**
+     * Borra la plantilla de la clave indicada. Recorre el índice: los borrados son poco frecuentes.
+     * @return true si existía
+     */
+    public boolean remove(long key) {
+        checkWritable();
+        for (int slot = 0; slot < count; slot++) {
+            if (keyAt(slot) == key) {
+                records.putLong(slot * RECORD_SIZE, NO_KEY);
+                deleted++;
+                if (deleted > count / 4) {
+                    compact();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Distancia L1 entre la muestra y la plantilla del registro. Deja de sumar
+     * en cuanto la distancia parcial supera el límite, porque ese candidato ya
+     * no puede ganar; en ese caso el valor devuelto es mayor que el límite.
+     */
+    public int distance(int slot, byte[] probe, int limit) {
+        ByteBuffer buffer = records;
+        int base = slot * RECORD_SIZE + KEY_SIZE;
+        int sum = 0;
+        for (int i = 0; i < FingerprintTemplate.SIZE; i += EARLY_EXIT_STRIDE) {
+            for (int j = i; j < i + EARLY_EXIT_STRIDE; j++) {
+                sum += Math.abs((probe[j] & 0xFF) - (buffer.get(base + j) & 0xFF));
+            }
+            if (sum > limit) {
+                return sum;
+            }
+        }
+        return sum;
+    }
+
+    private void checkWritable() {
+        if (external) {
+            throw new IllegalStateException("El índice es de solo lectura; modifique el almacén de plantillas");
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        int capacity = records.capacity() / RECORD_SIZE;
+        if (slots <= capacity) {
+            return;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(slots, capacity * 2) * RECORD_SIZE);
+        grown.put(records.array(), 0, count * RECORD_SIZE);
+        records = grown;
+    }
+
+    /**
+     * Elimina los registros borrados moviendo los activos al inicio del buffer
+     */
+    private void compact() {
+        byte[] data = records.array();
+        int target = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (keyAt(slot) != NO_KEY) {
+                if (target != slot) {
+                    System.arraycopy(data, slot * RECORD_SIZE, data, target * RECORD_SIZE, RECORD_SIZE);
+                }
+                target++;
+            }
+        }
+        count = target;
+        deleted = 0;
+    }
+}
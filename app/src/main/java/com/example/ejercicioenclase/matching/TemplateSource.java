@@ -0,0 +1,12 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Consulta de la plantilla enrolada de un usuario, para exportarla junto a su fila
+ */
+public interface TemplateSource {
+    /**
+     * Copia en dest la plantilla del usuario con el ID de fila indicado
+     * @return false si el usuario no tiene plantilla enrolada
+     */
+    boolean copyTemplate(long userId, byte[] dest);
+}
@@ -0,0 +1,60 @@
+package com.example.ejercicioenclase.matching;
+
+/**
+ * Lista acotada de los k candidatos con menor distancia, ordenada de menor a mayor.
+ * Usa arreglos primitivos para no crear objetos por candidato.
+ */
+final class TopK {
+    private final long[] keys;
+    private final int[] distances;
+    private final int maxDistance;
+    private int size;
+
+    /**
+     * @param maxDistance distancia máxima admitida (umbral de aceptación)
+     */
+    TopK(int k, int maxDistance) {
+        keys = new long[k];
+        distances = new int[k];
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Distancia que debe mejorar un candidato para entrar en la lista
+     */
+    int limit() {
+        return size < keys.length ? maxDistance : distances[size - 1];
+    }
+
+    void offer(long key, int distance) {
+        if (distance > limit()) {
+            return;
+        }
+        int pos = size < keys.length ? size++ : size - 1;
+        while (pos > 0 && distances[pos - 1] > distance) {
+            keys[pos] = keys[pos - 1];
+            distances[pos] = distances[pos - 1];
+            pos--;
+        }
+        keys[pos] = key;
+        distances[pos] = distance;
+    }
+
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.keys[i], other.distances[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    MatchResult[] toResults() {
+        MatchResult[] results = new MatchResult[size];
+        for (int i = 0; i < size; i++) {
+            results[i] = new MatchResult(keys[i], distances[i]);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ejercicioenclase.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin locks, con baldes logarítmico-lineales (estilo HDR):
+ * cada potencia de dos se divide en 32 sub-baldes, así que el error relativo de
+ * un percentil es menor al 3%. Registrar un valor es un incremento atómico y no
+ * crea objetos; los valores por encima de MAX_VALUE se acotan.
+ */
+public class LatencyHistogram {
+    // Sub-baldes por potencia de dos
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Mayor valor distinguible (~18 minutos en nanosegundos)
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+
+    /**
+     * Registra un valor (por ejemplo, una duración en nanosegundos); los negativos cuentan como 0
+     */
+    public void record(long value) {
+        long clamped = value < 0 ? 0 : Math.min(value, MAX_VALUE);
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalValue.add(clamped);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Promedio de los valores registrados, o 0 si no hay ninguno
+     */
+    public double mean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * Valor del percentil indicado, con la precisión del balde que lo contiene
+     * @param percentile valor entre 0 y 100
+     * @return el punto medio del balde, o 0 si no hay valores
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        // Copia los conteos para que el recorrido sea consistente con el total
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Mayor valor registrado, con la precisión de su balde, o 0 si no hay valores
+     */
+    public long max() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return midpointOf(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalValue.reset();
+    }
+
+    /**
+     * Balde de un valor: exacto por debajo de 64, después 32 sub-baldes por potencia de dos
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = (index & (SUB_BUCKET_COUNT - 1)) | SUB_BUCKET_COUNT;
+        return mantissa << shift;
+    }
+
+    private static long midpointOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return lowestValueOf(index) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.ejercicioenclase.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del camino de escaneo: un histograma de latencias por etapa y
+ * contadores de operaciones de base de datos. Registrar un evento no usa
+ * locks ni crea objetos, así que se puede llamar desde cualquier hilo.
+ */
+public class ScanMetrics {
+
+    /**
+     * Etapas medidas de un escaneo
+     */
+    public enum Stage {
+        // Desde que se muestra el BiometricPrompt hasta que llega el resultado
+        BIOMETRIC_PROMPT,
+        // Identificación de la plantilla contra las enroladas
+        MATCHING,
+        // Escritura del escaneo en el diario (lo que espera el escaneo)
+        JOURNAL_APPEND,
+        // Desde que se entrega el escaneo hasta que su fila está en la tabla
+        DB_INSERT,
+        // Actualización de la tarjeta de resultados en el hilo principal
+        UI_UPDATE
+    }
+
+    /**
+     * Operaciones de base de datos contadas
+     */
+    public enum DbOperation {
+        INSERT,
+        BATCH_INSERT,
+        UPDATE,
+        DELETE,
+        QUERY
+    }
+
+    private static final ScanMetrics INSTANCE = new ScanMetrics();
+
+    private final LatencyHistogram[] stageHistograms = new LatencyHistogram[Stage.values().length];
+    private final LongAdder[] dbOperationCounts = new LongAdder[DbOperation.values().length];
+
+    // Las métricas son de todo el proceso y no dependen de un Context
+    public static ScanMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    ScanMetrics() {
+        for (int i = 0; i < stageHistograms.length; i++) {
+            stageHistograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < dbOperationCounts.length; i++) {
+            dbOperationCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra la duración de una etapa
+     * @param startNanos valor de System.nanoTime() al inicio de la etapa
+     */
+    public void recordSince(Stage stage, long startNanos) {
+        stageHistograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Registra una duración en nanosegundos
+     */
+    public void record(Stage stage, long durationNanos) {
+        stageHistograms[stage.ordinal()].record(durationNanos);
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return stageHistograms[stage.ordinal()];
+    }
+
+    /**
+     * Cuenta una operación de base de datos
+     */
+    public void countDbOperation(DbOperation operation) {
+        dbOperationCounts[operation.ordinal()].increment();
+    }
+
+    /**
+     * Suma una cantidad de operaciones (por ejemplo, las filas de un lote)
+     */
+    public void countDbOperations(DbOperation operation, long count) {
+        dbOperationCounts[operation.ordinal()].add(count);
+    }
+
+    public long dbOperationCount(DbOperation operation) {
+        return dbOperationCounts[operation.ordinal()].sum();
+    }
+
+    /**
+     * Texto con p50/p95/p99 por etapa (en milisegundos) y los contadores de base de datos
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder(512);
+        builder.append("etapa,cantidad,p50_ms,p95_ms,p99_ms,max_ms\n");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histogram(stage);
+            builder.append(stage.name()).append(',').append(histogram.count());
+            appendMillis(builder, histogram.percentile(50));
+            appendMillis(builder, histogram.percentile(95));
+            appendMillis(builder, histogram.percentile(99));
+            appendMillis(builder, histogram.max());
+            builder.append('\n');
+        }
+        builder.append("operacion_bd,cantidad\n");
+        for (DbOperation operation : DbOperation.values()) {
+            builder.append(operation.name()).append(',').append(dbOperationCount(operation)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : stageHistograms) {
+            histogram.reset();
+        }
+        for (LongAdder counter : dbOperationCounts) {
+            counter.reset();
+        }
+    }
+
+    private static void appendMillis(StringBuilder builder, long nanos) {
+        builder.append(',').append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+}
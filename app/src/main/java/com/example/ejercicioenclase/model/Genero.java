@@ -0,0 +1,42 @@
+package com.example.ejercicioenclase.model;
+
+/**
+ * Códigos compactos de los géneros que ofrece el formulario
+ */
+public final class Genero {
+    public static final byte UNKNOWN = -1;
+
+    // El índice de cada valor es su código
+    private static final String[] VALUES = {"Masculino", "Femenino", "Otro"};
+
+    private Genero() {
+    }
+
+    /**
+     * Opciones del formulario, en orden de código
+     */
+    public static String[] values() {
+        return VALUES.clone();
+    }
+
+    /**
+     * Código del género, o UNKNOWN si el texto no coincide exactamente con una opción
+     */
+    public static byte codeOf(String genero) {
+        if (genero != null) {
+            for (byte code = 0; code < VALUES.length; code++) {
+                if (VALUES[code].equals(genero)) {
+                    return code;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Texto del género del código, o null si el código no existe
+     */
+    public static String nameOf(byte code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.ejercicioenclase.model;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Registro de nacionalidades. UserRepository lo carga una sola vez desde la
+ * configuración (res/values/nacionalidades.xml). Cada nacionalidad tiene un
+ * código corto y las restringidas se marcan en un BitSet, así que verificar un
+ * código es de tiempo constante y verificar un nombre no crea objetos.
+ */
+public class NationalityRegistry {
+    // Código para nacionalidades que no están en el registro
+    public static final short UNKNOWN = -1;
+
+    private final String[] names;
+    // Búsqueda sin distinguir mayúsculas, igual que equalsIgnoreCase, sin copiar el texto
+    private final TreeMap<String, Short> codesByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final BitSet restricted = new BitSet();
+    private final short[] allowedCodes;
+
+    /**
+     * @param nacionalidades todas las nacionalidades reconocidas; el índice es su código
+     * @param restringidas subconjunto de nacionalidades restringidas
+     */
+    public NationalityRegistry(String[] nacionalidades, String[] restringidas) {
+        if (nacionalidades.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Demasiadas nacionalidades: " + nacionalidades.length);
+        }
+        names = nacionalidades.clone();
+        for (short code = 0; code < names.length; code++) {
+            if (codesByName.put(names[code], code) != null) {
+                throw new IllegalArgumentException("Nacionalidad duplicada: " + names[code]);
+            }
+        }
+
+        for (String nacionalidad : restringidas) {
+            short code = codeOf(nacionalidad);
+            if (code == UNKNOWN) {
+                throw new IllegalArgumentException("Nacionalidad restringida no registrada: " + nacionalidad);
+            }
+            restricted.set(code);
+        }
+
+        allowedCodes = new short[names.length - restricted.cardinality()];
+        int next = 0;
+        for (short code = 0; code < names.length; code++) {
+            if (!restricted.get(code)) {
+                allowedCodes[next++] = code;
+            }
+        }
+    }
+
+    /**
+     * Código de la nacionalidad, o UNKNOWN si no está registrada
+     */
+    public short codeOf(String nacionalidad) {
+        if (nacionalidad == null) {
+            return UNKNOWN;
+        }
+        Short code = codesByName.get(nacionalidad);
+        return code != null ? code : UNKNOWN;
+    }
+
+    /**
+     * Nombre de la nacionalidad del código, o null si el código no existe
+     */
+    public String nameOf(short code) {
+        return code >= 0 && code < names.length ? names[code] : null;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Verifica si el código corresponde a una nacionalidad restringida
+     */
+    public boolean isRestricted(short code) {
+        return code >= 0 && restricted.get(code);
+    }
+
+    /**
+     * Verifica si la nacionalidad está restringida (sin distinguir mayúsculas)
+     */
+    public boolean isRestricted(String nacionalidad) {
+        return isRestricted(codeOf(nacionalidad));
+    }
+
+    /**
+     * Verifica que la nacionalidad esté registrada y no esté restringida
+     */
+    public boolean isAllowed(String nacionalidad) {
+        short code = codeOf(nacionalidad);
+        return code != UNKNOWN && !restricted.get(code);
+    }
+
+    /**
+     * Elige una nacionalidad permitida al azar en un solo paso
+     */
+    public short randomAllowed(Random random) {
+        if (allowedCodes.length == 0) {
+            throw new IllegalStateException("No hay nacionalidades permitidas configuradas");
+        }
+        return allowedCodes[random.nextInt(allowedCodes.length)];
+    }
+
+    /**
+     * Valida un lote de usuarios importados
+     * @return los índices de los usuarios con nacionalidad desconocida o restringida
+     */
+    public BitSet validate(List<User> users) {
+        BitSet rejected = new BitSet(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            if (!isAllowed(users.get(i).getNacionalidad())) {
+                rejected.set(i);
+            }
+        }
+        return rejected;
+    }
+}
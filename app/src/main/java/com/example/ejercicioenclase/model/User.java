@@ -1,11 +1,10 @@
 package com.example.ejercicioenclase.model;
 
-import java.io.Serializable;
-
 /**
- * Modelo para almacenar información del usuario y su nacionalidad
+ * Modelo para almacenar información del usuario y su nacionalidad.
+ * Para guardarlo o transferirlo en binario se usa UserCodec.
  */
-public class User implements Serializable {
+public class User {
     private int id;
     private String nombre;
     private String apellido;
@@ -14,6 +13,7 @@ public class User implements Serializable {
     private String nacionalidad;
     private String huellaId;
     private long tiempoEscaneo; // tiempo en milisegundos que tardó el escaneo
+    private long fechaEscaneo; // momento del escaneo (milisegundos desde la época), 0 si no se conoce
 
     public User() {
     }
@@ -25,6 +25,21 @@ public class User implements Serializable {
         this.genero = genero;
     }
 
+    /**
+     * Copia todos los campos de otro usuario
+     */
+    public User(User other) {
+        this.id = other.id;
+        this.nombre = other.nombre;
+        this.apellido = other.apellido;
+        this.fechaNacimiento = other.fechaNacimiento;
+        this.genero = other.genero;
+        this.nacionalidad = other.nacionalidad;
+        this.huellaId = other.huellaId;
+        this.tiempoEscaneo = other.tiempoEscaneo;
+        this.fechaEscaneo = other.fechaEscaneo;
+    }
+
     // Getters y Setters
     public int getId() {
         return id;
@@ -89,4 +104,12 @@ public class User implements Serializable {
     public void setTiempoEscaneo(long tiempoEscaneo) {
         this.tiempoEscaneo = tiempoEscaneo;
     }
+
+    public long getFechaEscaneo() {
+        return fechaEscaneo;
+    }
+
+    public void setFechaEscaneo(long fechaEscaneo) {
+        this.fechaEscaneo = fechaEscaneo;
+    }
 }
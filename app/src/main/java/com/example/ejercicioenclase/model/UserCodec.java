@@ -0,0 +1,161 @@
+package com.example.ejercicioenclase.model;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.util.EpochDays;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Codificación binaria compacta de usuarios, en lugar de la serialización de Java.
+ * La fecha se guarda como días desde la época, el género y la nacionalidad como
+ * códigos cortos y el ID de huella como un long. Si un valor no tiene forma
+ * canónica se guarda como texto, así que decodificar siempre devuelve los mismos valores.
+ *
+ * Formato de cada registro:
+ * [byte banderas][int id][long tiempoEscaneo][long fechaEscaneo][nombre][apellido]
+ * [fecha: int o texto][género: byte o texto][nacionalidad: short o texto][huella: long o texto]
+ * donde cada texto es [boolean presente][UTF modificado].
+ */
+public class UserCodec {
+    // Versión del formato, para quien lo persista (diario, respaldos)
+    public static final int FORMAT_VERSION = 1;
+
+    // Banderas: el campo se guarda como texto en lugar de código
+    private static final int RAW_FECHA = 1;
+    private static final int RAW_GENERO = 1 << 1;
+    private static final int RAW_NACIONALIDAD = 1 << 2;
+    private static final int RAW_HUELLA = 1 << 3;
+
+    private final NationalityRegistry nationalityRegistry;
+
+    public UserCodec(NationalityRegistry nationalityRegistry) {
+        this.nationalityRegistry = nationalityRegistry;
+    }
+
+    /**
+     * Escribe el usuario en la salida
+     */
+    public void write(DataOutput out, User user) throws IOException {
+        int epochDay = EpochDays.parse(user.getFechaNacimiento());
+        byte genero = Genero.codeOf(user.getGenero());
+        short nacionalidad = nacionalidadCode(user.getNacionalidad());
+        boolean huellaCanonica = FingerprintTemplate.isCanonicalId(user.getHuellaId());
+
+        int flags = 0;
+        if (epochDay == EpochDays.INVALID) flags |= RAW_FECHA;
+        if (genero == Genero.UNKNOWN) flags |= RAW_GENERO;
+        if (nacionalidad == NationalityRegistry.UNKNOWN) flags |= RAW_NACIONALIDAD;
+        if (!huellaCanonica) flags |= RAW_HUELLA;
+
+        out.writeByte(flags);
+        out.writeInt(user.getId());
+        out.writeLong(user.getTiempoEscaneo());
+        out.writeLong(user.getFechaEscaneo());
+        writeString(out, user.getNombre());
+        writeString(out, user.getApellido());
+
+        if ((flags & RAW_FECHA) != 0) {
+            writeString(out, user.getFechaNacimiento());
+        } else {
+            out.writeInt(epochDay);
+        }
+        if ((flags & RAW_GENERO) != 0) {
+            writeString(out, user.getGenero());
+        } else {
+            out.writeByte(genero);
+        }
+        if ((flags & RAW_NACIONALIDAD) != 0) {
+            writeString(out, user.getNacionalidad());
+        } else {
+            out.writeShort(nacionalidad);
+        }
+        if ((flags & RAW_HUELLA) != 0) {
+            writeString(out, user.getHuellaId());
+        } else {
+            out.writeLong(FingerprintTemplate.idToLong(user.getHuellaId()));
+        }
+    }
+
+    /**
+     * Lee un usuario escrito con write
+     */
+    public User read(DataInput in) throws IOException {
+        int flags = in.readUnsignedByte();
+        User user = new User();
+        user.setId(in.readInt());
+        user.setTiempoEscaneo(in.readLong());
+        user.setFechaEscaneo(in.readLong());
+        user.setNombre(readString(in));
+        user.setApellido(readString(in));
+
+        user.setFechaNacimiento((flags & RAW_FECHA) != 0
+                ? readString(in) : EpochDays.format(in.readInt()));
+        user.setGenero((flags & RAW_GENERO) != 0
+                ? readString(in) : decode(Genero.nameOf(in.readByte()), "género"));
+        user.setNacionalidad((flags & RAW_NACIONALIDAD) != 0
+                ? readString(in) : decode(nationalityRegistry.nameOf(in.readShort()), "nacionalidad"));
+        user.setHuellaId((flags & RAW_HUELLA) != 0
+                ? readString(in) : FingerprintTemplate.idFromLong(in.readLong()));
+        return user;
+    }
+
+    /**
+     * Codifica el usuario en un arreglo de bytes
+     */
+    public byte[] encode(User user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            write(new DataOutputStream(bytes), user);
+        } catch (IOException e) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica un usuario de un arreglo de bytes
+     */
+    public User decode(byte[] data, int offset, int length) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(data, offset, length)));
+    }
+
+    /**
+     * ID de fila de un registro escrito con encode, sin decodificar el resto
+     */
+    public static int idOf(byte[] record) {
+        return ((record[1] & 0xFF) << 24) | ((record[2] & 0xFF) << 16)
+                | ((record[3] & 0xFF) << 8) | (record[4] & 0xFF);
+    }
+
+    // Solo se usa el código si decodificarlo devuelve exactamente el mismo texto
+    private short nacionalidadCode(String nacionalidad) {
+        short code = nationalityRegistry.codeOf(nacionalidad);
+        return code != NationalityRegistry.UNKNOWN && nationalityRegistry.nameOf(code).equals(nacionalidad)
+                ? code : NationalityRegistry.UNKNOWN;
+    }
+
+    private static String decode(String value, String field) throws IOException {
+        if (value == null) {
+            throw new IOException("Código de " + field + " desconocido");
+        }
+        return value;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.ejercicioenclase.repository;
+
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU de usuarios indexada por ID de huella, acotada por cantidad de
+ * entradas y por memoria estimada. Lleva contadores de aciertos, fallos y
+ * desalojos. Cada usuario se guarda codificado con UserCodec (fecha en días,
+ * género y nacionalidad como códigos, huella como long) y se decodifica en
+ * cada acierto, así que los usuarios devueltos son copias propias del llamador.
+ */
+public class UserCache {
+    // Nodos de ambos mapas, el Long del índice secundario y el encabezado del arreglo
+    private static final long ENTRY_OVERHEAD = 120;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final UserCodec codec;
+
+    // Orden de acceso: el primer elemento es el menos usado recientemente
+    private final LinkedHashMap<String, byte[]> usersByHuellaId = new LinkedHashMap<>(16, 0.75f, true);
+    // Índice secundario para invalidar y buscar por ID de fila
+    private final Map<Long, String> huellaIdByUserId = new HashMap<>();
+
+    private long sizeInBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public UserCache(int maxEntries, long maxBytes, UserCodec codec) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Los límites de la caché deben ser mayores que cero");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.codec = codec;
+    }
+
+    /**
+     * Busca el usuario de un ID de huella
+     * @return el usuario o null si no está en caché
+     */
+    public User get(String huellaId) {
+        byte[] record;
+        synchronized (this) {
+            record = lookup(huellaId);
+        }
+        return decode(record);
+    }
+
+    /**
+     * Busca por ID de fila un usuario que ya esté en caché
+     */
+    public User getByUserId(long userId) {
+        byte[] record;
+        synchronized (this) {
+            String huellaId = huellaIdByUserId.get(userId);
+            if (huellaId != null) {
+                record = lookup(huellaId);
+            } else {
+                missCount++;
+                record = null;
+            }
+        }
+        return decode(record);
+    }
+
+    private byte[] lookup(String huellaId) {
+        byte[] record = usersByHuellaId.get(huellaId);
+        if (record != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return record;
+    }
+
+    // Fuera del lock: los registros guardados no se modifican
+    private User decode(byte[] record) {
+        if (record == null) {
+            return null;
+        }
+        try {
+            return codec.decode(record, 0, record.length);
+        } catch (IOException e) {
+            // Lo escribió el mismo codec
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Guarda el usuario bajo su ID de huella, desalojando los menos usados si hace falta.
+     * Se guarda una copia codificada: cambios posteriores al usuario no la afectan.
+     */
+    public void put(User user) {
+        String huellaId = user.getHuellaId();
+        if (huellaId == null) {
+            return;
+        }
+        byte[] record = codec.encode(user);
+        synchronized (this) {
+            removeEntry(huellaId);
+
+            usersByHuellaId.put(huellaId, record);
+            huellaIdByUserId.put((long) user.getId(), huellaId);
+            sizeInBytes += estimateSize(huellaId, record);
+            trimToSize();
+        }
+    }
+
+    /**
+     * Invalida la entrada de un ID de huella
+     */
+    public synchronized void invalidate(String huellaId) {
+        if (huellaId != null) {
+            removeEntry(huellaId);
+        }
+    }
+
+    /**
+     * Invalida la entrada del usuario con el ID de fila indicado
+     */
+    public synchronized void invalidateUser(long userId) {
+        String huellaId = huellaIdByUserId.get(userId);
+        if (huellaId != null) {
+            removeEntry(huellaId);
+        }
+    }
+
+    public synchronized void clear() {
+        usersByHuellaId.clear();
+        huellaIdByUserId.clear();
+        sizeInBytes = 0;
+    }
+
+    private void removeEntry(String huellaId) {
+        byte[] previous = usersByHuellaId.remove(huellaId);
+        if (previous != null) {
+            huellaIdByUserId.remove((long) UserCodec.idOf(previous));
+            sizeInBytes -= estimateSize(huellaId, previous);
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, byte[]>> eldest = usersByHuellaId.entrySet().iterator();
+        while ((usersByHuellaId.size() > maxEntries || sizeInBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, byte[]> entry = eldest.next();
+            eldest.remove();
+            huellaIdByUserId.remove((long) UserCodec.idOf(entry.getValue()));
+            sizeInBytes -= estimateSize(entry.getKey(), entry.getValue());
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Tamaño aproximado en memoria de una entrada: la clave, el registro codificado
+     * y los nodos de los mapas
+     */
+    static long estimateSize(String huellaId, byte[] record) {
+        return ENTRY_OVERHEAD + 40 + 2L * huellaId.length() + ((record.length + 7) & ~7);
+    }
+
+    public synchronized int size() {
+        return usersByHuellaId.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ejercicioenclase.repository;
+
+import com.example.ejercicioenclase.model.User;
+
+/**
+ * Cambio en la tabla de usuarios que publica UserRepository después del commit
+ */
+public final class UserChange {
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private final Type type;
+    private final long userId;
+    private final User user;
+
+    private UserChange(Type type, long userId, User user) {
+        this.type = type;
+        this.userId = userId;
+        this.user = user;
+    }
+
+    /**
+     * Fila insertada; se guarda una copia del usuario con su ID nuevo
+     */
+    public static UserChange inserted(long userId, User user) {
+        User copy = new User(user);
+        copy.setId((int) userId);
+        return new UserChange(Type.INSERT, userId, copy);
+    }
+
+    public static UserChange updated(User user) {
+        return new UserChange(Type.UPDATE, user.getId(), new User(user));
+    }
+
+    public static UserChange deleted(long userId) {
+        return new UserChange(Type.DELETE, userId, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Usuario después del cambio, o null si se eliminó. No debe modificarse.
+     */
+    public User getUser() {
+        return user;
+    }
+}
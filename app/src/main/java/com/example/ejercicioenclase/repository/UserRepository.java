@@ -1,76 +1,825 @@
 package com.example.ejercicioenclase.repository;
 
 import android.content.Context;
+import android.content.res.Resources;
+import android.database.Cursor;
+import android.os.Looper;
+import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.example.ejercicioenclase.R;
+import com.example.ejercicioenclase.analytics.ScanStatistics;
 import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.database.GroupCommitWriter;
+import com.example.ejercicioenclase.database.ScanJournal;
+import com.example.ejercicioenclase.database.UserWrite;
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.MatchingEngine;
+import com.example.ejercicioenclase.model.NationalityRegistry;
 import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+import com.example.ejercicioenclase.util.BackupReader;
+import com.example.ejercicioenclase.util.BackupWriter;
+import com.example.ejercicioenclase.util.CsvExporter;
+import com.example.ejercicioenclase.util.CsvImporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Repositorio para manejar operaciones de usuarios
  */
 public class UserRepository {
+    private static final String TAG = "UserRepository";
+
+    /**
+     * Recibe los cambios de la tabla de usuarios, agrupados por commit.
+     * Se llama en el hilo que hizo la escritura; no debe bloquear.
+     */
+    public interface UserChangeListener {
+        void onUsersChanged(List<UserChange> changes);
+    }
+
+    /**
+     * Recibe cada llamada a una operación del repositorio con el hilo que la hizo,
+     * antes de comprobar que no sea el principal
+     */
+    @VisibleForTesting
+    public interface AccessListener {
+        void onAccess(String operation, Thread thread);
+    }
+
+    // Solo lo asignan las pruebas
+    private static volatile AccessListener accessListener;
+
     private DatabaseHelper databaseHelper;
+    private final MatchingEngine matchingEngine;
+
+    // Caché de usuarios por ID de huella para los escaneos repetidos; con los usuarios
+    // codificados cada entrada ocupa unos 200 bytes
+    private static final int CACHE_MAX_ENTRIES = 20_000;
+    private static final long CACHE_MAX_BYTES = 4L * 1024 * 1024;
+    private final UserCache userCache;
     private static UserRepository instance;
 
-    // Nacionalidades restringidas según los requisitos
-    private static final String NACIONALIDAD_GUATEMALTECA = "Guatemalteca";
-    private static final String NACIONALIDAD_ESTADOUNIDENSE = "Estadounidense";
+    // Nacionalidades reconocidas y restringidas, cargadas desde la configuración
+    private final NationalityRegistry nationalityRegistry;
+    // Codificación binaria de usuarios del diario de escaneos y los respaldos
+    private final UserCodec userCodec;
+
+    // Estadísticas del historial; se cargan la primera vez que se piden y luego
+    // se actualizan con cada escritura. Las escrituras y la carga usan este lock
+    // para que ninguna fila se pierda ni se cuente dos veces.
+    private final Object statisticsLock = new Object();
+    private ScanStatistics scanStatistics;
+
+    // Cola de escritura: un solo hilo escritor aplica en una transacción
+    // todas las inserciones y actualizaciones que estén esperando
+    private static final int WRITE_BATCH_MAX = 256;
+    private static final int WRITE_QUEUE_CAPACITY = 4096;
+    private final GroupCommitWriter<UserWrite> writeQueue;
+
+    // Diario de escaneos: un escaneo terminado queda confirmado al anexarse al diario
+    // y un hilo lo pasa a la tabla junto con los demás que estén esperando
+    private static final String SCAN_JOURNAL_FILE = "scans.journal";
+    private final ScanJournal scanJournal;
+    private final GroupCommitWriter<ScanJournal.Entry> scanQueue;
+
+    // Enrolamiento de las huellas nuevas fuera del hilo del diario (cada lote sincroniza
+    // el almacén de plantillas). Un solo hilo: los lotes se enrolan y se liberan del
+    // diario en el mismo orden en que llegaron a la tabla.
+    private final ExecutorService enrollExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "template-enroll");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final long ENROLL_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Usuarios leídos de la tabla por cada consulta al crear un respaldo
+    private static final int BACKUP_PAGE_SIZE = 1000;
+
+    private final List<UserChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
     private UserRepository(Context context) {
         databaseHelper = DatabaseHelper.getInstance(context);
+        matchingEngine = MatchingEngine.getInstance(context);
+        Resources resources = context.getApplicationContext().getResources();
+        nationalityRegistry = new NationalityRegistry(
+                resources.getStringArray(R.array.nacionalidades),
+                resources.getStringArray(R.array.nacionalidades_restringidas));
+        userCodec = new UserCodec(nationalityRegistry);
+        userCache = new UserCache(CACHE_MAX_ENTRIES, CACHE_MAX_BYTES, userCodec);
+        writeQueue = new GroupCommitWriter<>("user-writer", new WriteSink(),
+                WRITE_BATCH_MAX, WRITE_QUEUE_CAPACITY);
+
+        scanJournal = openScanJournal(new File(context.getApplicationContext().getFilesDir(), SCAN_JOURNAL_FILE));
+        scanQueue = new GroupCommitWriter<>("scan-journal", new ScanSink(),
+                WRITE_BATCH_MAX, WRITE_QUEUE_CAPACITY);
+        if (scanJournal != null) {
+            // Escaneos que quedaron en el diario por una caída; los que ya llegaron a la tabla se omiten
+            for (ScanJournal.Entry entry : scanJournal.takeRecovered()) {
+                scanQueue.submit(entry);
+            }
+        }
+    }
+
+    private ScanJournal openScanJournal(File file) {
+        try {
+            return ScanJournal.open(file, userCodec);
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo abrir el diario de escaneos, se guardará directo en la base de datos", e);
+            return null;
+        }
     }
 
     // Implementación del patrón Singleton
     public static synchronized UserRepository getInstance(Context context) {
         if (instance == null) {
+            // Abre la base de datos, el diario y el almacén de plantillas
+            checkNotMainThread("getInstance");
             instance = new UserRepository(context);
         }
         return instance;
     }
 
     /**
-     * Guarda un usuario en la base de datos
+     * Cierra y descarta la instancia única junto con la base de datos y el motor de
+     * comparación; las pruebas empiezan cada una con archivos nuevos
+     */
+    @VisibleForTesting
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+        DatabaseHelper.closeInstance();
+        MatchingEngine.closeInstance();
+    }
+
+    /**
+     * Registra (o quita, con null) el observador de las operaciones del repositorio
+     */
+    @VisibleForTesting
+    public static void setAccessListener(AccessListener listener) {
+        accessListener = listener;
+    }
+
+    /**
+     * Aplica las escrituras en espera, termina los enrolamientos y cierra el diario
+     */
+    private void close() {
+        writeQueue.close();
+        scanQueue.close();
+        enrollExecutor.shutdown();
+        try {
+            if (!enrollExecutor.awaitTermination(ENROLL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.w(TAG, "Enrolamientos pendientes al cerrar el repositorio");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (scanJournal != null) {
+            try {
+                scanJournal.close();
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo cerrar el diario de escaneos", e);
+            }
+        }
+    }
+
+    /**
+     * Guarda un usuario en la base de datos y espera su ID.
+     * Se puede llamar desde varios hilos a la vez: las escrituras se agrupan.
+     * @return el ID de la nueva fila, o -1 si ocurrió un error
      */
     public long saveUser(User user) {
-        return databaseHelper.insertUser(user);
+        return await(saveUserAsync(user));
+    }
+
+    /**
+     * Encola el guardado de un usuario
+     * @return un future que se completa con el ID de la nueva fila (-1 si falló)
+     */
+    public CompletableFuture<Long> saveUserAsync(User user) {
+        checkNotMainThread("saveUserAsync");
+        return writeQueue.submit(UserWrite.insert(user));
+    }
+
+    /**
+     * Registra un escaneo terminado. Vuelve en cuanto el escaneo queda en el diario;
+     * la inserción en la tabla y el enrolamiento de la plantilla se hacen en segundo
+     * plano, agrupados con otros escaneos. El usuario no debe modificarse después.
+     * @param template plantilla a enrolar con la fila nueva, o null si la huella ya estaba enrolada
+     * @return un future que se completa con el ID de la fila (-1 si falló)
+     */
+    public CompletableFuture<Long> saveScan(User user, byte[] template) {
+        checkNotMainThread("saveScan");
+        ScanJournal.Entry entry = new ScanJournal.Entry(user, template);
+        if (scanJournal == null) {
+            return saveWithoutJournal(entry);
+        }
+        try {
+            scanJournal.append(entry);
+        } catch (IOException e) {
+            Log.e(TAG, "No se pudo anexar el escaneo al diario", e);
+            return saveWithoutJournal(entry);
+        }
+        return scanQueue.submit(entry);
+    }
+
+    /**
+     * Guarda el escaneo directo en la tabla y enrola su plantilla al obtener el ID
+     */
+    private CompletableFuture<Long> saveWithoutJournal(ScanJournal.Entry entry) {
+        CompletableFuture<Long> result = saveUserAsync(entry.getUser());
+        if (entry.getTemplate() == null) {
+            return result;
+        }
+        return result.thenApply(id -> {
+            if (id > 0) {
+                runOnEnrollThread(() -> matchingEngine.enroll(id, entry.getTemplate()));
+            }
+            return id;
+        });
+    }
+
+    /**
+     * Guarda varios usuarios en transacciones por lotes
+     * @return los IDs generados en el mismo orden de la lista
+     */
+    public long[] saveUsers(List<User> users) {
+        return saveUsers(users, DatabaseHelper.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Guarda varios usuarios usando el tamaño de lote indicado
+     */
+    public long[] saveUsers(List<User> users, int chunkSize) {
+        checkNotMainThread("saveUsers");
+        synchronized (statisticsLock) {
+            long[] ids = databaseHelper.insertUsers(users, chunkSize);
+            List<UserChange> changes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] > 0) {
+                    recordStatistics(ids[i], users.get(i));
+                    changes.add(UserChange.inserted(ids[i], users.get(i)));
+                }
+            }
+            publishChanges(changes);
+            return ids;
+        }
+    }
+
+    /**
+     * Importa personas desde un CSV con las columnas de la exportación. Se rechazan las
+     * nacionalidades restringidas y se omiten los IDs de huella ya registrados; la lectura
+     * y las transacciones por lotes avanzan en paralelo con memoria constante.
+     * @param totalBytes tamaño del archivo para informar el progreso, o -1
+     */
+    public CsvImporter.Result importUsersFromCsv(InputStream in, long totalBytes,
+                                                 CsvImporter.ProgressListener listener) throws IOException {
+        checkNotMainThread("importUsersFromCsv");
+        CsvImporter importer = new CsvImporter(this::isNacionalidadRestringida, this::applyImport,
+                CsvImporter.DEFAULT_BATCH_SIZE);
+        return importer.importFrom(in, totalBytes, listener);
+    }
+
+    /**
+     * Guarda un lote de la importación y enrola las plantillas de las filas nuevas;
+     * se ejecuta en el hilo de inserción del importador
+     */
+    private long[] applyImport(List<User> batch, List<byte[]> templates, BitSet duplicates) {
+        long[] ids;
+        synchronized (statisticsLock) {
+            ids = databaseHelper.importUsers(batch, duplicates);
+            List<UserChange> changes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] > 0 && !duplicates.get(i)) {
+                    recordStatistics(ids[i], batch.get(i));
+                    changes.add(UserChange.inserted(ids[i], batch.get(i)));
+                }
+            }
+            publishChanges(changes);
+        }
+        enrollNewRows(ids, templates, duplicates);
+        return ids;
+    }
+
+    /**
+     * Enrola las plantillas de las filas recién insertadas de un lote
+     * @param skipped posiciones que no generaron una fila nueva
+     */
+    private void enrollNewRows(long[] ids, List<byte[]> templates, BitSet skipped) {
+        long[] keys = new long[ids.length];
+        byte[][] batch = new byte[ids.length][];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            byte[] template = templates.get(i);
+            if (ids[i] > 0 && !skipped.get(i) && template != null) {
+                keys[count] = ids[i];
+                batch[count++] = template;
+            }
+        }
+        matchingEngine.enrollAll(keys, batch, count);
+    }
+
+    /**
+     * Resumen de una restauración
+     */
+    public static final class RestoreResult {
+        public long restored;
+        // Escaneos que ya estaban en la tabla (misma huella y fecha de escaneo)
+        public long existing;
+        public long failed;
+    }
+
+    /**
+     * Escribe un respaldo binario comprimido de toda la tabla, leyéndola por páginas
+     * en orden de ID para no cargar el historial en memoria
+     * @return la cantidad de usuarios respaldados
+     */
+    public long exportBackup(OutputStream out, CsvExporter.ProgressListener listener) throws IOException {
+        checkNotMainThread("exportBackup");
+        long total = databaseHelper.getUserCount();
+        BackupWriter writer = new BackupWriter(out, userCodec, DatabaseHelper.DATABASE_VERSION);
+        byte[] template = new byte[FingerprintTemplate.SIZE];
+        long afterId = 0;
+        List<User> page;
+        do {
+            page = databaseHelper.getUsersAfter(afterId, BACKUP_PAGE_SIZE);
+            for (User user : page) {
+                writer.write(user, matchingEngine.copyTemplate(user.getId(), template) ? template : null);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+            if (listener != null) {
+                listener.onProgress(writer.getRecordCount(), total);
+            }
+        } while (page.size() == BACKUP_PAGE_SIZE);
+        writer.finish();
+        return writer.getRecordCount();
+    }
+
+    /**
+     * Restaura un respaldo escrito por exportBackup, agregando sus usuarios a la tabla
+     * en transacciones por lotes y enrolando sus plantillas. Los escaneos que ya están
+     * en la tabla se omiten, así que restaurar dos veces el mismo respaldo no duplica filas.
+     * @param totalBytes tamaño del archivo para informar el progreso, o -1
+     * @throws IOException si el archivo no es un respaldo válido o es de un esquema más nuevo
+     */
+    public RestoreResult restoreBackup(InputStream in, long totalBytes,
+                                       CsvImporter.ProgressListener listener) throws IOException {
+        checkNotMainThread("restoreBackup");
+        BackupReader reader = new BackupReader(in, userCodec);
+        if (reader.getSchemaVersion() > DatabaseHelper.DATABASE_VERSION) {
+            throw new IOException("El respaldo es de una versión más nueva de la app");
+        }
+
+        RestoreResult result = new RestoreResult();
+        List<User> batch = new ArrayList<>(DatabaseHelper.DEFAULT_BATCH_SIZE);
+        List<byte[]> templates = new ArrayList<>(DatabaseHelper.DEFAULT_BATCH_SIZE);
+        BitSet existing = new BitSet(DatabaseHelper.DEFAULT_BATCH_SIZE);
+        User user;
+        do {
+            user = reader.next();
+            if (user != null) {
+                batch.add(user);
+                templates.add(reader.getTemplate());
+            }
+            if (batch.size() == DatabaseHelper.DEFAULT_BATCH_SIZE || (user == null && !batch.isEmpty())) {
+                existing.clear();
+                applyRestore(batch, templates, existing, result);
+                batch.clear();
+                templates.clear();
+                if (listener != null) {
+                    listener.onProgress(reader.getBytesRead(), totalBytes, reader.getRecordCount());
+                }
+            }
+        } while (user != null);
+        return result;
+    }
+
+    private void applyRestore(List<User> batch, List<byte[]> templates, BitSet existing, RestoreResult result) {
+        long[] ids;
+        synchronized (statisticsLock) {
+            ids = databaseHelper.insertScans(batch, existing);
+            List<UserChange> changes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (existing.get(i)) {
+                    result.existing++;
+                } else if (ids[i] > 0) {
+                    result.restored++;
+                    recordStatistics(ids[i], batch.get(i));
+                    changes.add(UserChange.inserted(ids[i], batch.get(i)));
+                } else {
+                    result.failed++;
+                }
+            }
+            publishChanges(changes);
+        }
+        // Las filas que ya estaban conservan la plantilla que tenían
+        enrollNewRows(ids, templates, existing);
     }
 
     /**
      * Actualiza un usuario existente
      */
     public int updateUser(User user) {
-        return databaseHelper.updateUser(user);
+        checkNotMainThread("updateUser");
+        int rowsUpdated = (int) Math.max(0, await(writeQueue.submit(UserWrite.update(user))));
+        userCache.invalidateUser(user.getId());
+        userCache.invalidate(user.getHuellaId());
+        return rowsUpdated;
     }
 
     /**
      * Obtiene todos los usuarios registrados
      */
     public List<User> getAllUsers() {
+        checkNotMainThread("getAllUsers");
         return databaseHelper.getAllUsers();
     }
 
     /**
-     * Obtiene un usuario por su ID
+     * Abre un cursor sobre todos los usuarios para recorrerlos en streaming.
+     * El llamador debe cerrar el cursor.
+     */
+    public Cursor openAllUsersCursor() {
+        checkNotMainThread("openAllUsersCursor");
+        return databaseHelper.queryAllUsers();
+    }
+
+    /**
+     * Obtiene la cantidad de usuarios registrados
+     */
+    public long getUserCount() {
+        checkNotMainThread("getUserCount");
+        return databaseHelper.getUserCount();
+    }
+
+    /**
+     * Obtiene una página del historial, del más reciente al más antiguo
+     * @param beforeId ID del último usuario de la página anterior (0 para la primera página)
+     */
+    public List<User> getUsersPage(long beforeId, int pageSize) {
+        checkNotMainThread("getUsersPage");
+        return databaseHelper.getUsersPage(beforeId, pageSize);
+    }
+
+    /**
+     * Obtiene un usuario por su ID, consultando primero la caché
      */
     public User getUserById(long userId) {
-        return databaseHelper.getUser(userId);
+        checkNotMainThread("getUserById");
+        User user = userCache.getByUserId(userId);
+        if (user == null) {
+            user = databaseHelper.getUser(userId);
+            if (user != null) {
+                userCache.put(user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Busca usuarios por prefijo de nombre o apellido
+     */
+    public List<User> searchUsersByName(String prefix, int limit) {
+        checkNotMainThread("searchUsersByName");
+        return databaseHelper.searchUsersByName(prefix, limit);
+    }
+
+    /**
+     * Obtiene los usuarios registrados con una nacionalidad
+     */
+    public List<User> getUsersByNacionalidad(String nacionalidad, int limit) {
+        checkNotMainThread("getUsersByNacionalidad");
+        return databaseHelper.getUsersByNacionalidad(nacionalidad, limit);
+    }
+
+    /**
+     * Obtiene el usuario enrolado con un ID de huella, o null si no existe.
+     * Consulta primero la caché.
+     */
+    public User getUserByHuellaId(String huellaId) {
+        checkNotMainThread("getUserByHuellaId");
+        User user = userCache.get(huellaId);
+        if (user == null) {
+            user = databaseHelper.getUserByHuellaId(huellaId);
+            if (user != null) {
+                userCache.put(user);
+            }
+        }
+        return user;
     }
 
     /**
      * Elimina un usuario
      */
     public void deleteUser(long userId) {
-        databaseHelper.deleteUser(userId);
+        checkNotMainThread("deleteUser");
+        synchronized (statisticsLock) {
+            databaseHelper.deleteUser(userId);
+            if (scanStatistics != null) {
+                scanStatistics.remove(userId);
+            }
+        }
+        publishChanges(Collections.singletonList(UserChange.deleted(userId)));
+        userCache.invalidateUser(userId);
+        // Compacta el almacén de plantillas cuando se acumulan bajas
+        matchingEngine.remove(userId);
+    }
+
+    /**
+     * Estadísticas del historial (conteos, promedios y percentiles por nacionalidad,
+     * escaneos por día). La primera llamada las carga desde la base de datos.
+     */
+    public ScanStatistics getScanStatistics() {
+        checkNotMainThread("getScanStatistics");
+        synchronized (statisticsLock) {
+            if (scanStatistics == null) {
+                scanStatistics = loadScanStatistics();
+            }
+            return scanStatistics;
+        }
+    }
+
+    private ScanStatistics loadScanStatistics() {
+        ScanStatistics statistics = new ScanStatistics(nationalityRegistry.size());
+        TimeZone timeZone = TimeZone.getDefault();
+        try (Cursor cursor = databaseHelper.queryScanColumns()) {
+            int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID);
+            int nacionalidadIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NACIONALIDAD);
+            int tiempoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIEMPO_ESCANEO);
+            int fechaIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_ESCANEO);
+            while (cursor.moveToNext()) {
+                statistics.add(cursor.getLong(idIndex),
+                        nationalityRegistry.codeOf(cursor.getString(nacionalidadIndex)),
+                        cursor.getLong(tiempoIndex),
+                        ScanStatistics.dayOf(cursor.getLong(fechaIndex), timeZone));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Aplica los lotes de la cola de escritura; se ejecuta en el hilo escritor.
+     * Los observadores se avisan después de confirmar el lote.
+     */
+    private final class WriteSink implements GroupCommitWriter.BatchSink<UserWrite> {
+        @Override
+        public long[] writeBatch(List<UserWrite> writes) {
+            synchronized (statisticsLock) {
+                long[] results = databaseHelper.writeBatch(writes);
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] > 0) {
+                        UserWrite write = writes.get(i);
+                        recordStatistics(write.isInsert() ? results[i] : write.getUser().getId(), write.getUser());
+                    }
+                }
+                return results;
+            }
+        }
+
+        @Override
+        public void afterCommit(List<UserWrite> writes, long[] results) {
+            List<UserChange> changes = new ArrayList<>(results.length);
+            for (int i = 0; i < results.length; i++) {
+                UserWrite write = writes.get(i);
+                if (results[i] <= 0) {
+                    continue;
+                }
+                // Para una inserción el resultado es el ID nuevo; para una actualización, las filas
+                changes.add(write.isInsert()
+                        ? UserChange.inserted(results[i], write.getUser())
+                        : UserChange.updated(write.getUser()));
+            }
+            publishChanges(changes);
+        }
+    }
+
+    /**
+     * Pasa los lotes del diario a la tabla; se ejecuta en el hilo del diario.
+     * Un fsync del diario por lote. Las plantillas se enrolan en el hilo de
+     * enrolamiento y recién entonces los escaneos se liberan del diario, así que
+     * después de una caída el diario vuelve a entregar todo lo que no terminó.
+     * Se liberan justo los escaneos del lote, no los más antiguos del diario: uno
+     * anexado antes pero que todavía no llegó a la cola sigue pendiente.
+     */
+    private final class ScanSink implements GroupCommitWriter.BatchSink<ScanJournal.Entry> {
+        // Filas que ya estaban en la tabla en el último lote; solo lo usa el hilo del diario
+        private final BitSet existing = new BitSet(WRITE_BATCH_MAX);
+
+        @Override
+        public long[] writeBatch(List<ScanJournal.Entry> scans) {
+            try {
+                scanJournal.sync();
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo sincronizar el diario de escaneos", e);
+            }
+
+            List<User> users = new ArrayList<>(scans.size());
+            for (ScanJournal.Entry scan : scans) {
+                users.add(scan.getUser());
+            }
+            long[] ids;
+            synchronized (statisticsLock) {
+                existing.clear();
+                ids = databaseHelper.insertScans(users, existing);
+                for (int i = 0; i < ids.length; i++) {
+                    if (ids[i] > 0 && !existing.get(i)) {
+                        recordStatistics(ids[i], users.get(i));
+                    }
+                }
+            }
+            // Si la transacción falla no se libera nada: el lote entero queda en el diario
+            enrollAndRelease(scans, ids, existing);
+            return ids;
+        }
+
+        @Override
+        public void afterCommit(List<ScanJournal.Entry> scans, long[] ids) {
+            List<UserChange> changes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] > 0 && !existing.get(i)) {
+                    changes.add(UserChange.inserted(ids[i], scans.get(i).getUser()));
+                }
+            }
+            publishChanges(changes);
+        }
+    }
+
+    /**
+     * Encola el enrolamiento de las plantillas de un lote del diario y la liberación
+     * de los escaneos que quedaron en la tabla. Los que fallaron siguen pendientes en
+     * el diario y se reaplican la próxima vez que se abra.
+     * @param existing filas que ya estaban en la tabla (escaneos reaplicados del diario)
+     */
+    private void enrollAndRelease(List<ScanJournal.Entry> scans, long[] ids, BitSet existing) {
+        int size = scans.size();
+        long[] keys = new long[size];
+        byte[][] templates = new byte[size][];
+        BitSet replayed = new BitSet();
+        // Copia: el escritor reutiliza la lista del lote
+        List<ScanJournal.Entry> committed = new ArrayList<>(size);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] <= 0) {
+                continue;
+            }
+            ScanJournal.Entry scan = scans.get(i);
+            committed.add(scan);
+            byte[] template = scan.getTemplate();
+            if (template != null) {
+                if (existing.get(i)) {
+                    replayed.set(count);
+                }
+                keys[count] = ids[i];
+                templates[count++] = template;
+            }
+        }
+        if (committed.isEmpty()) {
+            return;
+        }
+        int enrollCount = count;
+        runOnEnrollThread(() -> {
+            try {
+                enrollScans(keys, templates, enrollCount, replayed);
+            } finally {
+                try {
+                    scanJournal.release(committed);
+                } catch (IOException e) {
+                    Log.w(TAG, "No se pudo vaciar el diario de escaneos", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Enrola las plantillas de un lote del diario; se ejecuta en el hilo de enrolamiento
+     * @param replayed posiciones cuya fila ya existía: la plantilla pudo enrolarse antes de la caída
+     */
+    private void enrollScans(long[] keys, byte[][] templates, int count, BitSet replayed) {
+        if (!replayed.isEmpty()) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (!replayed.get(i) || !matchingEngine.isEnrolled(keys[i])) {
+                    keys[kept] = keys[i];
+                    templates[kept++] = templates[i];
+                }
+            }
+            count = kept;
+        }
+        matchingEngine.enrollAll(keys, templates, count);
+    }
+
+    private void runOnEnrollThread(Runnable task) {
+        Runnable guarded = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error al enrolar plantillas", e);
+            }
+        };
+        try {
+            enrollExecutor.execute(guarded);
+        } catch (RejectedExecutionException e) {
+            guarded.run();
+        }
+    }
+
+    /**
+     * Registra un observador de los cambios de la tabla de usuarios
+     */
+    public void addChangeListener(UserChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(UserChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void publishChanges(List<UserChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<UserChange> published = Collections.unmodifiableList(changes);
+        for (UserChangeListener listener : changeListeners) {
+            listener.onUsersChanged(published);
+        }
+    }
+
+    /**
+     * Espera el resultado de una escritura encolada
+     */
+    private static long await(CompletableFuture<Long> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Debe llamarse con statisticsLock tomado
+    private void recordStatistics(long userId, User user) {
+        if (scanStatistics != null) {
+            scanStatistics.add(userId, nationalityRegistry.codeOf(user.getNacionalidad()),
+                    user.getTiempoEscaneo(), ScanStatistics.dayOf(user.getFechaEscaneo(), TimeZone.getDefault()));
+        }
+    }
+
+    /**
+     * Caché de usuarios por ID de huella, para consultar sus contadores
+     */
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    /**
+     * Las operaciones de base de datos nunca deben ejecutarse en el hilo principal
+     */
+    private static void checkNotMainThread(String operation) {
+        AccessListener listener = accessListener;
+        if (listener != null) {
+            listener.onAccess(operation, Thread.currentThread());
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Acceso a la base de datos desde el hilo principal");
+        }
     }
 
     /**
      * Verifica si la nacionalidad está restringida
-     * @return true si la nacionalidad está restringida (Guatemalteca o Estadounidense)
+     * @return true si la nacionalidad está restringida según la configuración
      */
     public boolean isNacionalidadRestringida(String nacionalidad) {
-        return NACIONALIDAD_GUATEMALTECA.equalsIgnoreCase(nacionalidad) ||
-               NACIONALIDAD_ESTADOUNIDENSE.equalsIgnoreCase(nacionalidad);
+        return nationalityRegistry.isRestricted(nacionalidad);
+    }
+
+    /**
+     * Registro de nacionalidades con sus códigos
+     */
+    public NationalityRegistry getNationalityRegistry() {
+        return nationalityRegistry;
     }
 }
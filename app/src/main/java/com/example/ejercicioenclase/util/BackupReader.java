@@ -0,0 +1,194 @@
+package com.example.ejercicioenclase.util;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lector del respaldo binario escrito por BackupWriter. Descomprime un bloque a la
+ * vez y verifica su CRC32 antes de entregar sus usuarios, así que un archivo dañado
+ * o cortado se detecta con un IOException en lugar de restaurar datos incorrectos.
+ */
+public class BackupReader {
+    private final DataInputStream in;
+    private final UserCodec codec;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private final int schemaVersion;
+    private byte[] template;
+
+    private byte[] compressed = new byte[BackupWriter.BLOCK_SIZE];
+    private final byte[] block = new byte[BackupWriter.MAX_BLOCK_SIZE];
+    private int blockLength;
+    private int position;
+    private int blockRemaining;
+
+    private long recordCount;
+    private long bytesRead;
+    private boolean endReached;
+
+    /**
+     * Lee y valida el encabezado
+     * @throws IOException si no es un respaldo o lo escribió una versión incompatible
+     */
+    public BackupReader(InputStream in, UserCodec codec) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, BackupWriter.BLOCK_SIZE));
+        this.codec = codec;
+        try {
+            if (this.in.readInt() != BackupWriter.MAGIC) {
+                throw new IOException("El archivo no es un respaldo");
+            }
+            int formatVersion = this.in.readInt();
+            if (formatVersion != BackupWriter.FORMAT_VERSION) {
+                throw new IOException("Versión de respaldo no soportada: " + formatVersion);
+            }
+            schemaVersion = this.in.readInt();
+            int codecVersion = this.in.readInt();
+            if (codecVersion != UserCodec.FORMAT_VERSION) {
+                throw new IOException("Versión de codificación no soportada: " + codecVersion);
+            }
+        } catch (EOFException e) {
+            throw new IOException("El archivo no es un respaldo", e);
+        }
+        bytesRead = 16;
+    }
+
+    /**
+     * Versión del esquema de la base de datos de la que salió el respaldo
+     */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * Siguiente usuario del respaldo
+     * @return null al llegar a la marca de fin
+     * @throws IOException si un bloque está dañado o el archivo termina antes de la marca de fin
+     */
+    public User next() throws IOException {
+        while (blockRemaining == 0) {
+            if (endReached || !readBlock()) {
+                return null;
+            }
+        }
+        if (blockLength - position < 4) {
+            throw new IOException("Bloque de respaldo inválido");
+        }
+        int length = ((block[position] & 0xFF) << 24) | ((block[position + 1] & 0xFF) << 16)
+                | ((block[position + 2] & 0xFF) << 8) | (block[position + 3] & 0xFF);
+        position += 4;
+        if (length <= 0 || length > blockLength - position) {
+            throw new IOException("Registro de respaldo inválido");
+        }
+        User user = codec.decode(block, position, length);
+        position += length;
+        if (position == blockLength) {
+            throw new IOException("Registro de respaldo inválido");
+        }
+        template = null;
+        byte flag = block[position++];
+        if (flag == 1) {
+            if (blockLength - position < FingerprintTemplate.SIZE) {
+                throw new IOException("Registro de respaldo inválido");
+            }
+            template = Arrays.copyOfRange(block, position, position + FingerprintTemplate.SIZE);
+            position += FingerprintTemplate.SIZE;
+        } else if (flag != 0) {
+            throw new IOException("Registro de respaldo inválido");
+        }
+        blockRemaining--;
+        recordCount++;
+        if (blockRemaining == 0 && position != blockLength) {
+            throw new IOException("Bloque de respaldo inválido");
+        }
+        return user;
+    }
+
+    /**
+     * Plantilla enrolada del último usuario devuelto por next, o null si no tenía
+     */
+    public byte[] getTemplate() {
+        return template;
+    }
+
+    /**
+     * Usuarios leídos hasta ahora
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Bytes del archivo consumidos hasta ahora, para informar el avance
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Lee, descomprime y verifica el siguiente bloque
+     * @return false si se leyó la marca de fin
+     */
+    private boolean readBlock() throws IOException {
+        try {
+            int length = in.readInt();
+            if (length == 0) {
+                long total = in.readLong();
+                bytesRead += 12;
+                if (total != recordCount) {
+                    throw new IOException("El respaldo indica " + total + " registros pero tiene " + recordCount);
+                }
+                endReached = true;
+                inflater.end();
+                return false;
+            }
+            int compressedLength = in.readInt();
+            int records = in.readInt();
+            int expectedCrc = in.readInt();
+            if (length < 0 || length > block.length || compressedLength <= 0
+                    || compressedLength > 2 * block.length || records <= 0) {
+                throw new IOException("Encabezado de bloque inválido");
+            }
+            if (compressedLength > compressed.length) {
+                compressed = new byte[compressedLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+            bytesRead += 16 + compressedLength;
+
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            int inflated;
+            try {
+                inflated = inflater.inflate(block, 0, length);
+            } catch (DataFormatException e) {
+                throw new IOException("Bloque de respaldo dañado", e);
+            }
+            if (inflated != length || !inflater.finished()) {
+                throw new IOException("Bloque de respaldo dañado");
+            }
+
+            crc.reset();
+            crc.update(block, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("CRC del bloque de respaldo no coincide");
+            }
+
+            blockLength = length;
+            position = 0;
+            blockRemaining = records;
+            return true;
+        } catch (EOFException e) {
+            throw new IOException("Respaldo incompleto", e);
+        }
+    }
+}
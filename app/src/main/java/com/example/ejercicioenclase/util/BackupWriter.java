@@ -0,0 +1,165 @@
+package com.example.ejercicioenclase.util;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Escritor del respaldo binario, alternativa compacta al CSV. Los usuarios se
+ * codifican con UserCodec, cada uno precedido por su largo, y se agrupan en bloques
+ * de ~64 KB comprimidos con Deflate. Cada bloque lleva el CRC32 de su contenido.
+ *
+ * Formato:
+ * [int magic "FPBK"][int versión del respaldo][int versión del esquema][int versión de UserCodec]
+ * y luego bloques [int largo original][int largo comprimido][int registros][int CRC32][datos],
+ * cerrados por [int 0][long total de registros]. Dentro de un bloque cada registro es
+ * [int largo][usuario codificado][byte 1 si sigue la plantilla][plantilla enrolada].
+ */
+public class BackupWriter {
+    static final int MAGIC = 0x4650424B; // "FPBK"
+    static final int FORMAT_VERSION = 1;
+
+    // Tamaño sin comprimir a partir del cual se cierra un bloque
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int MAX_RECORD_SIZE = 64 * 1024;
+    // Un bloque casi lleno más un registro máximo con su largo y su plantilla
+    static final int MAX_BLOCK_SIZE = BLOCK_SIZE + 4 + MAX_RECORD_SIZE + 1 + FingerprintTemplate.SIZE;
+
+    private final DataOutputStream out;
+    private final UserCodec codec;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+
+    // Buffers reutilizados: el bloque sin comprimir, el registro actual y la salida comprimida
+    private final BlockBuffer block = new BlockBuffer(MAX_BLOCK_SIZE);
+    private final DataOutputStream blockOut = new DataOutputStream(block);
+    private final BlockBuffer record = new BlockBuffer(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private byte[] compressed = new byte[BLOCK_SIZE];
+
+    private int blockRecords;
+    private long recordCount;
+    private boolean finished;
+
+    /**
+     * Escribe el encabezado del respaldo. La salida se usa a través de un buffer,
+     * así que los datos solo quedan completos después de finish.
+     * @param schemaVersion versión del esquema de la base de datos de origen
+     */
+    public BackupWriter(OutputStream out, UserCodec codec, int schemaVersion) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BLOCK_SIZE));
+        this.codec = codec;
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(FORMAT_VERSION);
+        this.out.writeInt(schemaVersion);
+        this.out.writeInt(UserCodec.FORMAT_VERSION);
+    }
+
+    /**
+     * Agrega un usuario; el bloque se comprime y se escribe al llenarse
+     * @param template plantilla enrolada del usuario, o null si no tiene
+     */
+    public void write(User user, byte[] template) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("El respaldo ya se cerró");
+        }
+        record.reset();
+        codec.write(recordOut, user);
+        if (record.size() > MAX_RECORD_SIZE) {
+            throw new IOException("Registro demasiado grande: " + record.size() + " bytes");
+        }
+
+        if (template != null) {
+            FingerprintTemplate.checkSize(template);
+        }
+
+        blockOut.writeInt(record.size());
+        record.writeTo(block);
+        blockOut.writeByte(template != null ? 1 : 0);
+        if (template != null) {
+            blockOut.write(template);
+        }
+        blockRecords++;
+        recordCount++;
+        if (block.size() >= BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Escribe el último bloque y la marca de fin, y vacía la salida.
+     * No cierra el stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushBlock();
+        out.writeInt(0);
+        out.writeLong(recordCount);
+        out.flush();
+        deflater.end();
+        finished = true;
+    }
+
+    /**
+     * Usuarios escritos hasta ahora
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        byte[] data = block.array();
+        int length = block.size();
+
+        crc.reset();
+        crc.update(data, 0, length);
+
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                byte[] grown = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, grown, 0, compressedLength);
+                compressed = grown;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        out.writeInt(length);
+        out.writeInt(compressedLength);
+        out.writeInt(blockRecords);
+        out.writeInt((int) crc.getValue());
+        out.write(compressed, 0, compressedLength);
+
+        block.reset();
+        blockRecords = 0;
+    }
+
+    /**
+     * ByteArrayOutputStream que expone su arreglo para no copiarlo en cada bloque
+     */
+    static final class BlockBuffer extends ByteArrayOutputStream {
+        BlockBuffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ejercicioenclase.util;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.TemplateSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exportador CSV en streaming: recorre un cursor de usuarios fila por fila y
+ * escribe a través de un buffer grande, reutilizando el mismo StringBuilder
+ * y los mismos buffers de caracteres en cada fila. La memoria usada no
+ * depende de la cantidad de registros.
+ */
+public class CsvExporter {
+    // Nombres de las columnas (CsvImporter las busca por nombre)
+    public static final String COLUMN_ID = "ID";
+    public static final String COLUMN_NOMBRE = "Nombre";
+    public static final String COLUMN_APELLIDO = "Apellido";
+    public static final String COLUMN_FECHA_NACIMIENTO = "Fecha de Nacimiento";
+    public static final String COLUMN_GENERO = "Género";
+    public static final String COLUMN_NACIONALIDAD = "Nacionalidad";
+    public static final String COLUMN_TIEMPO_ESCANEO = "Tiempo de Escaneo (ms)";
+    public static final String COLUMN_TIEMPO_FORMATEADO = "Tiempo Formateado";
+    public static final String COLUMN_HUELLA_ID = "Huella ID";
+    // Plantilla enrolada en hexadecimal, para volver a enrolarla al importar; vacía si no hay
+    public static final String COLUMN_PLANTILLA = "Plantilla";
+
+    // Encabezado del archivo; el orden de las columnas debe coincidir con writeRow
+    public static final String HEADER = COLUMN_ID + ',' + COLUMN_NOMBRE + ',' + COLUMN_APELLIDO + ','
+            + COLUMN_FECHA_NACIMIENTO + ',' + COLUMN_GENERO + ',' + COLUMN_NACIONALIDAD + ','
+            + COLUMN_TIEMPO_ESCANEO + ',' + COLUMN_TIEMPO_FORMATEADO + ',' + COLUMN_HUELLA_ID + ','
+            + COLUMN_PLANTILLA + '\n';
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Cada cuántas filas se notifica el progreso
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Recibe el avance de la exportación
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    private final int idIndex;
+    private final int nombreIndex;
+    private final int apellidoIndex;
+    private final int fechaNacimientoIndex;
+    private final int generoIndex;
+    private final int nacionalidadIndex;
+    private final int tiempoEscaneoIndex;
+    private final int huellaIdIndex;
+
+    private final StringBuilder line = new StringBuilder(256);
+    private final CharArrayBuffer fieldBuffer = new CharArrayBuffer(64);
+    private final TemplateSource templates;
+    private final byte[] template = new byte[FingerprintTemplate.SIZE];
+    // Copia de la fila para escribirla sin crear un String
+    private char[] rowBuffer = new char[256];
+
+    private CsvExporter(Cursor cursor, TemplateSource templates) {
+        this.templates = templates;
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID);
+        nombreIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NOMBRE);
+        apellidoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_APELLIDO);
+        fechaNacimientoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_NACIMIENTO);
+        generoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_GENERO);
+        nacionalidadIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NACIONALIDAD);
+        tiempoEscaneoIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIEMPO_ESCANEO);
+        huellaIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_HUELLA_ID);
+    }
+
+    /**
+     * Escribe en UTF-8 todas las filas restantes del cursor
+     * @param totalRows total esperado, solo para informar el progreso
+     * @param templates plantillas enroladas por ID de fila, o null para dejar la columna vacía
+     * @return la cantidad de filas escritas
+     */
+    public static long write(Cursor cursor, long totalRows, TemplateSource templates, OutputStream out,
+                             ProgressListener listener) throws IOException {
+        CsvExporter exporter = new CsvExporter(cursor, templates);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        writer.write(HEADER);
+        long rows = 0;
+        while (cursor.moveToNext()) {
+            exporter.writeRow(cursor, writer);
+            rows++;
+            if (listener != null && rows % PROGRESS_INTERVAL == 0) {
+                listener.onProgress(rows, totalRows);
+            }
+        }
+        writer.flush();
+
+        if (listener != null) {
+            listener.onProgress(rows, totalRows);
+        }
+        return rows;
+    }
+
+    private void writeRow(Cursor cursor, Writer writer) throws IOException {
+        StringBuilder sb = line;
+        sb.setLength(0);
+
+        long id = cursor.getLong(idIndex);
+        sb.append(id).append(',');
+        appendField(cursor, nombreIndex);
+        sb.append(',');
+        appendField(cursor, apellidoIndex);
+        sb.append(',');
+        appendField(cursor, fechaNacimientoIndex);
+        sb.append(',');
+        appendField(cursor, generoIndex);
+        sb.append(',');
+        appendField(cursor, nacionalidadIndex);
+        sb.append(',');
+
+        long tiempoEscaneo = cursor.getLong(tiempoEscaneoIndex);
+        sb.append(tiempoEscaneo).append(',');
+        // El tiempo formateado solo contiene dígitos, ':' y '.', no necesita escape
+        Utils.appendElapsedTime(sb, tiempoEscaneo);
+        sb.append(',');
+        appendField(cursor, huellaIdIndex);
+        sb.append(',');
+        if (templates != null && templates.copyTemplate(id, template)) {
+            FingerprintTemplate.appendHex(sb, template);
+        }
+        sb.append('\n');
+
+        int length = sb.length();
+        if (rowBuffer.length < length) {
+            rowBuffer = new char[Math.max(length, rowBuffer.length * 2)];
+        }
+        sb.getChars(0, length, rowBuffer, 0);
+        writer.write(rowBuffer, 0, length);
+    }
+
+    /**
+     * Copia el texto de la columna sin crear un String y lo escapa si hace falta
+     */
+    private void appendField(Cursor cursor, int columnIndex) {
+        if (cursor.isNull(columnIndex)) {
+            return;
+        }
+        cursor.copyStringToBuffer(columnIndex, fieldBuffer);
+        Utils.appendCsvField(line, fieldBuffer.data, fieldBuffer.sizeCopied);
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.ejercicioenclase.util;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.model.User;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Importador CSV en streaming para cargar listas de personas antes de un evento.
+ * Lee las columnas que escribe CsvExporter (por nombre, en cualquier orden) y
+ * mientras el hilo llamador interpreta el archivo, un hilo de inserción guarda
+ * los lotes ya armados. La cola entre ambos es acotada, así que la memoria no
+ * depende del tamaño del archivo.
+ */
+public class CsvImporter {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Lotes armados que pueden esperar al hilo de inserción
+    private static final int QUEUE_BATCHES = 4;
+    private static final long QUEUE_POLL_MS = 100;
+
+    // Marca de fin de archivo para el hilo de inserción
+    private static final Batch END = new Batch(0);
+
+    /**
+     * Guarda un lote en una transacción
+     */
+    public interface BatchSink {
+        /**
+         * @param templates plantilla de cada usuario (columna Plantilla), o null si no trae
+         * @param duplicates se marcan las posiciones omitidas por tener un ID de huella ya registrado
+         * @return un ID por usuario, o -1 si la fila falló
+         */
+        long[] insertBatch(List<User> batch, List<byte[]> templates, BitSet duplicates);
+    }
+
+    /**
+     * Recibe el avance de la importación después de cada lote guardado
+     * @param totalBytes tamaño del archivo, o -1 si no se conoce
+     */
+    public interface ProgressListener {
+        void onProgress(long bytesRead, long totalBytes, long rowsProcessed);
+    }
+
+    /**
+     * Resumen de una importación
+     */
+    public static final class Result {
+        // Filas de datos leídas (sin el encabezado ni las líneas vacías)
+        public long rowsRead;
+        public long inserted;
+        // Con un ID de huella que ya estaba registrado (en la tabla o antes en el archivo)
+        public long duplicates;
+        // Con nacionalidad restringida
+        public long restricted;
+        // Sin nombre o apellido, o con fecha, tiempo o plantilla inválidos
+        public long invalid;
+        // Filas que la base de datos rechazó
+        public long failed;
+    }
+
+    private final Predicate<String> restrictedNationality;
+    private final BatchSink sink;
+    private final int batchSize;
+
+    /**
+     * @param restrictedNationality indica si una nacionalidad está restringida
+     */
+    public CsvImporter(Predicate<String> restrictedNationality, BatchSink sink, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize debe ser mayor que cero");
+        }
+        this.restrictedNationality = restrictedNationality;
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importa el archivo completo (UTF-8). Bloquea hasta que el último lote se guarda.
+     * Si ocurre un error, los lotes ya guardados quedan en la tabla.
+     * @param totalBytes tamaño del archivo para informar el progreso, o -1
+     * @throws IOException si el archivo no se puede leer, no tiene las columnas obligatorias
+     *                     o termina dentro de un campo entre comillas
+     */
+    public Result importFrom(InputStream in, long totalBytes, ProgressListener listener) throws IOException {
+        CountingInputStream counting = new CountingInputStream(in);
+        CsvReader reader = new CsvReader(new InputStreamReader(counting, StandardCharsets.UTF_8));
+        Result result = new Result();
+
+        if (!reader.next()) {
+            throw new IOException("El archivo está vacío");
+        }
+        ColumnMap columns = new ColumnMap(reader);
+
+        Inserter inserter = new Inserter(counting, totalBytes, listener, result);
+        Thread thread = new Thread(inserter, "csv-import");
+        thread.start();
+        try {
+            Batch batch = new Batch(batchSize);
+            while (reader.next()) {
+                if (reader.isBlankLine()) {
+                    continue;
+                }
+                result.rowsRead++;
+                User user = columns.read(reader);
+                String templateValue = reader.field(columns.plantilla);
+                byte[] template = FingerprintTemplate.parseHex(templateValue);
+                if (user == null || (templateValue != null && template == null)) {
+                    result.invalid++;
+                } else if (user.getNacionalidad() != null && restrictedNationality.test(user.getNacionalidad())) {
+                    result.restricted++;
+                } else {
+                    batch.users.add(user);
+                    batch.templates.add(template);
+                    if (batch.users.size() == batchSize) {
+                        inserter.put(batch);
+                        batch = new Batch(batchSize);
+                    }
+                }
+            }
+            if (!batch.users.isEmpty()) {
+                inserter.put(batch);
+            }
+            inserter.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } finally {
+            if (thread.isAlive()) {
+                // Error de lectura: el hilo de inserción termina al no recibir más lotes
+                inserter.abort();
+            }
+        }
+        inserter.rethrowFailure();
+        return result;
+    }
+
+    /**
+     * Posición de cada columna conocida según el encabezado
+     */
+    private static final class ColumnMap {
+        final int nombre;
+        final int apellido;
+        final int fechaNacimiento;
+        final int genero;
+        final int nacionalidad;
+        final int tiempoEscaneo;
+        final int huellaId;
+        // Opcional: -1 si el archivo no trae plantillas
+        final int plantilla;
+
+        ColumnMap(CsvReader header) throws IOException {
+            nombre = indexOf(header, CsvExporter.COLUMN_NOMBRE);
+            apellido = indexOf(header, CsvExporter.COLUMN_APELLIDO);
+            fechaNacimiento = indexOf(header, CsvExporter.COLUMN_FECHA_NACIMIENTO);
+            genero = indexOf(header, CsvExporter.COLUMN_GENERO);
+            nacionalidad = indexOf(header, CsvExporter.COLUMN_NACIONALIDAD);
+            tiempoEscaneo = indexOf(header, CsvExporter.COLUMN_TIEMPO_ESCANEO);
+            huellaId = indexOf(header, CsvExporter.COLUMN_HUELLA_ID);
+            plantilla = indexOf(header, CsvExporter.COLUMN_PLANTILLA);
+            if (nombre < 0 || apellido < 0) {
+                throw new IOException("El archivo debe tener las columnas "
+                        + CsvExporter.COLUMN_NOMBRE + " y " + CsvExporter.COLUMN_APELLIDO);
+            }
+        }
+
+        private static int indexOf(CsvReader header, String column) {
+            for (int i = 0; i < header.fieldCount(); i++) {
+                String name = header.field(i);
+                if (name == null) {
+                    continue;
+                }
+                // Excel agrega una marca de orden de bytes al inicio del archivo
+                if (i == 0 && name.charAt(0) == '\uFEFF') {
+                    name = name.substring(1);
+                }
+                if (name.trim().equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return el usuario de la fila, o null si la fila no es válida
+         */
+        User read(CsvReader row) {
+            String nombreValue = row.field(nombre);
+            String apellidoValue = row.field(apellido);
+            if (nombreValue == null || apellidoValue == null) {
+                return null;
+            }
+
+            String fecha = row.field(fechaNacimiento);
+            if (fecha != null && EpochDays.parse(fecha) == EpochDays.INVALID) {
+                return null;
+            }
+
+            long tiempo = 0;
+            String tiempoValue = row.field(tiempoEscaneo);
+            if (tiempoValue != null) {
+                try {
+                    tiempo = Long.parseLong(tiempoValue);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (tiempo < 0) {
+                    return null;
+                }
+            }
+
+            User user = new User(nombreValue, apellidoValue, fecha, row.field(genero));
+            user.setNacionalidad(row.field(nacionalidad));
+            user.setHuellaId(row.field(huellaId));
+            user.setTiempoEscaneo(tiempo);
+            return user;
+        }
+    }
+
+    /**
+     * Usuarios leídos y, en paralelo, sus plantillas
+     */
+    private static final class Batch {
+        final List<User> users;
+        final List<byte[]> templates;
+
+        Batch(int capacity) {
+            users = new ArrayList<>(capacity);
+            templates = new ArrayList<>(capacity);
+        }
+    }
+
+    /**
+     * Hilo de inserción: guarda los lotes en el orden en que se leyeron
+     */
+    private final class Inserter implements Runnable {
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        private final CountingInputStream counting;
+        private final long totalBytes;
+        private final ProgressListener listener;
+        private final Result result;
+        private volatile Throwable failure;
+        private volatile boolean aborted;
+
+        Inserter(CountingInputStream counting, long totalBytes, ProgressListener listener, Result result) {
+            this.counting = counting;
+            this.totalBytes = totalBytes;
+            this.listener = listener;
+            this.result = result;
+        }
+
+        /**
+         * Entrega un lote; espera si la cola está llena y se detiene si el hilo de inserción falló
+         */
+        void put(Batch batch) throws IOException, InterruptedException {
+            while (!queue.offer(batch, QUEUE_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (failure != null) {
+                    rethrowFailure();
+                }
+            }
+        }
+
+        void abort() {
+            aborted = true;
+        }
+
+        void rethrowFailure() throws IOException {
+            Throwable error = failure;
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw new IOException("Error al guardar la importación", error);
+            }
+        }
+
+        @Override
+        public void run() {
+            // Este hilo solo escribe los contadores de la base de datos; el llamador
+            // los lee después de join
+            long processed = 0;
+            BitSet duplicates = new BitSet(batchSize);
+            try {
+                while (!aborted) {
+                    Batch batch = queue.poll(QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        continue;
+                    }
+                    if (batch == END) {
+                        return;
+                    }
+
+                    duplicates.clear();
+                    long[] ids = sink.insertBatch(batch.users, batch.templates, duplicates);
+                    long inserted = 0;
+                    long failed = 0;
+                    for (int i = 0; i < ids.length; i++) {
+                        if (duplicates.get(i)) {
+                            continue;
+                        }
+                        if (ids[i] > 0) {
+                            inserted++;
+                        } else {
+                            failed++;
+                        }
+                    }
+                    result.inserted += inserted;
+                    result.failed += failed;
+                    result.duplicates += duplicates.cardinality();
+                    processed += batch.users.size();
+                    if (listener != null) {
+                        listener.onProgress(counting.count, totalBytes, processed);
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Cuenta los bytes leídos para informar el avance
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
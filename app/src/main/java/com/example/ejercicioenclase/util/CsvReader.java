@@ -0,0 +1,169 @@
+package com.example.ejercicioenclase.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector CSV en streaming, inverso de Utils.appendCsvField: los campos entre comillas
+ * pueden contener comas, saltos de línea y comillas dobladas (""). Lee un registro
+ * a la vez sobre buffers reutilizados; la memoria solo depende del registro más largo.
+ * Acepta fines de línea \n y \r\n.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_FIELDS = 16;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Texto del registro actual; cada campo termina en fieldEnds[i]
+    private final StringBuilder record = new StringBuilder(256);
+    private int[] fieldEnds = new int[INITIAL_FIELDS];
+    private int fieldCount;
+
+    // Línea del archivo donde empieza el registro actual (desde 1)
+    private long recordLine;
+    private long line = 1;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Avanza al siguiente registro
+     * @return false al llegar al final del archivo
+     * @throws IOException si el archivo termina dentro de un campo entre comillas
+     */
+    public boolean next() throws IOException {
+        record.setLength(0);
+        fieldCount = 0;
+        recordLine = line;
+
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + recordLine);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        record.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    record.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                if (c == '\n') {
+                    line++;
+                }
+                endField();
+                return true;
+            } else if (c == '\r' && peek() == '\n') {
+                // \r\n: el \n cierra el registro en la próxima vuelta
+            } else if (c == ',') {
+                endField();
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else {
+                // Texto fuera de comillas; también lo que sigue a una comilla de cierre
+                record.append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    /**
+     * Cantidad de campos del registro actual
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Campo del registro actual, o null si está vacío o no existe
+     */
+    public String field(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        int end = fieldEnds[index];
+        return start == end ? null : record.substring(start, end);
+    }
+
+    /**
+     * Indica si el registro actual es una línea vacía
+     */
+    public boolean isBlankLine() {
+        return fieldCount == 1 && fieldEnds[0] == 0;
+    }
+
+    /**
+     * Línea del archivo donde empieza el registro actual
+     */
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            int[] grown = new int[fieldEnds.length * 2];
+            System.arraycopy(fieldEnds, 0, grown, 0, fieldEnds.length);
+            fieldEnds = grown;
+        }
+        fieldEnds[fieldCount++] = record.length();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
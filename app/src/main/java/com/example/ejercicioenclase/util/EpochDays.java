@@ -0,0 +1,108 @@
+package com.example.ejercicioenclase.util;
+
+/**
+ * Conversión entre fechas "dd/MM/yyyy" y días desde 1970-01-01 (calendario
+ * gregoriano proléptico), sin SimpleDateFormat ni Calendar para no crear objetos.
+ */
+public final class EpochDays {
+    // Valor devuelto cuando el texto no es una fecha válida
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final int DATE_LENGTH = 10;
+
+    private EpochDays() {
+    }
+
+    /**
+     * Convierte una fecha "dd/MM/yyyy" (dígitos ASCII, con ceros a la izquierda)
+     * @return los días desde la época o INVALID si el formato o la fecha no son válidos
+     */
+    public static int parse(CharSequence date) {
+        if (date == null || date.length() != DATE_LENGTH || date.charAt(2) != '/' || date.charAt(5) != '/') {
+            return INVALID;
+        }
+        int day = digits(date, 0, 2);
+        int month = digits(date, 3, 5);
+        int year = digits(date, 6, 10);
+        if (day < 1 || month < 1 || month > 12 || year < 0 || day > daysInMonth(year, month)) {
+            return INVALID;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Texto "dd/MM/yyyy" de los días desde la época (años 0 a 9999)
+     */
+    public static String format(int epochDay) {
+        StringBuilder builder = new StringBuilder(DATE_LENGTH);
+        append(builder, epochDay);
+        return builder.toString();
+    }
+
+    /**
+     * Agrega la fecha "dd/MM/yyyy" al StringBuilder sin crear objetos intermedios
+     */
+    public static void append(StringBuilder builder, int epochDay) {
+        // Algoritmo civil_from_days con eras de 400 años que empiezan en marzo
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Año fuera de rango: " + year);
+        }
+
+        appendPadded(builder, day, 2);
+        builder.append('/');
+        appendPadded(builder, month, 2);
+        builder.append('/');
+        appendPadded(builder, year, 4);
+    }
+
+    static int toEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void appendPadded(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+}
@@ -1,18 +1,16 @@
 package com.example.ejercicioenclase.util;
 
-import android.content.Context;
+import android.database.Cursor;
 import android.os.Environment;
-import android.util.Log;
-import android.widget.Toast;
 
-import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.matching.TemplateSource;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
@@ -20,65 +18,135 @@ import java.util.concurrent.TimeUnit;
  * Clase de utilidades para funciones comunes
  */
 public class Utils {
-    private static final String TAG = "Utils";
+
+    // Longitud máxima del texto MM:SS.ss (los minutos de Long.MAX_VALUE tienen 15 dígitos)
+    public static final int MAX_ELAPSED_TIME_LENGTH = 21;
+
+    // Extensión de los respaldos binarios
+    public static final String BACKUP_EXTENSION = "fpbk";
 
     /**
      * Formatea el tiempo en milisegundos a formato MM:SS.ss
      */
     public static String formatElapsedTime(long elapsedMillis) {
+        if (elapsedMillis < 0) {
+            return formatElapsedTimeWithFormatter(elapsedMillis);
+        }
+        char[] buffer = new char[MAX_ELAPSED_TIME_LENGTH];
+        int length = formatElapsedTime(elapsedMillis, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Escribe el tiempo en formato MM:SS.ss en el buffer indicado, sin crear objetos.
+     * Produce el mismo texto que String.format("%02d:%02d.%02d") con dígitos ASCII.
+     * @param elapsedMillis tiempo no negativo en milisegundos
+     * @param buffer debe tener al menos MAX_ELAPSED_TIME_LENGTH posiciones libres desde offset
+     * @return la cantidad de caracteres escritos
+     */
+    public static int formatElapsedTime(long elapsedMillis, char[] buffer, int offset) {
+        long minutes = elapsedMillis / 60000;
+        int seconds = (int) (elapsedMillis / 1000 % 60);
+        int centis = (int) (elapsedMillis % 1000 / 10); // Solo tomamos dos dígitos para centésimas
+
+        int pos = offset;
+        if (minutes < 100) {
+            buffer[pos++] = (char) ('0' + minutes / 10);
+            buffer[pos++] = (char) ('0' + minutes % 10);
+        } else {
+            int digits = 0;
+            for (long m = minutes; m > 0; m /= 10) {
+                digits++;
+            }
+            for (int i = digits - 1; i >= 0; i--) {
+                buffer[pos + i] = (char) ('0' + minutes % 10);
+                minutes /= 10;
+            }
+            pos += digits;
+        }
+        buffer[pos++] = ':';
+        buffer[pos++] = (char) ('0' + seconds / 10);
+        buffer[pos++] = (char) ('0' + seconds % 10);
+        buffer[pos++] = '.';
+        buffer[pos++] = (char) ('0' + centis / 10);
+        buffer[pos++] = (char) ('0' + centis % 10);
+        return pos - offset;
+    }
+
+    /**
+     * Agrega el tiempo en formato MM:SS.ss al StringBuilder, sin crear objetos
+     * @param elapsedMillis tiempo no negativo en milisegundos
+     */
+    public static void appendElapsedTime(StringBuilder sb, long elapsedMillis) {
+        long minutes = elapsedMillis / 60000;
+        int seconds = (int) (elapsedMillis / 1000 % 60);
+        int centis = (int) (elapsedMillis % 1000 / 10);
+
+        if (minutes < 10) {
+            sb.append('0');
+        }
+        sb.append(minutes).append(':');
+        appendTwoDigits(sb, seconds);
+        sb.append('.');
+        appendTwoDigits(sb, centis);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Formato original con String.format, usado solo para valores negativos
+     */
+    private static String formatElapsedTimeWithFormatter(long elapsedMillis) {
         long minutes = TimeUnit.MILLISECONDS.toMinutes(elapsedMillis);
         long seconds = TimeUnit.MILLISECONDS.toSeconds(elapsedMillis) % 60;
-        long millis = elapsedMillis % 1000 / 10; // Solo tomamos dos dígitos para centésimas
+        long millis = elapsedMillis % 1000 / 10;
         return String.format(Locale.getDefault(), "%02d:%02d.%02d", minutes, seconds, millis);
     }
 
     /**
-     * Exporta los registros a un archivo CSV
+     * Exporta a un archivo CSV en Documentos todas las filas del cursor.
+     * Escribe en streaming, sin cargar el historial en memoria; debe llamarse
+     * fuera del hilo principal.
+     * @param templates plantillas enroladas para la columna Plantilla, o null
+     * @return el archivo generado
      */
-    public static boolean exportToCSV(Context context, List<User> users) {
-        try {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault());
-            String timestamp = dateFormat.format(new Date());
-            String fileName = "fingerprint_records_" + timestamp + ".csv";
-
-            File dir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
-            if (!dir.exists()) {
-                dir.mkdirs();
-            }
+    public static File exportToCSV(Cursor cursor, long totalRows, TemplateSource templates,
+                                   CsvExporter.ProgressListener listener) throws IOException {
+        File file = createExportFile("csv");
+        try (OutputStream out = new FileOutputStream(file)) {
+            CsvExporter.write(cursor, totalRows, templates, out, listener);
+        }
+        return file;
+    }
 
-            File file = new File(dir, fileName);
-            FileOutputStream fos = new FileOutputStream(file);
-            OutputStreamWriter writer = new OutputStreamWriter(fos);
-
-            // Escribir encabezado CSV
-            writer.write("ID,Nombre,Apellido,Fecha de Nacimiento,Género,Nacionalidad,Tiempo de Escaneo (ms),Tiempo Formateado\n");
-
-            // Escribir datos
-            for (User user : users) {
-                writer.write(user.getId() + "," +
-                        escapeCsvField(user.getNombre()) + "," +
-                        escapeCsvField(user.getApellido()) + "," +
-                        escapeCsvField(user.getFechaNacimiento()) + "," +
-                        escapeCsvField(user.getGenero()) + "," +
-                        escapeCsvField(user.getNacionalidad()) + "," +
-                        user.getTiempoEscaneo() + "," +
-                        escapeCsvField(formatElapsedTime(user.getTiempoEscaneo())) + "\n");
-            }
+    /**
+     * Crea en Documentos el archivo para un respaldo binario (ver BackupWriter)
+     */
+    public static File createBackupFile() {
+        return createExportFile(BACKUP_EXTENSION);
+    }
 
-            writer.close();
-            Toast.makeText(context, "Registros exportados a: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
-            return true;
-        } catch (Exception e) {
-            Log.e(TAG, "Error al exportar registros", e);
-            Toast.makeText(context, "Error al exportar registros: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            return false;
+    /**
+     * Crea el archivo de exportación con marca de tiempo en la carpeta de Documentos
+     */
+    private static File createExportFile(String extension) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault());
+        String timestamp = dateFormat.format(new Date());
+        String fileName = "fingerprint_records_" + timestamp + "." + extension;
+
+        File dir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
+        return new File(dir, fileName);
     }
 
     /**
      * Escapa campos para el formato CSV
      */
-    private static String escapeCsvField(String field) {
+    public static String escapeCsvField(String field) {
         if (field == null) return "";
         // Si el campo contiene comas, comillas o saltos de línea, lo encerramos entre comillas
         if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
@@ -86,4 +154,61 @@ public class Utils {
         }
         return field;
     }
+
+    /**
+     * Agrega el campo escapado para CSV al StringBuilder, sin crear Strings intermedios
+     */
+    public static void appendCsvField(StringBuilder sb, String field) {
+        if (field == null) return;
+        if (!needsCsvQuotes(field)) {
+            sb.append(field);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Igual que appendCsvField, a partir de los primeros length caracteres de un buffer
+     */
+    public static void appendCsvField(StringBuilder sb, char[] data, int length) {
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = data[i];
+            if (c == ',' || c == '"' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            sb.append(data, 0, length);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < length; i++) {
+            char c = data[i];
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsCsvQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
 }
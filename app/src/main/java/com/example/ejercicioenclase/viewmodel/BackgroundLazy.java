@@ -0,0 +1,61 @@
+package com.example.ejercicioenclase.viewmodel;
+
+/**
+ * Valor creado la primera vez que se pide, nunca desde el hilo principal.
+ * Sirve para dependencias cuya creación abre archivos o la base de datos: el
+ * ViewModel las pide solo desde su executor, y un acceso desde el hilo principal
+ * falla de inmediato en lugar de bloquear la interfaz.
+ */
+public class BackgroundLazy<T> {
+
+    /**
+     * Crea el valor; se llama una sola vez
+     */
+    public interface Factory<T> {
+        T create();
+    }
+
+    /**
+     * Indica si el hilo actual es el principal (en la app, compara los Looper)
+     */
+    public interface ThreadCheck {
+        boolean isMainThread();
+    }
+
+    private final Factory<T> factory;
+    private final ThreadCheck threadCheck;
+    private volatile T value;
+
+    public BackgroundLazy(Factory<T> factory, ThreadCheck threadCheck) {
+        this.factory = factory;
+        this.threadCheck = threadCheck;
+    }
+
+    /**
+     * Devuelve el valor y lo crea si todavía no existe
+     * @throws IllegalStateException si se llama desde el hilo principal
+     */
+    public T get() {
+        if (threadCheck.isMainThread()) {
+            throw new IllegalStateException("Dependencia pedida desde el hilo principal");
+        }
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.create();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Valor ya creado, o null; no lo crea y se puede llamar desde cualquier hilo
+     */
+    public T getIfCreated() {
+        return value;
+    }
+}
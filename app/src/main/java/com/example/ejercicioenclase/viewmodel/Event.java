@@ -0,0 +1,34 @@
+package com.example.ejercicioenclase.viewmodel;
+
+/**
+ * Resultado de una sola vez publicado a través de un LiveData (por ejemplo, el
+ * mensaje de un Toast). Al recrearse la actividad, el observador vuelve a recibir
+ * el último valor; como ya fue consumido, no se muestra de nuevo.
+ * Se consume en el hilo principal.
+ */
+public class Event<T> {
+    private final T content;
+    private boolean handled;
+
+    public Event(T content) {
+        this.content = content;
+    }
+
+    /**
+     * Contenido la primera vez que se pide; null en las siguientes
+     */
+    public T getContentIfNotHandled() {
+        if (handled) {
+            return null;
+        }
+        handled = true;
+        return content;
+    }
+
+    /**
+     * Contenido aunque ya se haya consumido, para restaurar un estado en pantalla
+     */
+    public T peekContent() {
+        return content;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.ejercicioenclase.viewmodel;
+
+import com.example.ejercicioenclase.model.User;
+
+/**
+ * Estado del formulario de registro, actualizado campo por campo.
+ * Cada campo copia su texto en un StringBuilder propio (sin crear Strings por tecla),
+ * marca si cambió y si está completo. La validez del formulario se publica con
+ * retardo y solo cuando cambia respecto del último valor publicado.
+ */
+public class FormState {
+
+    public enum Field {
+        NOMBRE,
+        APELLIDO,
+        FECHA_NACIMIENTO,
+        GENERO
+    }
+
+    /**
+     * Programa tareas diferidas (en la app, el Handler del hilo principal)
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMillis);
+
+        void cancel(Runnable task);
+    }
+
+    /**
+     * Recibe la validez del formulario cuando cambia
+     */
+    public interface OnValidityChangedListener {
+        void onValidityChanged(boolean valid);
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int ALL_FILLED = (1 << FIELDS.length) - 1;
+
+    private final StringBuilder[] values = new StringBuilder[FIELDS.length];
+    private final long debounceMillis;
+    private final Scheduler scheduler;
+    private final OnValidityChangedListener listener;
+    private final Runnable emitTask = this::emit;
+
+    // Un bit por campo: con texto no vacío / modificado desde el último applyTo
+    private int filledMask;
+    private int dirtyMask;
+
+    private boolean emittedValid = false;
+    private boolean emitPending = false;
+
+    public FormState(long debounceMillis, Scheduler scheduler, OnValidityChangedListener listener) {
+        this.debounceMillis = debounceMillis;
+        this.scheduler = scheduler;
+        this.listener = listener;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new StringBuilder(32);
+        }
+    }
+
+    /**
+     * Registra el texto actual de un campo. Debe llamarse en el hilo principal.
+     */
+    public void onFieldChanged(Field field, CharSequence text) {
+        int index = field.ordinal();
+        StringBuilder value = values[index];
+        if (contentEquals(value, text)) {
+            return;
+        }
+        value.setLength(0);
+        if (text != null) {
+            value.append(text);
+        }
+
+        int bit = 1 << index;
+        dirtyMask |= bit;
+        if (isBlank(value)) {
+            filledMask &= ~bit;
+        } else {
+            filledMask |= bit;
+        }
+        scheduleEmission();
+    }
+
+    /**
+     * Validez actual, sin esperar el retardo de publicación
+     */
+    public boolean isValid() {
+        return filledMask == ALL_FILLED;
+    }
+
+    /**
+     * Indica si el campo cambió desde el último applyTo
+     */
+    public boolean isDirty(Field field) {
+        return (dirtyMask & (1 << field.ordinal())) != 0;
+    }
+
+    /**
+     * Copia en el borrador solo los campos modificados y los marca como aplicados
+     * @return el mismo borrador
+     */
+    public User applyTo(User draft) {
+        if (isDirty(Field.NOMBRE)) {
+            draft.setNombre(values[Field.NOMBRE.ordinal()].toString());
+        }
+        if (isDirty(Field.APELLIDO)) {
+            draft.setApellido(values[Field.APELLIDO.ordinal()].toString());
+        }
+        if (isDirty(Field.FECHA_NACIMIENTO)) {
+            draft.setFechaNacimiento(values[Field.FECHA_NACIMIENTO.ordinal()].toString());
+        }
+        if (isDirty(Field.GENERO)) {
+            draft.setGenero(values[Field.GENERO.ordinal()].toString());
+        }
+        dirtyMask = 0;
+        return draft;
+    }
+
+    /**
+     * Cancela la publicación pendiente
+     */
+    public void cancel() {
+        if (emitPending) {
+            scheduler.cancel(emitTask);
+            emitPending = false;
+        }
+    }
+
+    /**
+     * Reinicia el retardo si la validez difiere de la publicada; si volvió al
+     * valor publicado, descarta la publicación pendiente
+     */
+    private void scheduleEmission() {
+        cancel();
+        if (isValid() != emittedValid) {
+            scheduler.schedule(emitTask, debounceMillis);
+            emitPending = true;
+        }
+    }
+
+    private void emit() {
+        emitPending = false;
+        boolean valid = isValid();
+        if (valid != emittedValid) {
+            emittedValid = valid;
+            listener.onValidityChanged(valid);
+        }
+    }
+
+    /**
+     * Vacío o solo con espacios, con el mismo criterio que String.trim()
+     */
+    static boolean isBlank(CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contentEquals(StringBuilder value, CharSequence text) {
+        int length = text == null ? 0 : text.length();
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,24 +1,82 @@
 package com.example.ejercicioenclase.viewmodel;
 
 import android.app.Application;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.MatchResult;
+import com.example.ejercicioenclase.matching.MatchingEngine;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.metrics.ScanMetrics;
+import com.example.ejercicioenclase.model.NationalityRegistry;
 import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.repository.UserChange;
 import com.example.ejercicioenclase.repository.UserRepository;
-
+import com.example.ejercicioenclase.util.CsvImporter;
+import com.example.ejercicioenclase.util.Utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ViewModel para manejar la lógica de procesamiento de huellas y usuarios
  */
 public class UserViewModel extends AndroidViewModel {
-    private final UserRepository userRepository;
+    private static final String TAG = "UserViewModel";
+
+    // Límites del executor de fondo para comparación de huellas y persistencia
+    private static final int BACKGROUND_THREADS = 2;
+    private static final int BACKGROUND_QUEUE_CAPACITY = 32;
+    // Prefijo de los hilos del executor, para reconocerlos en trazas y pruebas
+    static final String BACKGROUND_THREAD_NAME = "viewmodel-background";
+
+    // Espera desde la última tecla antes de publicar la validez del formulario
+    private static final long FORM_VALIDATION_DEBOUNCE_MS = 150;
+
+    // Se crean en el executor al primer uso: abren la base de datos, el diario de
+    // escaneos y el almacén de plantillas, que no deben abrirse en el hilo principal
+    private final BackgroundLazy<UserRepository> userRepository;
+    private final BackgroundLazy<MatchingEngine> matchingEngine;
+    private volatile boolean cleared;
+
+    private final Random random = new Random();
+
+    // Fuente de capturas simuladas del sensor
+    private final SyntheticTemplateGenerator templateGenerator =
+            new SyntheticTemplateGenerator(System.nanoTime());
+
+    // Executor acotado: ninguna operación de base de datos o de escaneo corre en el hilo principal
+    private final AtomicInteger backgroundThreadCount = new AtomicInteger();
+    private final ExecutorService backgroundExecutor = new ThreadPoolExecutor(
+            BACKGROUND_THREADS, BACKGROUND_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(BACKGROUND_QUEUE_CAPACITY),
+            runnable -> new Thread(runnable, BACKGROUND_THREAD_NAME + "-" + backgroundThreadCount.incrementAndGet()));
+
+    // Escaneo en curso, para poder cancelarlo
+    private Future<?> scanTask;
 
     // LiveData para la UI
     private final MutableLiveData<User> currentUser = new MutableLiveData<>();
@@ -26,13 +84,60 @@ public class UserViewModel extends AndroidViewModel {
     private final MutableLiveData<String> processingResult = new MutableLiveData<>();
     private final MutableLiveData<Long> elapsedTimeMillis = new MutableLiveData<>(0L);
     private final MutableLiveData<Boolean> formValid = new MutableLiveData<>(false);
+    private final MutableLiveData<Integer> exportProgress = new MutableLiveData<>();
+    // Resultados de una sola vez: no se repiten al rotar la pantalla
+    private final MutableLiveData<Event<String>> exportResult = new MutableLiveData<>();
+    private final MutableLiveData<Integer> importProgress = new MutableLiveData<>();
+    private final MutableLiveData<Event<String>> importResult = new MutableLiveData<>();
+    private final MutableLiveData<List<UserChange>> historyChanges = new MutableLiveData<>();
+
+    // Publica cada grupo de cambios en el hilo principal; postValue descartaría grupos intermedios
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final UserRepository.UserChangeListener changeListener =
+            changes -> mainHandler.post(() -> historyChanges.setValue(changes));
+
+    // Estado del formulario y borrador reutilizado entre teclas
+    private final FormState formState = new FormState(FORM_VALIDATION_DEBOUNCE_MS,
+            new FormState.Scheduler() {
+                @Override
+                public void schedule(Runnable task, long delayMillis) {
+                    mainHandler.postDelayed(task, delayMillis);
+                }
+
+                @Override
+                public void cancel(Runnable task) {
+                    mainHandler.removeCallbacks(task);
+                }
+            },
+            formValid::setValue);
+    private final User draftUser = new User();
 
     // Variables para el cronómetro
     private long startTime;
 
+    // Latencias por etapa del escaneo
+    private final ScanMetrics scanMetrics = ScanMetrics.getInstance();
+    // 0 mientras no haya un diálogo biométrico o escaneo simulado en curso
+    private long promptStartNanos;
+
     public UserViewModel(@NonNull Application application) {
         super(application);
-        userRepository = UserRepository.getInstance(application);
+        BackgroundLazy.ThreadCheck mainThread = () -> Looper.myLooper() == Looper.getMainLooper();
+        userRepository = new BackgroundLazy<>(() -> {
+            UserRepository repository = UserRepository.getInstance(application);
+            repository.addChangeListener(changeListener);
+            // onCleared pudo correr mientras se abría el repositorio
+            if (cleared) {
+                repository.removeChangeListener(changeListener);
+            }
+            return repository;
+        }, mainThread);
+        matchingEngine = new BackgroundLazy<>(() -> MatchingEngine.getInstance(application), mainThread);
+        // Abre las dependencias en segundo plano para que el primer escaneo no espere
+        runInBackground(() -> {
+            userRepository.get();
+            matchingEngine.get();
+        });
     }
 
     // Getters para LiveData (inmutables hacia la UI)
@@ -57,33 +162,57 @@ public class UserViewModel extends AndroidViewModel {
     }
 
     /**
-     * Prepara un nuevo usuario con los datos iniciales
+     * Grupos de cambios del historial (inserciones, actualizaciones y eliminaciones)
+     * en el orden en que se confirmaron en la base de datos
      */
-    public void prepareNewUser(String nombre, String apellido, String fechaNacimiento, String genero) {
-        User user = new User(nombre, apellido, fechaNacimiento, genero);
-        currentUser.setValue(user);
-        validateForm();
+    public LiveData<List<UserChange>> getHistoryChanges() {
+        return historyChanges;
     }
 
     /**
-     * Valida si el formulario tiene datos completos
+     * Instante de inicio del escaneo actual, en SystemClock.elapsedRealtime
      */
-    public void validateForm() {
-        User user = currentUser.getValue();
-        boolean isValid = user != null &&
-                          user.getNombre() != null && !user.getNombre().trim().isEmpty() &&
-                          user.getApellido() != null && !user.getApellido().trim().isEmpty() &&
-                          user.getFechaNacimiento() != null && !user.getFechaNacimiento().trim().isEmpty() &&
-                          user.getGenero() != null && !user.getGenero().trim().isEmpty();
+    public long getScanStartTime() {
+        return startTime;
+    }
+
+    public LiveData<Integer> getExportProgress() {
+        return exportProgress;
+    }
+
+    public LiveData<Event<String>> getExportResult() {
+        return exportResult;
+    }
 
-        formValid.setValue(isValid);
+    public LiveData<Integer> getImportProgress() {
+        return importProgress;
+    }
+
+    public LiveData<Event<String>> getImportResult() {
+        return importResult;
+    }
+
+    /**
+     * Registra el texto de un campo del formulario. Se llama en cada tecla;
+     * formValid se publica con retardo y solo cuando cambia.
+     */
+    public void onFieldChanged(FormState.Field field, CharSequence text) {
+        formState.onFieldChanged(field, text);
+    }
+
+    /**
+     * Marca el momento en que se muestra el diálogo biométrico, para medir su latencia
+     */
+    public void onBiometricPromptShown() {
+        promptStartNanos = System.nanoTime();
     }
 
     /**
      * Inicia el proceso de escaneo de huella
      */
     public void startFingerprintScan() {
-        if (Boolean.FALSE.equals(formValid.getValue())) {
+        // Se consulta el estado actual: formValid puede tener una publicación pendiente
+        if (!formState.isValid()) {
             processingResult.setValue("Por favor complete todos los campos del formulario antes de escanear la huella");
             return;
         }
@@ -93,6 +222,7 @@ public class UserViewModel extends AndroidViewModel {
 
         // Inicia el cronómetro
         startTime = SystemClock.elapsedRealtime();
+        promptStartNanos = System.nanoTime();
 
         // Aquí simularíamos el proceso real de escaneo con la API biométrica
     }
@@ -102,77 +232,100 @@ public class UserViewModel extends AndroidViewModel {
      * En un caso real, esto sería llamado por el callback de la API biométrica
      */
     public void processFingerprintResult(boolean success) {
+        // Sin inicio registrado la latencia no tiene sentido
+        if (promptStartNanos != 0) {
+            scanMetrics.recordSince(ScanMetrics.Stage.BIOMETRIC_PROMPT, promptStartNanos);
+            promptStartNanos = 0;
+        }
         if (success) {
-            // Simula la determinación de la nacionalidad (en un caso real sería por API o base de datos)
-            determineNationality();
+            // La determinación de la nacionalidad y el guardado se hacen en segundo plano
+            // El escaneo trabaja sobre una copia; el borrador sigue atado al formulario
+            final User user = new User(formState.applyTo(draftUser));
+            try {
+                scanTask = backgroundExecutor.submit(() -> determineNationality(user));
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Escaneo rechazado, executor ocupado", e);
+                stopProcessing("El sistema está ocupado. Intente nuevamente.");
+            }
         } else {
             stopProcessing("Error en el escaneo de huella. Intente nuevamente.");
         }
     }
 
     /**
-     * Determina la nacionalidad basada en la huella (simulación)
-     * En una implementación real, esto consultaría una API o base de datos
+     * Identifica la huella contra las plantillas enroladas y determina la nacionalidad.
+     * Si la huella ya estaba enrolada se reutiliza la nacionalidad registrada; si no,
+     * se asigna una (simulación) y se enrola la nueva plantilla.
+     * Se ejecuta en el executor de fondo y publica los resultados con postValue.
      */
-    private void determineNationality() {
-        // Lista de nacionalidades para simular
-        String[] nacionalidades = {
-                "Argentina", "Boliviana", "Brasileña", "Chilena", "Colombiana",
-                "Costarricense", "Cubana", "Ecuatoriana", "Guatemalteca", "Hondureña",
-                "Mexicana", "Nicaragüense", "Panameña", "Paraguaya", "Peruana",
-                "Salvadoreña", "Uruguaya", "Venezolana", "Estadounidense", "Canadiense"
-        };
+    private void determineNationality(User user) {
+        if (user == null) {
+            postStopProcessing("Error: no se encontró información del usuario");
+            return;
+        }
 
-        // Simula una demora en el procesamiento (1-3 segundos)
-        try {
-            Thread.sleep(new Random().nextInt(2000) + 1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // Captura simulada: BiometricPrompt no entrega la plantilla del sensor
+        byte[] probe = captureTemplate(user);
+        long matchStart = System.nanoTime();
+        MatchResult match = matchingEngine.get().identify(probe);
+        scanMetrics.recordSince(ScanMetrics.Stage.MATCHING, matchStart);
+
+        String nacionalidad = null;
+        String huellaId = null;
+        if (match.isMatch()) {
+            User enrolled = userRepository.get().getUserById(match.key);
+            if (enrolled != null) {
+                nacionalidad = enrolled.getNacionalidad();
+                huellaId = enrolled.getHuellaId();
+            }
+        }
+        boolean newEnrollment = nacionalidad == null;
+        if (newEnrollment) {
+            nacionalidad = pickNacionalidad();
+            huellaId = FingerprintTemplate.fingerprintId(probe);
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            // El ViewModel fue destruido o el escaneo se canceló
+            return;
         }
 
         // Calcula el tiempo transcurrido
         long endTime = SystemClock.elapsedRealtime();
         long elapsedTime = endTime - startTime;
-        elapsedTimeMillis.setValue(elapsedTime);
-
-        // Selecciona una nacionalidad aleatoria
-        String randomNacionalidad;
-        do {
-            randomNacionalidad = nacionalidades[new Random().nextInt(nacionalidades.length)];
-        } while (!isValidNacionalidad(randomNacionalidad));
+        elapsedTimeMillis.postValue(elapsedTime);
 
         // Actualiza el usuario con la nacionalidad y el tiempo de escaneo
-        User user = currentUser.getValue();
-        if (user != null) {
-            user.setNacionalidad(randomNacionalidad);
-            user.setTiempoEscaneo(elapsedTime);
-            user.setHuellaId(generateFingerprintId());
-            currentUser.setValue(user);
-
-            // Guarda el usuario en la base de datos
-            long userId = userRepository.saveUser(user);
-            user.setId((int) userId);
-
-            stopProcessing("Nacionalidad detectada: " + randomNacionalidad);
-        } else {
-            stopProcessing("Error: no se encontró información del usuario");
-        }
+        user.setNacionalidad(nacionalidad);
+        user.setTiempoEscaneo(elapsedTime);
+        user.setHuellaId(huellaId);
+        user.setFechaEscaneo(System.currentTimeMillis());
+
+        // El escaneo queda guardado al anexarse al diario junto con la plantilla de la
+        // huella nueva; la fila y el enrolamiento se completan en segundo plano
+        long insertStart = System.nanoTime();
+        userRepository.get().saveScan(user, newEnrollment ? probe : null).thenAccept(userId ->
+                scanMetrics.recordSince(ScanMetrics.Stage.DB_INSERT, insertStart));
+        scanMetrics.recordSince(ScanMetrics.Stage.JOURNAL_APPEND, insertStart);
+        currentUser.postValue(user);
+
+        postStopProcessing("Nacionalidad detectada: " + nacionalidad);
     }
 
     /**
-     * Verifica si la nacionalidad es válida según los requisitos
+     * Simula la captura del sensor: la misma persona produce plantillas parecidas
      */
-    private boolean isValidNacionalidad(String nacionalidad) {
-        // Verifica que no sea una nacionalidad restringida
-        return !userRepository.isNacionalidadRestringida(nacionalidad);
+    private byte[] captureTemplate(User user) {
+        String identity = user.getNombre() + "|" + user.getApellido() + "|" + user.getFechaNacimiento();
+        return templateGenerator.capture(SyntheticTemplateGenerator.templateFor(identity));
     }
 
     /**
-     * Genera un ID único para la huella (simulación)
+     * Selecciona una nacionalidad permitida (simulación para huellas no enroladas)
      */
-    private String generateFingerprintId() {
-        // En una implementación real, esto vendría de la API biométrica
-        return "FP-" + System.currentTimeMillis() + "-" + new Random().nextInt(10000);
+    private String pickNacionalidad() {
+        NationalityRegistry registry = userRepository.get().getNationalityRegistry();
+        return registry.nameOf(registry.randomAllowed(random));
     }
 
     /**
@@ -184,9 +337,165 @@ public class UserViewModel extends AndroidViewModel {
     }
 
     /**
-     * Obtiene todos los usuarios registrados en la base de datos
+     * Igual que stopProcessing, pero desde un hilo de fondo
+     */
+    private void postStopProcessing(String message) {
+        isProcessing.postValue(false);
+        processingResult.postValue(message);
+    }
+
+    /**
+     * Ejecuta una tarea en el executor de fondo del ViewModel
+     */
+    public void runInBackground(Runnable task) {
+        try {
+            backgroundExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Tarea de fondo rechazada", e);
+        }
+    }
+
+    /**
+     * Exporta el historial completo a CSV en segundo plano, leyendo la base de datos
+     * en streaming. El avance se publica en exportProgress (0-100) y el mensaje final
+     * en exportResult.
+     */
+    public void exportHistoryToCsv() {
+        runInBackground(() -> {
+            exportProgress.postValue(0);
+            try (Cursor cursor = userRepository.get().openAllUsersCursor()) {
+                long total = userRepository.get().getUserCount();
+                File file = Utils.exportToCSV(cursor, total, matchingEngine.get(), (rowsWritten, totalRows) ->
+                        exportProgress.postValue(totalRows > 0 ? (int) (rowsWritten * 100 / totalRows) : 100));
+                exportResult.postValue(new Event<>("Registros exportados a: " + file.getAbsolutePath()));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error al exportar registros", e);
+                exportResult.postValue(new Event<>("Error al exportar registros: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Importa en segundo plano una lista de personas desde un CSV con las columnas de
+     * la exportación. El avance se publica en importProgress (0-100) y el resumen en importResult.
+     */
+    public void importRosterFromCsv(Uri uri) {
+        runInBackground(() -> {
+            importProgress.postValue(0);
+            try (AssetFileDescriptor descriptor =
+                         getApplication().getContentResolver().openAssetFileDescriptor(uri, "r")) {
+                if (descriptor == null) {
+                    throw new IOException("No se pudo abrir " + uri);
+                }
+                long length = descriptor.getLength();
+                CsvImporter.Result result;
+                try (InputStream in = descriptor.createInputStream()) {
+                    result = userRepository.get().importUsersFromCsv(in,
+                            length == AssetFileDescriptor.UNKNOWN_LENGTH ? -1 : length,
+                            (bytesRead, totalBytes, rows) -> {
+                                if (totalBytes > 0) {
+                                    importProgress.postValue((int) Math.min(99, bytesRead * 100 / totalBytes));
+                                }
+                            });
+                }
+                importProgress.postValue(100);
+                importResult.postValue(new Event<>("Registros importados: " + result.inserted
+                        + " (duplicados: " + result.duplicates
+                        + ", restringidos: " + result.restricted
+                        + ", inválidos: " + (result.invalid + result.failed) + ")"));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error al importar registros", e);
+                importResult.postValue(new Event<>("Error al importar registros: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Crea en segundo plano un respaldo binario comprimido del historial. Usa los mismos
+     * LiveData que la exportación CSV (exportProgress y exportResult).
+     */
+    public void exportBackup() {
+        runInBackground(() -> {
+            exportProgress.postValue(0);
+            File file = Utils.createBackupFile();
+            try (OutputStream out = new FileOutputStream(file)) {
+                long rows = userRepository.get().exportBackup(out, (rowsWritten, totalRows) ->
+                        exportProgress.postValue(totalRows > 0 ? (int) Math.min(99, rowsWritten * 100 / totalRows) : 99));
+                exportProgress.postValue(100);
+                exportResult.postValue(new Event<>("Respaldo de " + rows + " registros en: " + file.getAbsolutePath()));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error al crear el respaldo", e);
+                file.delete();
+                exportResult.postValue(new Event<>("Error al crear el respaldo: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Restaura en segundo plano un respaldo binario. Usa los mismos LiveData que la
+     * importación CSV (importProgress y importResult).
+     */
+    public void restoreBackup(Uri uri) {
+        runInBackground(() -> {
+            importProgress.postValue(0);
+            try (AssetFileDescriptor descriptor =
+                         getApplication().getContentResolver().openAssetFileDescriptor(uri, "r")) {
+                if (descriptor == null) {
+                    throw new IOException("No se pudo abrir " + uri);
+                }
+                long length = descriptor.getLength();
+                UserRepository.RestoreResult result;
+                try (InputStream in = descriptor.createInputStream()) {
+                    result = userRepository.get().restoreBackup(in,
+                            length == AssetFileDescriptor.UNKNOWN_LENGTH ? -1 : length,
+                            (bytesRead, totalBytes, rows) -> {
+                                if (totalBytes > 0) {
+                                    importProgress.postValue((int) Math.min(99, bytesRead * 100 / totalBytes));
+                                }
+                            });
+                }
+                importProgress.postValue(100);
+                importResult.postValue(new Event<>("Registros restaurados: " + result.restored
+                        + " (ya existentes: " + result.existing
+                        + ", con error: " + result.failed + ")"));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error al restaurar el respaldo", e);
+                importResult.postValue(new Event<>("Error al restaurar el respaldo: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Obtiene todos los usuarios registrados en la base de datos.
+     * Debe llamarse fuera del hilo principal (ver runInBackground).
      */
     public List<User> getAllUsers() {
-        return userRepository.getAllUsers();
+        return userRepository.get().getAllUsers();
+    }
+
+    /**
+     * Obtiene una página del historial a partir del ID indicado.
+     * Debe llamarse fuera del hilo principal (ver runInBackground).
+     */
+    public List<User> getUsersPage(long beforeId, int pageSize) {
+        return userRepository.get().getUsersPage(beforeId, pageSize);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cleared = true;
+        UserRepository repository = userRepository.getIfCreated();
+        if (repository != null) {
+            repository.removeChangeListener(changeListener);
+        }
+        formState.cancel();
+        mainHandler.removeCallbacksAndMessages(null);
+        // Cancela el escaneo en curso y detiene el executor
+        if (scanTask != null) {
+            scanTask.cancel(true);
+        }
+        backgroundExecutor.shutdownNow();
+        Log.i(TAG, "Métricas de escaneo:\n" + scanMetrics.dump());
     }
 }
@@ -0,0 +1,97 @@
+package com.example.ejercicioenclase.widget;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import com.example.ejercicioenclase.util.Utils;
+
+/**
+ * Cronómetro que actualiza un TextView sincronizado con los cuadros de pantalla
+ * (Choreographer) en lugar de un Handler cada 10 ms. Usa el reloj monótono
+ * SystemClock.elapsedRealtime, igual que UserViewModel, y solo llama a setText
+ * cuando cambian las centésimas mostradas, reutilizando el mismo buffer de texto.
+ */
+public class FrameChronometer implements Choreographer.FrameCallback {
+    private final TextView textView;
+    private final char[] buffer = new char[Utils.MAX_ELAPSED_TIME_LENGTH];
+
+    private long startTime;
+    private boolean running = false;
+    private long lastCentis = -1;
+
+    // Contadores para medir el costo del cronómetro
+    private long framesRendered;
+    private long framesSkipped;
+
+    public FrameChronometer(TextView textView) {
+        this.textView = textView;
+    }
+
+    /**
+     * Inicia el cronómetro desde el momento actual
+     */
+    public void start() {
+        start(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Inicia el cronómetro desde un instante de SystemClock.elapsedRealtime
+     */
+    public void start(long startTime) {
+        if (running) {
+            return;
+        }
+        this.startTime = startTime;
+        running = true;
+        lastCentis = -1;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Detiene el cronómetro; el texto mostrado se conserva
+     */
+    public void stop() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+
+        long elapsed = Math.max(0, SystemClock.elapsedRealtime() - startTime);
+        long centis = elapsed / 10;
+        if (centis != lastCentis) {
+            lastCentis = centis;
+            int length = Utils.formatElapsedTime(elapsed, buffer, 0);
+            textView.setText(buffer, 0, length);
+            framesRendered++;
+        } else {
+            // Pantallas de alta frecuencia: el texto no cambió en este cuadro
+            framesSkipped++;
+        }
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Cuadros en los que se actualizó el texto
+     */
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /**
+     * Cuadros en los que se evitó un setText redundante
+     */
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+}
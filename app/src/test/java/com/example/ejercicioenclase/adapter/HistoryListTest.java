@@ -0,0 +1,173 @@
+package com.example.ejercicioenclase.adapter;
+
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.repository.UserChange;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la lista del historial: los cambios se aplican sin volver a leer
+ * la tabla y cada uno cuesta O(log n) accesos a las filas cargadas
+ */
+public class HistoryListTest {
+    private static final int PAGE_SIZE = 50;
+    private static final int TABLE_SIZE = 10_000;
+
+    // Tabla simulada y contadores de filas leídas
+    private final NavigableMap<Long, User> table = new TreeMap<>();
+    private int rowsLoaded;
+    private long idReads;
+
+    private HistoryList list;
+
+    /**
+     * Usuario que cuenta cuántas veces se consulta su ID
+     */
+    private class CountingUser extends User {
+        CountingUser(int id) {
+            super("Nombre" + id, "Apellido", "01/01/1990", "Otro");
+            setId(id);
+            setNacionalidad("Chilena");
+        }
+
+        @Override
+        public int getId() {
+            idReads++;
+            return super.getId();
+        }
+    }
+
+    private static User user(int id, String nombre) {
+        User user = new User(nombre, "Apellido", "01/01/1990", "Otro");
+        user.setId(id);
+        return user;
+    }
+
+    @Before
+    public void setUp() {
+        for (int id = 1; id <= TABLE_SIZE; id++) {
+            table.put((long) id, new CountingUser(id));
+        }
+        list = new HistoryList();
+    }
+
+    private List<User> loadPage(long beforeId, int pageSize) {
+        NavigableMap<Long, User> older = beforeId > 0 ? table.headMap(beforeId, false) : table;
+        List<User> page = new ArrayList<>(pageSize);
+        for (User user : older.descendingMap().values()) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            page.add(user);
+        }
+        rowsLoaded += page.size();
+        return page;
+    }
+
+    private void loadPages(int pages) {
+        for (int i = 0; i < pages && !list.isEndReached(); i++) {
+            list.appendPage(loadPage(list.nextPageBeforeId(), PAGE_SIZE), PAGE_SIZE);
+        }
+    }
+
+    private void loadAll() {
+        while (!list.isEndReached()) {
+            loadPages(1);
+        }
+    }
+
+    private List<Integer> ids() {
+        List<Integer> ids = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            ids.add(list.get(i).getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void apply_costsLogarithmicReadsAndNoQueries() {
+        loadAll();
+        assertEquals(TABLE_SIZE, list.size());
+        int loadedBefore = rowsLoaded;
+
+        List<UserChange> changes = Arrays.asList(
+                UserChange.inserted(TABLE_SIZE + 1, user(0, "Nuevo")),
+                UserChange.updated(user(5000, "Editado")),
+                UserChange.deleted(1234));
+        idReads = 0;
+        assertTrue(list.apply(changes));
+
+        // Ninguna consulta a la tabla y a lo sumo ~log2(n) + 1 comparaciones por cambio
+        assertEquals(loadedBefore, rowsLoaded);
+        int log2 = 32 - Integer.numberOfLeadingZeros(TABLE_SIZE);
+        assertTrue("lecturas de ID: " + idReads, idReads <= changes.size() * (log2 + 1));
+
+        assertEquals(TABLE_SIZE, list.size());
+        assertEquals(TABLE_SIZE + 1, list.get(0).getId());
+        assertEquals("Nuevo", list.get(0).getNombre());
+        assertEquals("Editado", list.get(TABLE_SIZE + 1 - 5000).getNombre());
+        assertFalse(ids().contains(1234));
+    }
+
+    @Test
+    public void apply_keepsDescendingOrderAndIsIdempotent() {
+        table.clear();
+        for (int id = 10; id <= 100; id += 10) {
+            table.put((long) id, user(id, "U" + id));
+        }
+        loadPages(1);
+        assertTrue(list.isEndReached());
+
+        List<UserChange> changes = Arrays.asList(
+                UserChange.inserted(55, user(0, "A")),
+                UserChange.inserted(5, user(0, "B")),
+                UserChange.deleted(100),
+                UserChange.updated(user(20, "C")));
+        assertTrue(list.apply(changes));
+        List<Integer> expected = Arrays.asList(90, 80, 70, 60, 55, 50, 40, 30, 20, 10, 5);
+        assertEquals(expected, ids());
+
+        // LiveData puede volver a entregar el último grupo al registrar un observador
+        list.apply(changes);
+        assertEquals(expected, ids());
+        assertEquals("C", list.get(8).getNombre());
+    }
+
+    @Test
+    public void apply_skipsRowsOutsideLoadedPages() {
+        loadPages(2);
+        assertFalse(list.isEndReached());
+        assertEquals(2 * PAGE_SIZE, list.size());
+
+        // Filas más antiguas que la última cargada llegan con la siguiente página
+        assertFalse(list.apply(Arrays.asList(
+                UserChange.updated(user(10, "Viejo")),
+                UserChange.deleted(11))));
+        assertEquals(2 * PAGE_SIZE, list.size());
+    }
+
+    @Test
+    public void appendPage_ignoresRowsAlreadyAppliedAsChanges() {
+        loadPages(1);
+        // Llega una inserción mientras la página siguiente ya se había leído
+        List<User> nextPage = loadPage(list.nextPageBeforeId(), PAGE_SIZE);
+        list.apply(Collections.singletonList(UserChange.inserted(TABLE_SIZE + 1, user(0, "Nuevo"))));
+        list.appendPage(nextPage, PAGE_SIZE);
+
+        List<Integer> ids = ids();
+        assertEquals(2 * PAGE_SIZE + 1, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) > ids.get(i));
+        }
+    }
+}
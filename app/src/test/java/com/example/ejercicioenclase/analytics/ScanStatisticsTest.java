@@ -0,0 +1,96 @@
+package com.example.ejercicioenclase.analytics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la copia columnar de estadísticas del historial
+ */
+public class ScanStatisticsTest {
+
+    @Test
+    public void aggregates_followAddUpdateRemove() {
+        ScanStatistics statistics = new ScanStatistics(3);
+        statistics.add(1, (short) 0, 100, 10);
+        statistics.add(2, (short) 0, 300, 10);
+        statistics.add(3, (short) 2, 50, 11);
+        statistics.add(4, (short) -1, 70, ScanStatistics.NO_DAY);
+
+        assertEquals(4, statistics.size());
+        assertEquals(2, statistics.count((short) 0));
+        assertEquals(200.0, statistics.averageTime((short) 0), 0.0);
+        assertEquals(1, statistics.countsByNationality()[3]);
+        assertTrue(Double.isNaN(statistics.averageTime((short) 1)));
+
+        assertTrue(statistics.update(2, (short) 1, 500, 11));
+        assertEquals(1, statistics.count((short) 0));
+        assertEquals(500, statistics.percentileTime((short) 1, 50));
+
+        assertTrue(statistics.remove(1));
+        assertFalse(statistics.remove(1));
+        assertEquals(3, statistics.size());
+        assertEquals(-1, statistics.percentileTime((short) 0, 50));
+        assertArrayEquals(new int[]{0, 2}, statistics.scansPerDay(10, 11));
+    }
+
+    @Test
+    public void percentiles_matchSortedCopyAfterRandomChanges() {
+        ScanStatistics statistics = new ScanStatistics(5);
+        Random random = new Random(17);
+        List<Long> live = new ArrayList<>();
+        long[] timeById = new long[2001];
+
+        for (int id = 1; id <= 2000; id++) {
+            timeById[id] = random.nextInt(10_000);
+            statistics.add(id, (short) random.nextInt(5), timeById[id], id / 100);
+            live.add((long) id);
+        }
+        // Bajas suficientes para provocar varias compactaciones
+        Collections.shuffle(live, random);
+        for (int i = 0; i < 900; i++) {
+            assertTrue(statistics.remove(live.remove(live.size() - 1)));
+        }
+        // Un ID que llega fuera de orden se inserta en su posición
+        statistics.add(0, (short) 1, 42, 0);
+        timeById[0] = 42;
+        live.add(0L);
+
+        List<Long> times = new ArrayList<>();
+        long sum = 0;
+        for (long id : live) {
+            times.add(timeById[(int) id]);
+            sum += timeById[(int) id];
+        }
+        Collections.sort(times);
+
+        assertEquals(live.size(), statistics.size());
+        assertEquals((double) sum / live.size(), statistics.averageTime(), 1e-9);
+        for (double p : new double[]{0, 1, 50, 95, 99, 100}) {
+            int rank = Math.max((int) Math.ceil(p / 100 * times.size()), 1);
+            assertEquals(times.get(rank - 1).longValue(), statistics.percentileTime(p));
+        }
+
+        int total = 0;
+        for (int count : statistics.scansPerDay(0, 20)) {
+            total += count;
+        }
+        assertEquals(live.size(), total);
+    }
+
+    @Test
+    public void dayOf_usesLocalOffset() {
+        TimeZone utcMinus6 = TimeZone.getTimeZone("GMT-06:00");
+        long midnightUtc = 19_000L * 24 * 60 * 60 * 1000;
+
+        assertEquals(19_000, ScanStatistics.dayOf(midnightUtc, TimeZone.getTimeZone("UTC")));
+        assertEquals(18_999, ScanStatistics.dayOf(midnightUtc, utcMinus6));
+        assertEquals(ScanStatistics.NO_DAY, ScanStatistics.dayOf(0, utcMinus6));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ejercicioenclase.database;
+
+import com.example.ejercicioenclase.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las inserciones por lotes sobre el SQLite de Android (Robolectric)
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseHelperBatchTest {
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.closeInstance();
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User("Nombre" + i, "Apellido" + i, "01/02/1990", "Otro");
+            user.setNacionalidad("Chilena");
+            user.setHuellaId("huella-" + i);
+            user.setTiempoEscaneo(100 + i);
+            user.setFechaEscaneo(1_700_000_000_000L + i);
+            users.add(user);
+        }
+        return users;
+    }
+
+    @Test
+    public void insertUsers_returnsGeneratedIdsInListOrder() {
+        List<User> users = users(1_234);
+
+        // Tres transacciones: 500 + 500 + 234 filas
+        long[] ids = databaseHelper.insertUsers(users, 500);
+
+        assertEquals(users.size(), ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i + 1, ids[i]);
+        }
+        assertEquals(users.size(), databaseHelper.getUserCount());
+
+        User stored = databaseHelper.getUser(ids[700]);
+        assertEquals("Nombre700", stored.getNombre());
+        assertEquals("Apellido700", stored.getApellido());
+        assertEquals("huella-700", stored.getHuellaId());
+        assertEquals(800, stored.getTiempoEscaneo());
+        assertEquals(1_700_000_000_700L, stored.getFechaEscaneo());
+    }
+
+    @Test
+    public void insertUsers_failedRowDoesNotAbortItsChunk() {
+        List<User> users = users(10);
+        // nombre es NOT NULL
+        users.get(4).setNombre(null);
+
+        long[] ids = databaseHelper.insertUsers(users, 3);
+
+        assertEquals(-1, ids[4]);
+        for (int i = 0; i < ids.length; i++) {
+            if (i != 4) {
+                assertTrue(ids[i] > 0);
+                assertEquals("Nombre" + i, databaseHelper.getUser(ids[i]).getNombre());
+            }
+        }
+        assertEquals(9, databaseHelper.getUserCount());
+    }
+
+    @Test
+    public void insertUsers_emptyListInsertsNothing() {
+        assertEquals(0, databaseHelper.insertUsers(new ArrayList<>(), 500).length);
+        assertEquals(0, databaseHelper.getUserCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void insertUsers_rejectsInvalidChunkSize() {
+        databaseHelper.insertUsers(users(1), 0);
+    }
+}
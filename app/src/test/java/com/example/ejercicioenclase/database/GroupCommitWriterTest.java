@@ -0,0 +1,237 @@
+package com.example.ejercicioenclase.database;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la cola de escritura con commit agrupado
+ */
+public class GroupCommitWriterTest {
+
+    /**
+     * Sumidero falso: asigna IDs consecutivos y detecta lotes concurrentes
+     */
+    private static final class FakeSink implements GroupCommitWriter.BatchSink<Integer> {
+        final AtomicBoolean writing = new AtomicBoolean();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final List<Integer> batchSizes = new ArrayList<>();
+        long nextId = 1;
+
+        @Override
+        public long[] writeBatch(List<Integer> batch) {
+            if (!writing.compareAndSet(false, true)) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                // Simula el costo fijo de un commit para que se acumulen escrituras
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(batch.size());
+            long[] ids = new long[batch.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = nextId++;
+            }
+            writing.set(false);
+            return ids;
+        }
+    }
+
+    @Test
+    public void manyProducers_getUniqueIdsFromGroupedBatches() throws Exception {
+        FakeSink sink = new FakeSink();
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", sink, 64, 1024);
+        int producers = 16;
+        int perProducer = 2_000;
+        List<List<CompletableFuture<Long>>> results = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            List<CompletableFuture<Long>> futures = new ArrayList<>(perProducer);
+            results.add(futures);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    futures.add(writer.submit(i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (List<CompletableFuture<Long>> futures : results) {
+            for (CompletableFuture<Long> future : futures) {
+                assertTrue(ids.add(future.join()));
+            }
+        }
+        writer.close();
+
+        int total = producers * perProducer;
+        assertEquals(total, ids.size());
+        assertEquals(total, writer.writeCount());
+        assertEquals(0, sink.overlaps.get());
+        // Con 16 productores y commits de 1 ms las escrituras deben agruparse
+        assertTrue(writer.batchCount() < total / 4);
+        for (int size : sink.batchSizes) {
+            assertTrue(size <= 64);
+        }
+    }
+
+    @Test
+    public void failedBatch_completesEveryFutureExceptionally() throws Exception {
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", batch -> {
+            throw new IllegalStateException("disco lleno");
+        }, 8, 8);
+
+        CompletableFuture<Long> result = writer.submit(1);
+        try {
+            result.join();
+            fail("La escritura debió fallar");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        writer.close();
+    }
+
+    @Test
+    public void errorInBatch_failsOnlyThatBatchAndKeepsWriting() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", batch -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new AssertionError("falla inesperada");
+            }
+            long[] ids = new long[batch.size()];
+            ids[0] = 7;
+            return ids;
+        }, 1, 8);
+
+        try {
+            writer.submit(1).join();
+            fail("La escritura debió fallar");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        // El escritor sigue vivo para el siguiente lote
+        assertEquals(7L, (long) writer.submit(2).join());
+        writer.close();
+    }
+
+    @Test
+    public void wrongResultCount_failsTheBatch() throws Exception {
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", batch -> new long[0], 8, 8);
+        try {
+            writer.submit(1).join();
+            fail("La escritura debió fallar");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        writer.close();
+    }
+
+    @Test
+    public void afterCommit_runsOnceTheFuturesAreComplete() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        AtomicBoolean allDone = new AtomicBoolean();
+        CountDownLatch committed = new CountDownLatch(1);
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer",
+                new GroupCommitWriter.BatchSink<Integer>() {
+                    @Override
+                    public long[] writeBatch(List<Integer> batch) {
+                        return new long[batch.size()];
+                    }
+
+                    @Override
+                    public void afterCommit(List<Integer> batch, long[] results) {
+                        boolean done = true;
+                        synchronized (futures) {
+                            for (CompletableFuture<Long> future : futures) {
+                                done &= future.isDone();
+                            }
+                        }
+                        allDone.set(done);
+                        committed.countDown();
+                    }
+                }, 8, 8);
+
+        synchronized (futures) {
+            futures.add(writer.submit(1));
+        }
+        committed.await();
+        assertTrue(allDone.get());
+        writer.close();
+    }
+
+    @Test
+    public void close_appliesPendingWritesAndRejectsNewOnes() throws Exception {
+        FakeSink sink = new FakeSink();
+        GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", sink, 4, 100);
+        List<CompletableFuture<Long>> pending = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            pending.add(writer.submit(i));
+        }
+        writer.close();
+
+        for (CompletableFuture<Long> future : pending) {
+            assertTrue(future.isDone());
+            assertFalse(future.isCompletedExceptionally());
+        }
+        assertTrue(writer.submit(99).isCompletedExceptionally());
+    }
+
+    @Test
+    public void submitRacingClose_alwaysCompletesTheFuture() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            GroupCommitWriter<Integer> writer = new GroupCommitWriter<>("test-writer", new FakeSink(), 4, 100);
+            List<CompletableFuture<Long>> futures = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch start = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    futures.add(writer.submit(i));
+                }
+            });
+            producer.start();
+            start.countDown();
+            writer.close();
+            producer.join();
+
+            // Aplicada antes del cierre o rechazada, pero nunca colgada
+            for (CompletableFuture<Long> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException expected) {
+                    assertTrue(expected.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+    }
+}
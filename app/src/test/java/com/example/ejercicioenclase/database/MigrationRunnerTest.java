@@ -0,0 +1,62 @@
+package com.example.ejercicioenclase.database;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la resolución del orden de migraciones
+ */
+public class MigrationRunnerTest {
+
+    private static Migration step(int from, int to) {
+        return new Migration(from, to) {
+            @Override
+            public void migrate(Sql db) {
+            }
+        };
+    }
+
+    @Test
+    public void findPath_returnsStepsInVersionOrder() {
+        Migration v1 = step(1, 2);
+        Migration v2 = step(2, 3);
+        Migration v3 = step(3, 4);
+        MigrationRunner runner = new MigrationRunner(v3, v1, v2);
+
+        List<Migration> path = runner.findPath(1, 4);
+
+        assertEquals(3, path.size());
+        assertSame(v1, path.get(0));
+        assertSame(v2, path.get(1));
+        assertSame(v3, path.get(2));
+    }
+
+    @Test
+    public void findPath_startsFromIntermediateVersion() {
+        Migration v2 = step(2, 3);
+        MigrationRunner runner = new MigrationRunner(step(1, 2), v2);
+
+        List<Migration> path = runner.findPath(2, 3);
+
+        assertEquals(1, path.size());
+        assertSame(v2, path.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void findPath_failsWhenStepIsMissing() {
+        new MigrationRunner(step(1, 2), step(3, 4)).findPath(1, 4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void findPath_failsOnDuplicateStep() {
+        new MigrationRunner(step(1, 2), step(1, 2)).findPath(1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void migration_mustAdvanceOneVersion() {
+        step(1, 3);
+    }
+}
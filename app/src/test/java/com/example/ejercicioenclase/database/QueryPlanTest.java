@@ -0,0 +1,155 @@
+package com.example.ejercicioenclase.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del plan de las búsquedas sobre SQLite por JDBC, con el esquema de
+ * DatabaseHelper.schemaStatements: cada consulta usa su índice o la tabla FTS
+ * y ninguna recorre la tabla de usuarios completa
+ */
+public class QueryPlanTest {
+    private static final int ROWS = 2_000;
+
+    private File file;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("query-plan", ".db").toFile();
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : DatabaseHelper.schemaStatements()) {
+                statement.execute(sql);
+            }
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(DatabaseHelper.INSERT_USER)) {
+            for (int i = 0; i < ROWS; i++) {
+                insert.setString(1, "Nombre" + i);
+                insert.setString(2, i % 10 == 0 ? "Quispe" : "Apellido" + (i % 100));
+                insert.setString(3, "01/02/1990");
+                insert.setString(4, "Otro");
+                insert.setString(5, i % 3 == 0 ? "Peruana" : "Chilena");
+                insert.setString(6, "huella-" + i);
+                insert.setLong(7, 100 + i);
+                insert.setLong(8, 1_700_000_000_000L + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        // Con estadísticas, como una base de datos que ya lleva tiempo en uso
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    /**
+     * Detalle de cada paso del plan de la consulta con los parámetros indicados
+     */
+    private List<String> plan(String query, Object... args) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + query)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    steps.add(result.getString("detail"));
+                }
+            }
+        }
+        return steps;
+    }
+
+    private static void assertUses(List<String> plan, String access) {
+        for (String step : plan) {
+            if (step.contains(access)) {
+                return;
+            }
+        }
+        fail("El plan no usa " + access + ": " + plan);
+    }
+
+    // "SCAN users" sin índice es un recorrido completo de la tabla
+    private static void assertNoFullScan(List<String> plan) {
+        for (String step : plan) {
+            if (step.startsWith("SCAN ") && !step.contains(" USING ") && !step.contains("VIRTUAL TABLE")) {
+                fail("Recorrido completo en el plan: " + plan);
+            }
+        }
+    }
+
+    private int rowCount(String query, Object... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            int rows = 0;
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    @Test
+    public void searchByName_usesFtsAndPrimaryKey() throws SQLException {
+        String match = DatabaseHelper.buildPrefixMatch("quis");
+        List<String> plan = plan(DatabaseHelper.SEARCH_BY_NAME, match, 50);
+
+        assertUses(plan, "VIRTUAL TABLE");
+        assertUses(plan, "INTEGER PRIMARY KEY");
+        assertNoFullScan(plan);
+        assertEquals(50, rowCount(DatabaseHelper.SEARCH_BY_NAME, match, 50));
+    }
+
+    @Test
+    public void usersByNacionalidad_usesIndex() throws SQLException {
+        List<String> plan = plan(DatabaseHelper.USERS_BY_NACIONALIDAD, "Peruana", 50);
+
+        assertUses(plan, "idx_users_nacionalidad");
+        assertNoFullScan(plan);
+        assertEquals(50, rowCount(DatabaseHelper.USERS_BY_NACIONALIDAD, "Peruana", 50));
+    }
+
+    @Test
+    public void lookupsByHuella_useIndex() throws SQLException {
+        for (String query : new String[]{DatabaseHelper.USER_BY_HUELLA, DatabaseHelper.FIND_HUELLA}) {
+            List<String> plan = plan(query, "huella-7");
+            assertUses(plan, "idx_users_huella_id");
+            assertNoFullScan(plan);
+            assertEquals(1, rowCount(query, "huella-7"));
+        }
+
+        List<String> plan = plan(DatabaseHelper.FIND_SCAN, "huella-7", 1_700_000_000_007L);
+        assertUses(plan, "idx_users_huella_id");
+        assertNoFullScan(plan);
+        assertEquals(1, rowCount(DatabaseHelper.FIND_SCAN, "huella-7", 1_700_000_000_007L));
+    }
+}
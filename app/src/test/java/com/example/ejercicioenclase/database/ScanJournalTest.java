@@ -0,0 +1,337 @@
+package com.example.ejercicioenclase.database;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del diario de escaneos, incluidas caídas a mitad de escritura
+ */
+public class ScanJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UserCodec codec = new UserCodec(new NationalityRegistry(
+            new String[]{"Chilena", "Peruana"}, new String[0]));
+
+    private static User scan(int i) {
+        User user = new User("Nombre" + i, "Apellido" + i, "01/02/1990", "Otro");
+        user.setNacionalidad(i % 2 == 0 ? "Chilena" : "Peruana");
+        user.setHuellaId(FingerprintTemplate.idFromLong(1000L + i));
+        user.setTiempoEscaneo(100 + i);
+        user.setFechaEscaneo(1_700_000_000_000L + i);
+        return user;
+    }
+
+    // Los escaneos pares traen la plantilla de una huella nueva
+    private static ScanJournal.Entry entry(int i) {
+        return new ScanJournal.Entry(scan(i), i % 2 == 0 ? SyntheticTemplateGenerator.templateFor("scan-" + i) : null);
+    }
+
+    private static void assertSameScan(ScanJournal.Entry expected, ScanJournal.Entry actual) {
+        assertSameScan(expected.getUser(), actual.getUser());
+        assertArrayEquals(expected.getTemplate(), actual.getTemplate());
+    }
+
+    private static void assertSameScan(User expected, User actual) {
+        assertEquals(expected.getNombre(), actual.getNombre());
+        assertEquals(expected.getNacionalidad(), actual.getNacionalidad());
+        assertEquals(expected.getHuellaId(), actual.getHuellaId());
+        assertEquals(expected.getTiempoEscaneo(), actual.getTiempoEscaneo());
+        assertEquals(expected.getFechaEscaneo(), actual.getFechaEscaneo());
+    }
+
+    @Test
+    public void reopen_recoversUnreleasedScansInOrder() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            assertTrue(journal.takeRecovered().isEmpty());
+            for (int i = 0; i < 100; i++) {
+                journal.append(entry(i));
+            }
+            journal.sync();
+            // Se aplicó un lote y el proceso murió antes de liberarlo: se vuelve a entregar
+            assertEquals(100, journal.pendingCount());
+        }
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            List<ScanJournal.Entry> recovered = journal.takeRecovered();
+            assertEquals(100, recovered.size());
+            for (int i = 0; i < 100; i++) {
+                assertSameScan(entry(i), recovered.get(i));
+            }
+            assertTrue(journal.takeRecovered().isEmpty());
+            assertEquals(100, journal.pendingCount());
+        }
+    }
+
+    @Test
+    public void release_emptiesJournalOnlyWhenNothingIsPending() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            ScanJournal.Entry first = entry(1);
+            ScanJournal.Entry second = entry(2);
+            ScanJournal.Entry third = entry(3);
+            journal.append(first);
+            journal.append(second);
+            journal.release(Collections.singletonList(first));
+            assertTrue(file.length() > ScanJournal.HEADER_SIZE);
+
+            journal.append(third);
+            journal.release(Arrays.asList(third, second));
+            assertEquals(ScanJournal.HEADER_SIZE, file.length());
+            assertEquals(0, journal.pendingCount());
+        }
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            assertTrue(journal.takeRecovered().isEmpty());
+        }
+    }
+
+    @Test
+    public void release_rejectsScanThatIsNotPending() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            ScanJournal.Entry scan = entry(1);
+            journal.append(scan);
+            journal.append(entry(2));
+            journal.release(Collections.singletonList(scan));
+            try {
+                journal.release(Collections.singletonList(scan));
+                fail("Se esperaba IllegalStateException");
+            } catch (IllegalStateException expected) {
+                // Ya se había liberado
+            }
+            try {
+                journal.release(Collections.singletonList(entry(3)));
+                fail("Se esperaba IllegalStateException");
+            } catch (IllegalStateException expected) {
+                // Nunca se anexó
+            }
+            assertEquals(1, journal.pendingCount());
+        }
+    }
+
+    @Test
+    public void release_compactsAppliedRecordsWhileOthersArePending() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        int total = 20_000;
+        int lag = 50;
+        long maxSize = 0;
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            // Siempre quedan registros pendientes, así que el diario nunca se vacía del todo
+            List<ScanJournal.Entry> inFlight = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                ScanJournal.Entry scan = entry(i);
+                journal.append(scan);
+                inFlight.add(scan);
+                if (i >= lag) {
+                    journal.release(Collections.singletonList(inFlight.remove(0)));
+                }
+                maxSize = Math.max(maxSize, journal.size());
+            }
+            assertEquals(lag, journal.pendingCount());
+            assertEquals(journal.size(), file.length());
+        }
+        // Sin compactar crecería hasta decenas de MB
+        assertTrue("tamaño máximo " + maxSize, maxSize < 3 * ScanJournal.COMPACT_THRESHOLD);
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            // Los pendientes, precedidos por los ya aplicados desde la última compactación
+            // (al reaplicarlos se detecta que la fila ya existe)
+            List<ScanJournal.Entry> recovered = journal.takeRecovered();
+            assertTrue(recovered.size() >= lag);
+            assertTrue(recovered.size() < total / 10);
+            int first = total - recovered.size();
+            for (int i = 0; i < recovered.size(); i++) {
+                assertSameScan(entry(first + i), recovered.get(i));
+            }
+            journal.release(recovered);
+            assertEquals(ScanJournal.HEADER_SIZE, file.length());
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void release_keepsFailedScanWhileLaterOnesAreCompactedAway() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        int total = 20_000;
+        long maxSize = 0;
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            // El primer escaneo no llegó a la tabla y nunca se libera
+            journal.append(entry(0));
+            for (int i = 1; i < total; i++) {
+                ScanJournal.Entry scan = entry(i);
+                journal.append(scan);
+                journal.release(Collections.singletonList(scan));
+                maxSize = Math.max(maxSize, journal.size());
+            }
+            assertEquals(1, journal.pendingCount());
+        }
+        assertTrue("tamaño máximo " + maxSize, maxSize < 3 * ScanJournal.COMPACT_THRESHOLD);
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            // Se vuelve a entregar, seguido solo de los liberados desde la última compactación
+            List<ScanJournal.Entry> recovered = journal.takeRecovered();
+            assertSameScan(entry(0), recovered.get(0));
+            assertTrue(recovered.size() < total / 10);
+            for (int i = 1; i < recovered.size(); i++) {
+                assertSameScan(entry(total - recovered.size() + i), recovered.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void release_concurrentWithAppends_neverDropsUnreleasedScans() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        int threads = 4;
+        int perThread = 5_000;
+        // Como saveScan: el escaneo se anexa y recién después entra a la cola del escritor,
+        // así que un lote puede liberarse antes de que otro escaneo anterior llegue a ella
+        BlockingQueue<ScanJournal.Entry> queue = new LinkedBlockingQueue<>();
+        Set<String> held = ConcurrentHashMap.newKeySet();
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            ExecutorService appenders = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                appenders.execute(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        ScanJournal.Entry scan = entry(i);
+                        try {
+                            journal.append(scan);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        // Uno de cada cien falla al insertarse y queda pendiente
+                        if (i % 100 == 0) {
+                            held.add(scan.getUser().getNombre());
+                        } else {
+                            queue.add(scan);
+                        }
+                    }
+                });
+            }
+            appenders.shutdown();
+
+            List<ScanJournal.Entry> batch = new ArrayList<>();
+            int released = 0;
+            int expected = threads * perThread - threads * perThread / 100;
+            while (released < expected) {
+                ScanJournal.Entry scan = queue.poll(10, TimeUnit.SECONDS);
+                assertNotNull("el escritor dejó de recibir escaneos", scan);
+                batch.add(scan);
+                queue.drainTo(batch, 63);
+                journal.release(batch);
+                released += batch.size();
+                batch.clear();
+            }
+            assertTrue(appenders.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(held.size(), journal.pendingCount());
+        }
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            Set<String> recovered = new HashSet<>();
+            for (ScanJournal.Entry scan : journal.takeRecovered()) {
+                recovered.add(scan.getUser().getNombre());
+            }
+            assertTrue(recovered.containsAll(held));
+        }
+    }
+
+    @Test
+    public void open_afterCrashAtAnyByte_recoversCompleteRecords() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        int records = 5;
+        long[] recordEnds = new long[records];
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            for (int i = 0; i < records; i++) {
+                journal.append(entry(i));
+                recordEnds[i] = journal.size();
+            }
+        }
+        byte[] full = Files.readAllBytes(file.toPath());
+
+        // Simula la muerte del proceso después de escribir cada prefijo posible del archivo
+        File crashed = new File(folder.getRoot(), "crashed.journal");
+        for (int cut = ScanJournal.HEADER_SIZE; cut <= full.length; cut++) {
+            Files.write(crashed.toPath(), Arrays.copyOf(full, cut));
+            int complete = 0;
+            while (complete < records && recordEnds[complete] <= cut) {
+                complete++;
+            }
+            long expectedSize = complete == 0 ? ScanJournal.HEADER_SIZE : recordEnds[complete - 1];
+
+            try (ScanJournal journal = ScanJournal.open(crashed, codec)) {
+                List<ScanJournal.Entry> recovered = journal.takeRecovered();
+                assertEquals("corte en " + cut, complete, recovered.size());
+                assertEquals("corte en " + cut, expectedSize, crashed.length());
+                // La cola rota se descartó: el siguiente registro queda legible
+                journal.append(entry(99));
+            }
+            try (ScanJournal journal = ScanJournal.open(crashed, codec)) {
+                List<ScanJournal.Entry> recovered = journal.takeRecovered();
+                assertEquals(complete + 1, recovered.size());
+                assertSameScan(entry(99), recovered.get(complete));
+            }
+        }
+    }
+
+    @Test
+    public void open_stopsAtCorruptedRecord() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        List<Long> ends = new ArrayList<>();
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(entry(i));
+                ends.add(journal.size());
+            }
+        }
+
+        // Un byte dañado en el contenido del tercer registro
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            long offset = ends.get(1) + ScanJournal.RECORD_HEADER_SIZE + 3;
+            raw.seek(offset);
+            int value = raw.read();
+            raw.seek(offset);
+            raw.write(value ^ 0x40);
+        }
+
+        try (ScanJournal journal = ScanJournal.open(file, codec)) {
+            assertEquals(2, journal.takeRecovered().size());
+            assertEquals((long) ends.get(1), file.length());
+        }
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void open_rejectsForeignFile() throws Exception {
+        File file = new File(folder.getRoot(), "scans.journal");
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        ScanJournal.open(file, codec);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.ejercicioenclase.database;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las migraciones reales del esquema sobre SQLite por JDBC: una base de
+ * datos de la versión 1 o 2 se lleva a la actual sin perder filas y termina con el
+ * mismo esquema que una instalación nueva
+ */
+public class SchemaMigrationTest {
+
+    // Tabla tal como la creaba la versión 1 de la app, sin índices ni FTS
+    private static final String CREATE_TABLE_USERS_V1 =
+            "CREATE TABLE users("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "nombre TEXT NOT NULL,"
+            + "apellido TEXT NOT NULL,"
+            + "fecha_nacimiento TEXT,"
+            + "genero TEXT,"
+            + "nacionalidad TEXT,"
+            + "huella_id TEXT,"
+            + "tiempo_escaneo INTEGER"
+            + ")";
+
+    private static final String INSERT_USER_V1 =
+            "INSERT INTO users (nombre, apellido, fecha_nacimiento, genero, nacionalidad, huella_id, tiempo_escaneo)"
+            + " VALUES (?,?,?,?,?,?,?)";
+
+    // Propiedad del sistema que activa las pruebas lentas (ver app/build.gradle.kts)
+    private static final String SLOW_TESTS = "slowTests";
+    // Tope para migrar un millón de filas; en una máquina de desarrollo tarda unos 9 s
+    private static final long MILLION_ROWS_BUDGET_MS = 20_000;
+
+    private static final String[] SEARCH_INDEXES = {
+            "idx_users_apellido_nombre",
+            "idx_users_nacionalidad",
+            "idx_users_huella_id"
+    };
+
+    private File directory;
+    private final List<Connection> connections = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("migration-test").toFile();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private Connection open(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                "jdbc:sqlite:" + new File(directory, name).getAbsolutePath());
+        connections.add(connection);
+        return connection;
+    }
+
+    private static Migration.Sql sql(Connection connection) {
+        return sql -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                throw new IllegalStateException(sql, e);
+            }
+        };
+    }
+
+    /**
+     * Como onUpgrade: todas las migraciones dentro de una sola transacción
+     */
+    private static long[] upgrade(Connection connection, int oldVersion) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            long[] stepMillis = DatabaseHelper.MIGRATIONS.migrate(sql(connection),
+                    oldVersion, DatabaseHelper.DATABASE_VERSION);
+            connection.commit();
+            return stepMillis;
+        } catch (RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // Uno de cada diez usuarios se apellida Quispe, para buscarlos por FTS
+    private static String apellido(int i) {
+        return i % 10 == 0 ? "Quispe" : "Apellido" + (i % 100);
+    }
+
+    private static void insertV1Users(Connection connection, int rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER_V1)) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Nombre" + i);
+                insert.setString(2, apellido(i));
+                if (i % 7 == 0) {
+                    insert.setNull(3, Types.VARCHAR);
+                } else {
+                    insert.setString(3, "01/02/1990");
+                }
+                insert.setString(4, i % 2 == 0 ? "Femenino" : "Masculino");
+                insert.setString(5, i % 3 == 0 ? "Peruana" : "Chilena");
+                insert.setString(6, "huella-" + i);
+                insert.setLong(7, 100 + i % 1000);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static long count(Connection connection, String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            assertTrue(result.next());
+            return result.getLong(1);
+        }
+    }
+
+    private static List<String> columns(Connection connection) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA table_info(users)")) {
+            while (result.next()) {
+                columns.add(result.getString("name"));
+            }
+        }
+        return columns;
+    }
+
+    // Tablas, índices, triggers y tablas internas de FTS
+    private static Set<String> schemaObjects(Connection connection) throws SQLException {
+        Set<String> objects = new TreeSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT type, name FROM sqlite_master")) {
+            while (result.next()) {
+                objects.add(result.getString(1) + " " + result.getString(2));
+            }
+        }
+        return objects;
+    }
+
+    private Set<String> freshSchema() throws SQLException {
+        Connection connection = open("fresh.db");
+        Migration.Sql sql = sql(connection);
+        for (String statement : DatabaseHelper.schemaStatements()) {
+            sql.execSQL(statement);
+        }
+        return schemaObjects(connection);
+    }
+
+    /**
+     * Filas, columna nueva, índices y contenido de FTS después de migrar
+     */
+    private void assertMigrated(Connection connection, int rows) throws SQLException {
+        assertEquals(rows, count(connection, "SELECT COUNT(*) FROM users"));
+        assertEquals(Arrays.asList(DatabaseHelper.USER_PROJECTION), columns(connection));
+        // Las filas anteriores no tienen momento de escaneo
+        assertEquals(rows, count(connection, "SELECT COUNT(*) FROM users WHERE fecha_escaneo IS NULL"));
+
+        Set<String> objects = schemaObjects(connection);
+        for (String index : SEARCH_INDEXES) {
+            assertTrue(index, objects.contains("index " + index));
+        }
+        assertEquals(freshSchema(), objects);
+
+        // El índice FTS tiene a todos los usuarios anteriores
+        assertEquals((rows + 9) / 10, count(connection,
+                "SELECT COUNT(*) FROM users_fts WHERE users_fts MATCH 'quispe*'"));
+        assertEquals(rows, count(connection, "SELECT COUNT(*) FROM users_fts"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users_fts(users_fts) VALUES('integrity-check')");
+        }
+
+        // Y los triggers lo mantienen con las filas nuevas
+        try (PreparedStatement insert = connection.prepareStatement(DatabaseHelper.INSERT_USER)) {
+            insert.setString(1, "Wilfredo");
+            insert.setString(2, "Zambrano");
+            insert.setNull(3, Types.VARCHAR);
+            insert.setString(4, "Masculino");
+            insert.setString(5, "Chilena");
+            insert.setString(6, "huella-nueva");
+            insert.setLong(7, 250);
+            insert.setLong(8, 1_700_000_000_000L);
+            insert.executeUpdate();
+        }
+        assertEquals(1, count(connection, "SELECT COUNT(*) FROM users_fts WHERE users_fts MATCH 'zamb*'"));
+        assertEquals(1, count(connection, "SELECT COUNT(*) FROM users WHERE fecha_escaneo = 1700000000000"));
+    }
+
+    @Test
+    public void upgradeFromVersion1_keepsRowsAndBuildsSearchSchema() throws SQLException {
+        Connection connection = open("v1.db");
+        sql(connection).execSQL(CREATE_TABLE_USERS_V1);
+        insertV1Users(connection, 5_000);
+
+        long[] stepMillis = upgrade(connection, 1);
+
+        assertEquals(DatabaseHelper.DATABASE_VERSION - 1, stepMillis.length);
+        assertMigrated(connection, 5_000);
+    }
+
+    @Test
+    public void upgradeFromVersion2_onlyAddsScanDate() throws SQLException {
+        Connection connection = open("v2.db");
+        sql(connection).execSQL(CREATE_TABLE_USERS_V1);
+        insertV1Users(connection, 5_000);
+        DatabaseHelper.MIGRATIONS.migrate(sql(connection), 1, 2);
+        assertFalse(columns(connection).contains(DatabaseHelper.COLUMN_FECHA_ESCANEO));
+
+        long[] stepMillis = upgrade(connection, 2);
+
+        assertEquals(DatabaseHelper.DATABASE_VERSION - 2, stepMillis.length);
+        assertMigrated(connection, 5_000);
+    }
+
+    @Test
+    public void failedUpgrade_leavesVersion1Untouched() throws SQLException {
+        Connection connection = open("v1-roto.db");
+        sql(connection).execSQL(CREATE_TABLE_USERS_V1);
+        insertV1Users(connection, 100);
+        // El último paso choca con una columna que ya existe
+        sql(connection).execSQL("ALTER TABLE users ADD COLUMN fecha_escaneo INTEGER");
+        Set<String> before = schemaObjects(connection);
+
+        try {
+            upgrade(connection, 1);
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // La transacción se revierte completa, incluidos los índices del primer paso
+        }
+        assertEquals(before, schemaObjects(connection));
+        assertEquals(100, count(connection, "SELECT COUNT(*) FROM users"));
+    }
+
+    /**
+     * Prueba lenta (unos 15 s): solo corre con ./gradlew test -PslowTests. El tiempo de
+     * cada paso se sigue en MigrationBenchmark; aquí solo se controla el presupuesto.
+     */
+    @Test
+    public void upgradeMillionRowsFromVersion1_withinBudget() throws SQLException {
+        Assume.assumeTrue("Prueba lenta; activar con -PslowTests", Boolean.getBoolean(SLOW_TESTS));
+        int rows = 1_000_000;
+        Connection connection = open("v1-grande.db");
+        sql(connection).execSQL(CREATE_TABLE_USERS_V1);
+        insertV1Users(connection, rows);
+
+        long start = System.nanoTime();
+        long[] stepMillis = upgrade(connection, 1);
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("Migración de " + rows + " filas en " + totalMillis + " ms (por paso "
+                        + Arrays.toString(stepMillis) + " ms)", totalMillis < MILLION_ROWS_BUDGET_MS);
+        assertMigrated(connection, rows);
+    }
+}
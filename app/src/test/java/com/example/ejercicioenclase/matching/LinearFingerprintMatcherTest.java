@@ -0,0 +1,70 @@
+package com.example.ejercicioenclase.matching;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la identificación 1:N secuencial
+ */
+public class LinearFingerprintMatcherTest {
+
+    @Test
+    public void identify_findsRescanOfEnrolledFinger() {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(42);
+        TemplateIndex index = new TemplateIndex();
+        byte[][] fingers = new byte[2000][];
+        for (int i = 0; i < fingers.length; i++) {
+            fingers[i] = generator.nextTemplate();
+            index.add(i + 1, fingers[i]);
+        }
+        FingerprintMatcher matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+
+        MatchResult result = matcher.identify(generator.capture(fingers[1234]));
+
+        assertTrue(result.isMatch());
+        assertEquals(1235, result.key);
+        assertTrue(result.distance <= SyntheticTemplateGenerator.CAPTURE_NOISE * FingerprintTemplate.SIZE);
+    }
+
+    @Test
+    public void identify_rejectsUnknownFinger() {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(7);
+        TemplateIndex index = new TemplateIndex();
+        for (int i = 0; i < 500; i++) {
+            index.add(i + 1, generator.nextTemplate());
+        }
+        FingerprintMatcher matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+
+        assertFalse(matcher.identify(generator.nextTemplate()).isMatch());
+    }
+
+    @Test
+    public void remove_excludesTemplateAndCompacts() {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(3);
+        TemplateIndex index = new TemplateIndex();
+        byte[][] fingers = new byte[10][];
+        for (int i = 0; i < fingers.length; i++) {
+            fingers[i] = generator.nextTemplate();
+            index.add(i + 1, fingers[i]);
+        }
+        FingerprintMatcher matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+
+        for (int key = 1; key <= 4; key++) {
+            assertTrue(index.remove(key));
+        }
+
+        assertEquals(6, index.size());
+        assertTrue(index.slotCount() < fingers.length);
+        assertFalse(matcher.identify(fingers[0]).isMatch());
+        assertEquals(10, matcher.identify(fingers[9]).key);
+    }
+
+    @Test
+    public void templateFor_isStablePerIdentity() {
+        assertArrayEquals(SyntheticTemplateGenerator.templateFor("Ana|Pérez|01/02/1990"),
+                SyntheticTemplateGenerator.templateFor("Ana|Pérez|01/02/1990"));
+        assertEquals(FingerprintTemplate.fingerprintId(SyntheticTemplateGenerator.templateFor("a")),
+                FingerprintTemplate.fingerprintId(SyntheticTemplateGenerator.templateFor("a")));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ejercicioenclase.matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del almacén de plantillas mapeado en memoria
+ */
+public class MappedTemplateStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopen_keepsAppendedTemplates() throws Exception {
+        File file = new File(folder.getRoot(), "templates.bin");
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(1);
+        byte[][] fingers = new byte[3000][];
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            for (int i = 0; i < fingers.length; i++) {
+                fingers[i] = generator.nextTemplate();
+                store.append(i + 1, fingers[i]);
+            }
+        }
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            assertEquals(fingers.length, store.count());
+            TemplateIndex index = TemplateIndex.wrap(store.records(), store.count(), store.deleted());
+            FingerprintMatcher matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+            assertEquals(2500, matcher.identify(generator.capture(fingers[2499])).key);
+        }
+    }
+
+    @Test
+    public void reopen_ignoresTornAppend() throws Exception {
+        File file = new File(folder.getRoot(), "templates.bin");
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(2);
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            store.append(1, generator.nextTemplate());
+            store.append(2, generator.nextTemplate());
+        }
+
+        // Simula una caída después de escribir parte del tercer registro sin actualizar el contador
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(MappedTemplateStore.HEADER_SIZE + 2L * TemplateIndex.RECORD_SIZE);
+            raw.writeLong(3);
+            raw.write(new byte[10]);
+        }
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            assertEquals(2, store.count());
+            store.append(3, generator.nextTemplate());
+            assertEquals(3, store.count());
+        }
+    }
+
+    @Test
+    public void remove_compactsAndSurvivesReopen() throws Exception {
+        File file = new File(folder.getRoot(), "templates.bin");
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(3);
+        byte[] kept = null;
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            for (int i = 1; i <= 8; i++) {
+                byte[] template = generator.nextTemplate();
+                if (i == 8) {
+                    kept = template;
+                }
+                store.append(i, template);
+            }
+            for (int key = 1; key <= 3; key++) {
+                assertTrue(store.remove(key));
+            }
+            assertFalse(store.remove(42));
+            // 3 borrados de 8 superan la cuarta parte: el archivo ya se compactó
+            assertEquals(5, store.count());
+            assertEquals(0, store.deleted());
+        }
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            TemplateIndex index = TemplateIndex.wrap(store.records(), store.count(), store.deleted());
+            assertEquals(5, index.size());
+            assertEquals(4, index.keyAt(0));
+            FingerprintMatcher matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+            assertEquals(8, matcher.identify(kept).key);
+        }
+        assertFalse(new File(file.getPath() + ".compact").exists());
+    }
+
+    @Test
+    public void appendAll_isFoundByKeyAfterReopen() throws Exception {
+        File file = new File(folder.getRoot(), "templates.bin");
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(4);
+        int n = 2000;
+        long[] keys = new long[n];
+        byte[][] templates = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            // Claves fuera de orden, como las filas de lotes reaplicados
+            keys[i] = (i * 7919L) % n + 1;
+            templates[i] = generator.nextTemplate();
+        }
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            store.appendAll(keys, templates, n);
+            assertTrue(store.remove(keys[10]));
+        }
+
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            assertEquals(n, store.count());
+            TemplateIndex index = TemplateIndex.wrap(store.records(), store.count(), store.deleted());
+            TemplateIndex.KeyLookup lookup = index.keyLookup();
+            byte[] copy = new byte[FingerprintTemplate.SIZE];
+            for (int i = 0; i < n; i++) {
+                int slot = lookup.slotOf(keys[i]);
+                if (i == 10) {
+                    assertEquals(-1, slot);
+                    continue;
+                }
+                index.copyTemplate(slot, copy);
+                assertArrayEquals(templates[i], copy);
+            }
+            assertEquals(-1, lookup.slotOf(n + 1));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ejercicioenclase.matching;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la identificación 1:N en paralelo
+ */
+public class ParallelFingerprintMatcherTest {
+
+    private static final int GALLERY_SIZE = 50_000;
+
+    @Test
+    public void identify_agreesWithLinearMatcher() {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(11);
+        TemplateIndex index = new TemplateIndex();
+        byte[][] fingers = new byte[GALLERY_SIZE][];
+        for (int i = 0; i < fingers.length; i++) {
+            fingers[i] = generator.nextTemplate();
+            index.add(i + 1, fingers[i]);
+        }
+        FingerprintMatcher linear = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+        ParallelFingerprintMatcher parallel = new ParallelFingerprintMatcher(index,
+                MatchingEngine.ACCEPT_DISTANCE, MatchingEngine.EARLY_STOP_DISTANCE, 3, 4);
+
+        try {
+            for (int i = 0; i < fingers.length; i += 4999) {
+                byte[] probe = generator.capture(fingers[i]);
+                assertEquals(linear.identify(probe).key, parallel.identify(probe).key);
+            }
+            assertFalse(parallel.identify(generator.nextTemplate()).isMatch());
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void identifyCandidates_areSortedByDistance() {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(5);
+        TemplateIndex index = new TemplateIndex();
+        byte[] finger = generator.nextTemplate();
+        for (int i = 0; i < 10_000; i++) {
+            index.add(i + 1, generator.nextTemplate());
+        }
+        // Tres capturas del mismo dedo enroladas con claves distintas
+        index.add(20_001, generator.capture(finger));
+        index.add(20_002, generator.capture(finger));
+        index.add(20_003, finger);
+
+        // Sin parada temprana para obtener todos los candidatos
+        ParallelFingerprintMatcher parallel = new ParallelFingerprintMatcher(index,
+                MatchingEngine.ACCEPT_DISTANCE, -1, 5, 2);
+        try {
+            MatchResult[] candidates = parallel.identifyCandidates(finger);
+
+            assertEquals(3, candidates.length);
+            assertEquals(20_003, candidates[0].key);
+            assertEquals(0, candidates[0].distance);
+            assertTrue(candidates[1].distance <= candidates[2].distance);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ejercicioenclase.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del histograma de latencias logarítmico-lineal
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void indexOf_isMonotonicAndInvertible() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index >= previous);
+            assertTrue(LatencyHistogram.lowestValueOf(index) <= value);
+            previous = index;
+        }
+        long max = LatencyHistogram.MAX_VALUE;
+        assertEquals(LatencyHistogram.indexOf(max), LatencyHistogram.indexOf(LatencyHistogram.lowestValueOf(LatencyHistogram.indexOf(max))));
+    }
+
+    @Test
+    public void percentiles_areWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(3);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Distribución de cola larga, entre microsegundos y segundos
+            values[i] = (long) Math.exp(7 + random.nextDouble() * 14);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        for (double p : new double[]{50, 95, 99}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            assertEquals(exact, histogram.percentile(p), exact * 0.032);
+        }
+    }
+
+    @Test
+    public void record_isSafeFromManyThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(1_000 + i % 100);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * perThread, histogram.count());
+        assertEquals(1_050, histogram.percentile(50), 1_050 * 0.032);
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ejercicioenclase.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NationalityRegistryTest {
+    private static final String[] NACIONALIDADES = {
+            "Argentina", "Guatemalteca", "Mexicana", "Estadounidense", "Canadiense"
+    };
+    private static final String[] RESTRINGIDAS = {"Guatemalteca", "Estadounidense"};
+
+    private final NationalityRegistry registry = new NationalityRegistry(NACIONALIDADES, RESTRINGIDAS);
+
+    @Test
+    public void restrictedLookupIgnoresCase() {
+        assertTrue(registry.isRestricted("Guatemalteca"));
+        assertTrue(registry.isRestricted("ESTADOUNIDENSE"));
+        assertTrue(registry.isRestricted("guatemalteca"));
+        assertFalse(registry.isRestricted("Mexicana"));
+        assertFalse(registry.isRestricted("Desconocida"));
+        assertFalse(registry.isRestricted((String) null));
+    }
+
+    @Test
+    public void codesRoundTrip() {
+        for (String nacionalidad : NACIONALIDADES) {
+            assertEquals(nacionalidad, registry.nameOf(registry.codeOf(nacionalidad)));
+        }
+        assertEquals(NationalityRegistry.UNKNOWN, registry.codeOf("Desconocida"));
+        assertNull(registry.nameOf(NationalityRegistry.UNKNOWN));
+    }
+
+    @Test
+    public void randomAllowedNeverPicksRestricted() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            short code = registry.randomAllowed(random);
+            assertFalse(registry.isRestricted(code));
+            assertTrue(registry.isAllowed(registry.nameOf(code)));
+        }
+    }
+
+    @Test
+    public void validateFlagsRestrictedAndUnknown() {
+        BitSet rejected = registry.validate(Arrays.asList(
+                user("Argentina"), user("guatemalteca"), user("Desconocida"), user("Canadiense")));
+
+        assertEquals(2, rejected.cardinality());
+        assertTrue(rejected.get(1));
+        assertTrue(rejected.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnregisteredRestriction() {
+        new NationalityRegistry(new String[]{"Argentina"}, new String[]{"Guatemalteca"});
+    }
+
+    private static User user(String nacionalidad) {
+        User user = new User();
+        user.setNacionalidad(nacionalidad);
+        return user;
+    }
+}
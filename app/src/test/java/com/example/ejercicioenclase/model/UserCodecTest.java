@@ -0,0 +1,87 @@
+package com.example.ejercicioenclase.model;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.util.EpochDays;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la codificación binaria compacta de usuarios
+ */
+public class UserCodecTest {
+    private final UserCodec codec = new UserCodec(new NationalityRegistry(
+            new String[]{"Argentina", "Chilena", "Guatemalteca"}, new String[]{"Guatemalteca"}));
+
+    private static User user(String fecha, String genero, String nacionalidad, String huellaId) {
+        User user = new User("Ana", "Pérez", fecha, genero);
+        user.setId(42);
+        user.setNacionalidad(nacionalidad);
+        user.setHuellaId(huellaId);
+        user.setTiempoEscaneo(1234);
+        return user;
+    }
+
+    private User roundTrip(User user) throws IOException {
+        byte[] data = codec.encode(user);
+        return codec.decode(data, 0, data.length);
+    }
+
+    private static void assertSameUser(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getNombre(), actual.getNombre());
+        assertEquals(expected.getApellido(), actual.getApellido());
+        assertEquals(expected.getFechaNacimiento(), actual.getFechaNacimiento());
+        assertEquals(expected.getGenero(), actual.getGenero());
+        assertEquals(expected.getNacionalidad(), actual.getNacionalidad());
+        assertEquals(expected.getHuellaId(), actual.getHuellaId());
+        assertEquals(expected.getTiempoEscaneo(), actual.getTiempoEscaneo());
+    }
+
+    @Test
+    public void roundTrip_canonicalValuesUseCodes() throws IOException {
+        User user = user("29/02/2000", "Femenino", "Chilena", FingerprintTemplate.idFromLong(0x8000_0000_0000_00ffL));
+        assertSameUser(user, roundTrip(user));
+
+        // banderas, id, tiempo, fecha de escaneo, dos textos, fecha, género, nacionalidad y huella
+        int expectedLength = 1 + 4 + 8 + 8 + (1 + 2 + 3) + (1 + 2 + 6) + 4 + 1 + 2 + 8;
+        assertEquals(expectedLength, codec.encode(user).length);
+    }
+
+    @Test
+    public void roundTrip_nonCanonicalValuesFallBackToText() throws IOException {
+        assertSameUser(user("1/2/1990", "otro", "CHILENA", "FP-1"), roundTrip(user("1/2/1990", "otro", "CHILENA", "FP-1")));
+        assertSameUser(user("31/02/1990", "X", "Desconocida", "FP-ABCDEF0123456789"),
+                roundTrip(user("31/02/1990", "X", "Desconocida", "FP-ABCDEF0123456789")));
+        assertSameUser(new User(), roundTrip(new User()));
+    }
+
+    @Test
+    public void epochDays_matchesJavaTime() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+        for (LocalDate date = LocalDate.of(1899, 12, 25); date.getYear() < 2101; date = date.plusDays(3)) {
+            String text = date.format(formatter);
+            assertEquals(text, date.toEpochDay(), EpochDays.parse(text));
+            assertEquals(text, EpochDays.format((int) date.toEpochDay()));
+        }
+        assertEquals(EpochDays.INVALID, EpochDays.parse("29/02/1900"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("00/01/2000"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("1/01/2000"));
+    }
+
+    @Test
+    public void fingerprintId_roundTrips() {
+        for (long value : new long[]{0, 1, -1, Long.MIN_VALUE, 0x0123456789abcdefL}) {
+            String id = FingerprintTemplate.idFromLong(value);
+            assertEquals(String.format("FP-%016x", value), id);
+            assertTrue(FingerprintTemplate.isCanonicalId(id));
+            assertEquals(value, FingerprintTemplate.idToLong(id));
+        }
+        assertFalse(FingerprintTemplate.isCanonicalId("FP-0123456789ABCDEF"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ejercicioenclase.repository;
+
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de la caché LRU de usuarios por ID de huella
+ */
+public class UserCacheTest {
+    private final UserCodec codec = new UserCodec(new NationalityRegistry(
+            new String[]{"Chilena", "Peruana"}, new String[0]));
+
+    private static User user(int id, String huellaId) {
+        User user = new User("Ana", "Pérez", "01/02/1990", "Femenino");
+        user.setId(id);
+        user.setHuellaId(huellaId);
+        user.setNacionalidad("Chilena");
+        return user;
+    }
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        UserCache cache = new UserCache(10, Long.MAX_VALUE, codec);
+        cache.put(user(1, "FP-1"));
+
+        assertEquals(1, cache.get("FP-1").getId());
+        assertNull(cache.get("FP-2"));
+        assertEquals(1, cache.getByUserId(1).getId());
+        assertNull(cache.getByUserId(2));
+
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedByEntryCount() {
+        UserCache cache = new UserCache(2, Long.MAX_VALUE, codec);
+        cache.put(user(1, "FP-1"));
+        cache.put(user(2, "FP-2"));
+        cache.get("FP-1");
+        cache.put(user(3, "FP-3"));
+
+        assertNotNull(cache.get("FP-1"));
+        assertNull(cache.get("FP-2"));
+        assertNotNull(cache.get("FP-3"));
+        assertEquals(1, cache.evictionCount());
+        assertNull(cache.getByUserId(2));
+    }
+
+    @Test
+    public void put_evictsByMemoryBound() {
+        long entrySize = UserCache.estimateSize("FP-1", codec.encode(user(1, "FP-1")));
+        UserCache cache = new UserCache(100, entrySize * 3, codec);
+        for (int i = 1; i <= 5; i++) {
+            cache.put(user(i, "FP-" + i));
+        }
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.sizeInBytes() <= entrySize * 3);
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    public void invalidateUser_removesEntryAndAccounting() {
+        UserCache cache = new UserCache(10, Long.MAX_VALUE, codec);
+        cache.put(user(7, "FP-7"));
+        cache.invalidateUser(7);
+
+        assertNull(cache.get("FP-7"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    public void put_replacesEntryForSameHuellaId() {
+        UserCache cache = new UserCache(10, Long.MAX_VALUE, codec);
+        cache.put(user(1, "FP-1"));
+        cache.put(user(9, "FP-1"));
+
+        assertEquals(1, cache.size());
+        assertEquals(9, cache.get("FP-1").getId());
+        assertNull(cache.getByUserId(1));
+    }
+
+    @Test
+    public void get_returnsIndependentCopies() {
+        UserCache cache = new UserCache(10, Long.MAX_VALUE, codec);
+        User original = user(4, "FP-4");
+        cache.put(original);
+        original.setNombre("Cambiado");
+
+        User cached = cache.get("FP-4");
+        assertEquals("Ana", cached.getNombre());
+        assertEquals("01/02/1990", cached.getFechaNacimiento());
+        assertEquals("Femenino", cached.getGenero());
+        assertEquals("Chilena", cached.getNacionalidad());
+        cached.setGenero("Otro");
+        assertEquals("Femenino", cache.getByUserId(4).getGenero());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.ejercicioenclase.util;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del respaldo binario: ida y vuelta con varios bloques y detección de daños
+ */
+public class BackupWriterTest {
+    private static final int SCHEMA_VERSION = 3;
+
+    private final UserCodec codec = new UserCodec(new NationalityRegistry(
+            new String[]{"Chilena", "Peruana"}, new String[0]));
+
+    private static User user(int i) {
+        User user = new User("Nombre" + i, "Apellido, " + i, i % 7 == 0 ? null : "01/02/1990", "Otro");
+        // Valores sin forma canónica se guardan como texto
+        user.setNacionalidad(i % 3 == 0 ? "Marciana" : "Chilena");
+        user.setHuellaId(i % 5 == 0 ? "huella-" + i : FingerprintTemplate.idFromLong(i));
+        user.setId(i + 1);
+        user.setTiempoEscaneo(100 + i);
+        user.setFechaEscaneo(1_700_000_000_000L + i);
+        return user;
+    }
+
+    // Uno de cada cuatro usuarios sin plantilla enrolada
+    private static byte[] template(int i) {
+        return i % 4 == 0 ? null : SyntheticTemplateGenerator.templateFor("usuario-" + i);
+    }
+
+    private byte[] backup(int rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BackupWriter writer = new BackupWriter(out, codec, SCHEMA_VERSION);
+        for (int i = 0; i < rows; i++) {
+            writer.write(user(i), template(i));
+        }
+        writer.finish();
+        assertEquals(rows, writer.getRecordCount());
+        return out.toByteArray();
+    }
+
+    private long readAll(byte[] data) throws IOException {
+        BackupReader reader = new BackupReader(new ByteArrayInputStream(data), codec);
+        long rows = 0;
+        while (reader.next() != null) {
+            rows++;
+        }
+        return rows;
+    }
+
+    @Test
+    public void roundTrip_acrossManyBlocks() throws IOException {
+        int rows = 20_000;
+        byte[] data = backup(rows);
+
+        BackupReader reader = new BackupReader(new ByteArrayInputStream(data), codec);
+        assertEquals(SCHEMA_VERSION, reader.getSchemaVersion());
+        for (int i = 0; i < rows; i++) {
+            User expected = user(i);
+            User actual = reader.next();
+            assertNotNull(actual);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getNombre(), actual.getNombre());
+            assertEquals(expected.getApellido(), actual.getApellido());
+            assertEquals(expected.getFechaNacimiento(), actual.getFechaNacimiento());
+            assertEquals(expected.getGenero(), actual.getGenero());
+            assertEquals(expected.getNacionalidad(), actual.getNacionalidad());
+            assertEquals(expected.getHuellaId(), actual.getHuellaId());
+            assertEquals(expected.getTiempoEscaneo(), actual.getTiempoEscaneo());
+            assertEquals(expected.getFechaEscaneo(), actual.getFechaEscaneo());
+            assertArrayEquals(template(i), reader.getTemplate());
+        }
+        assertNull(reader.next());
+        assertEquals(rows, reader.getRecordCount());
+        assertEquals(data.length, reader.getBytesRead());
+        // Los usuarios repetitivos se comprimen a menos de 20 bytes por registro más las plantillas
+        assertTrue(data.length < rows * (20 + FingerprintTemplate.SIZE));
+    }
+
+    @Test
+    public void emptyBackup_hasNoRecords() throws IOException {
+        assertEquals(0, readAll(backup(0)));
+    }
+
+    @Test
+    public void truncatedBackup_isRejected() throws IOException {
+        byte[] data = backup(5_000);
+        for (int cut : new int[]{3, 16, 20, data.length / 2, data.length - 1}) {
+            try {
+                readAll(Arrays.copyOf(data, cut));
+                fail("Se esperaba IOException al cortar en " + cut);
+            } catch (IOException expected) {
+                // El archivo termina antes de la marca de fin
+            }
+        }
+    }
+
+    @Test
+    public void corruptedBlock_isRejected() throws IOException {
+        byte[] data = backup(5_000);
+        // Un byte dentro de los datos comprimidos del primer bloque
+        data[16 + 16 + 100] ^= 0x40;
+        try {
+            readAll(data);
+            fail("Se esperaba IOException");
+        } catch (IOException expected) {
+            // Falla la descompresión o el CRC
+        }
+    }
+
+    @Test
+    public void otherFiles_areRejected() {
+        try {
+            new BackupReader(new ByteArrayInputStream(CsvExporter.HEADER.getBytes()), codec);
+            fail("Se esperaba IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("no es un respaldo"));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.ejercicioenclase.util;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.model.User;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del lector CSV (inverso del escape de la exportación) y del importador por lotes
+ */
+public class CsvImporterTest {
+
+    /**
+     * Tabla simulada: omite los IDs de huella ya guardados, como DatabaseHelper.importUsers
+     */
+    private static final class FakeTable implements CsvImporter.BatchSink {
+        final List<User> rows = new ArrayList<>();
+        final List<byte[]> templates = new ArrayList<>();
+        final Set<String> huellas = new HashSet<>();
+        int batches;
+
+        @Override
+        public long[] insertBatch(List<User> batch, List<byte[]> batchTemplates, BitSet duplicates) {
+            batches++;
+            long[] ids = new long[batch.size()];
+            for (int i = 0; i < ids.length; i++) {
+                User user = batch.get(i);
+                if (user.getHuellaId() != null && !huellas.add(user.getHuellaId())) {
+                    duplicates.set(i);
+                    ids[i] = 1;
+                    continue;
+                }
+                rows.add(user);
+                templates.add(batchTemplates.get(i));
+                ids[i] = rows.size();
+            }
+            return ids;
+        }
+    }
+
+    private static InputStream utf8(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String row(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            Utils.appendCsvField(sb, fields[i]);
+        }
+        return sb.append('\n').toString();
+    }
+
+    @Test
+    public void reader_invertsExportEscaping() throws IOException {
+        String[] fields = {"simple", "con, coma", "con \"comillas\"", "varias\nlíneas", "", "\"", "ñandú"};
+        String csv = row(fields) + row("b") + "ultimo,sin fin de línea";
+
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        assertTrue(reader.next());
+        assertEquals(fields.length, reader.fieldCount());
+        for (int i = 0; i < fields.length; i++) {
+            assertEquals(fields[i].isEmpty() ? null : fields[i], reader.field(i));
+        }
+        assertTrue(reader.next());
+        assertEquals(3, reader.lineNumber());
+        assertEquals("b", reader.field(0));
+        assertTrue(reader.next());
+        assertEquals("sin fin de línea", reader.field(1));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void reader_acceptsCrLfAndReportsUnclosedQuotes() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\r\nc\"\r\n\r\nd\r\n"));
+        assertTrue(reader.next());
+        assertEquals("b\r\nc", reader.field(1));
+        assertTrue(reader.next());
+        assertTrue(reader.isBlankLine());
+        assertTrue(reader.next());
+        assertEquals("d", reader.field(0));
+        assertFalse(reader.next());
+
+        CsvReader broken = new CsvReader(new StringReader("a,\"sin cerrar\nb\n"));
+        try {
+            broken.next();
+            fail("Se esperaba IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("línea 1"));
+        }
+    }
+
+    @Test
+    public void import_readsExportLayoutAndSkipsRejectedRows() throws IOException {
+        StringBuilder csv = new StringBuilder(CsvExporter.HEADER);
+        csv.append(row("1", "Ana", "Pérez, hija", "01/02/1990", "Femenino", "Chilena", "1500", "00:01.50", "FP-1"));
+        csv.append(row("2", "Luis", "Díaz", "", "Masculino", "Estadounidense", "900", "", "FP-2"));
+        csv.append(row("3", "", "Sin nombre", "", "", "", "", "", "FP-3"));
+        csv.append(row("4", "Eva", "Gómez", "31/02/1990", "", "", "", "", "FP-4"));
+        csv.append(row("5", "Ana", "Pérez", "01/02/1990", "Femenino", "Chilena", "1500", "", "FP-1"));
+        csv.append(row("6", "Leo", "\"Cita\"", "", "", "", "abc", "", ""));
+        csv.append('\n');
+        csv.append(row("7", "Sol", "Ruiz", "", "Otro", "", "", "", ""));
+
+        FakeTable table = new FakeTable();
+        CsvImporter importer = new CsvImporter("Estadounidense"::equals, table, 2);
+        CsvImporter.Result result = importer.importFrom(utf8(csv.toString()), -1, null);
+
+        assertEquals(7, result.rowsRead);
+        assertEquals(2, result.inserted);
+        assertEquals(1, result.duplicates);
+        assertEquals(1, result.restricted);
+        assertEquals(3, result.invalid);
+        assertEquals(0, result.failed);
+
+        User ana = table.rows.get(0);
+        assertEquals("Pérez, hija", ana.getApellido());
+        assertEquals("01/02/1990", ana.getFechaNacimiento());
+        assertEquals("Chilena", ana.getNacionalidad());
+        assertEquals(1500, ana.getTiempoEscaneo());
+        assertEquals("FP-1", ana.getHuellaId());
+        assertEquals("Sol", table.rows.get(1).getNombre());
+        assertNull(table.rows.get(1).getHuellaId());
+    }
+
+    @Test
+    public void import_readsTemplateColumn() throws IOException {
+        byte[] template = new SyntheticTemplateGenerator(7).nextTemplate();
+        StringBuilder hex = new StringBuilder();
+        FingerprintTemplate.appendHex(hex, template);
+
+        StringBuilder csv = new StringBuilder(CsvExporter.HEADER);
+        csv.append(row("1", "Ana", "Pérez", "", "", "", "", "", "FP-1", hex.toString()));
+        csv.append(row("2", "Luis", "Díaz", "", "", "", "", "", "FP-2", ""));
+        csv.append(row("3", "Eva", "Gómez", "", "", "", "", "", "FP-3", "no es hexadecimal"));
+
+        FakeTable table = new FakeTable();
+        CsvImporter.Result result = new CsvImporter(n -> false, table, 10)
+                .importFrom(utf8(csv.toString()), -1, null);
+
+        assertEquals(2, result.inserted);
+        assertEquals(1, result.invalid);
+        assertArrayEquals(template, table.templates.get(0));
+        assertNull(table.templates.get(1));
+    }
+
+    @Test
+    public void import_mapsColumnsByNameAndReportsProgress() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFApellido,Nombre\n");
+        int rows = 2_500;
+        for (int i = 0; i < rows; i++) {
+            csv.append("Apellido").append(i).append(",Nombre").append(i).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        FakeTable table = new FakeTable();
+        List<long[]> progress = new ArrayList<>();
+        CsvImporter importer = new CsvImporter(n -> false, table, 100);
+        CsvImporter.Result result = importer.importFrom(new ByteArrayInputStream(bytes), bytes.length,
+                (bytesRead, totalBytes, processed) -> progress.add(new long[]{bytesRead, totalBytes, processed}));
+
+        assertEquals(rows, result.inserted);
+        assertEquals(25, table.batches);
+        for (int i = 0; i < rows; i++) {
+            assertEquals("Nombre" + i, table.rows.get(i).getNombre());
+            assertEquals("Apellido" + i, table.rows.get(i).getApellido());
+        }
+        assertEquals(25, progress.size());
+        long[] last = progress.get(progress.size() - 1);
+        assertEquals(bytes.length, last[0]);
+        assertEquals(bytes.length, last[1]);
+        assertEquals(rows, last[2]);
+    }
+
+    @Test
+    public void import_requiresNameColumns() {
+        CsvImporter importer = new CsvImporter(n -> false, new FakeTable(), 10);
+        try {
+            importer.importFrom(utf8("ID,Huella ID\n1,FP-1\n"), -1, null);
+            fail("Se esperaba IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains(CsvExporter.COLUMN_NOMBRE));
+        }
+    }
+
+    @Test
+    public void import_propagatesDatabaseFailure() throws IOException {
+        StringBuilder csv = new StringBuilder("Nombre,Apellido\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("N,A\n");
+        }
+        CsvImporter importer = new CsvImporter(n -> false, (batch, templates, duplicates) -> {
+            throw new IllegalStateException("disco lleno");
+        }, 10);
+        try {
+            importer.importFrom(utf8(csv.toString()), -1, null);
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertEquals("disco lleno", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ejercicioenclase.util;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del formato de tiempo sin asignaciones
+ */
+public class UtilsTest {
+
+    // Implementación original basada en String.format, usada como referencia
+    private static String reference(long elapsedMillis) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(elapsedMillis);
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(elapsedMillis) % 60;
+        long millis = elapsedMillis % 1000 / 10;
+        return String.format(Locale.US, "%02d:%02d.%02d", minutes, seconds, millis);
+    }
+
+    private static final long[] SAMPLES = {
+            0, 9, 10, 999, 1000, 59_999, 60_000, 61_010, 599_990, 3_599_999,
+            5_999_999, 6_000_000, 123_456_789, Long.MAX_VALUE
+    };
+
+    @Test
+    public void formatElapsedTime_matchesStringFormat() {
+        for (long sample : SAMPLES) {
+            assertEquals(reference(sample), Utils.formatElapsedTime(sample));
+        }
+        for (long millis = 0; millis < 200_000; millis += 7) {
+            assertEquals(reference(millis), Utils.formatElapsedTime(millis));
+        }
+    }
+
+    @Test
+    public void formatElapsedTime_writesIntoBufferAtOffset() {
+        char[] buffer = new char[Utils.MAX_ELAPSED_TIME_LENGTH + 3];
+        buffer[0] = '[';
+        int length = Utils.formatElapsedTime(61_010, buffer, 1);
+
+        assertEquals(8, length);
+        assertEquals("[01:01.01", new String(buffer, 0, length + 1));
+        assertEquals(reference(Long.MAX_VALUE).length(),
+                Utils.formatElapsedTime(Long.MAX_VALUE, buffer, 0));
+    }
+
+    @Test
+    public void appendElapsedTime_matchesStringFormat() {
+        StringBuilder sb = new StringBuilder();
+        for (long sample : SAMPLES) {
+            sb.setLength(0);
+            Utils.appendElapsedTime(sb, sample);
+            assertEquals(reference(sample), sb.toString());
+        }
+    }
+
+    @Test
+    public void appendCsvField_matchesEscapeCsvField() {
+        String[] fields = {"", "Ana", "Pérez, Juan", "dice \"hola\"", "dos\nlíneas"};
+        StringBuilder sb = new StringBuilder();
+        for (String field : fields) {
+            sb.setLength(0);
+            Utils.appendCsvField(sb, field);
+            assertEquals(Utils.escapeCsvField(field), sb.toString());
+
+            sb.setLength(0);
+            Utils.appendCsvField(sb, field.toCharArray(), field.length());
+            assertEquals(Utils.escapeCsvField(field), sb.toString());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ejercicioenclase.viewmodel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las dependencias del ViewModel creadas fuera del hilo principal.
+ * El "hilo principal" de la prueba es un hilo marcado, como lo haría el Looper.
+ */
+public class BackgroundLazyTest {
+
+    private static final class MarkedThreads implements BackgroundLazy.ThreadCheck {
+        volatile Thread mainThread;
+
+        @Override
+        public boolean isMainThread() {
+            return Thread.currentThread() == mainThread;
+        }
+    }
+
+    @Test
+    public void mainThread_neverCreatesTheValue() {
+        AtomicInteger created = new AtomicInteger();
+        MarkedThreads threads = new MarkedThreads();
+        threads.mainThread = Thread.currentThread();
+        BackgroundLazy<String> lazy = new BackgroundLazy<>(() -> {
+            created.incrementAndGet();
+            return "repositorio";
+        }, threads);
+
+        try {
+            lazy.get();
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // El hilo principal no abre la base de datos
+        }
+        assertEquals(0, created.get());
+        assertNull(lazy.getIfCreated());
+    }
+
+    @Test
+    public void background_createsOnceAndMainThreadOnlyPeeks() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        List<Thread> creators = new ArrayList<>();
+        MarkedThreads threads = new MarkedThreads();
+        threads.mainThread = Thread.currentThread();
+        CountDownLatch start = new CountDownLatch(1);
+        BackgroundLazy<Object> lazy = new BackgroundLazy<>(() -> {
+            created.incrementAndGet();
+            synchronized (creators) {
+                creators.add(Thread.currentThread());
+            }
+            return new Object();
+        }, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Callable<Object> task = () -> {
+                    start.await();
+                    return lazy.get();
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            Object first = results.get(0).get();
+            for (Future<Object> result : results) {
+                assertSame(first, result.get());
+            }
+            assertEquals(1, created.get());
+            assertNotSame(threads.mainThread, creators.get(0));
+            // Desde el hilo principal solo se consulta el valor ya creado
+            assertSame(first, lazy.getIfCreated());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ejercicioenclase.viewmodel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del resultado de una sola vez
+ */
+public class EventTest {
+
+    @Test
+    public void content_isHandedOutOnlyOnce() {
+        Event<String> event = new Event<>("Registros importados: 3");
+        assertEquals("Registros importados: 3", event.getContentIfNotHandled());
+        // Un observador nuevo (actividad recreada) ya no lo recibe
+        assertNull(event.getContentIfNotHandled());
+        assertEquals("Registros importados: 3", event.peekContent());
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.ejercicioenclase.viewmodel;
+
+import com.example.ejercicioenclase.model.User;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del estado del formulario: publicaciones por tecla, memoria por tecla
+ * y copia de los campos modificados al borrador
+ */
+public class FormStateTest {
+    private static final long DEBOUNCE = 150;
+
+    /**
+     * Reloj manual: las tareas corren solo al avanzar el tiempo
+     */
+    private static class ManualScheduler implements FormState.Scheduler {
+        long now;
+        Runnable task;
+        long dueAt;
+        int scheduled;
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            this.task = task;
+            this.dueAt = now + delayMillis;
+            scheduled++;
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            if (this.task == task) {
+                this.task = null;
+            }
+        }
+
+        void advance(long millis) {
+            now += millis;
+            if (task != null && dueAt <= now) {
+                Runnable due = task;
+                task = null;
+                due.run();
+            }
+        }
+    }
+
+    private ManualScheduler scheduler;
+    private List<Boolean> emitted;
+    private FormState form;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        emitted = new ArrayList<>();
+        form = new FormState(DEBOUNCE, scheduler, emitted::add);
+    }
+
+    /**
+     * Escribe el texto carácter por carácter sobre un mismo buffer, como un Editable
+     */
+    private void type(FormState.Field field, StringBuilder editable, String text, long millisPerKey) {
+        for (int i = 0; i < text.length(); i++) {
+            editable.append(text.charAt(i));
+            form.onFieldChanged(field, editable);
+            scheduler.advance(millisPerKey);
+        }
+    }
+
+    private void fillAll() {
+        type(FormState.Field.NOMBRE, new StringBuilder(), "Ana", 50);
+        type(FormState.Field.APELLIDO, new StringBuilder(), "Pérez", 50);
+        form.onFieldChanged(FormState.Field.FECHA_NACIMIENTO, "01/02/1990");
+        form.onFieldChanged(FormState.Field.GENERO, "Femenino");
+    }
+
+    @Test
+    public void typing_emitsOnceAfterDebounce() {
+        fillAll();
+        assertTrue(form.isValid());
+        assertTrue(emitted.isEmpty());
+
+        scheduler.advance(DEBOUNCE);
+        assertEquals(1, emitted.size());
+        assertTrue(emitted.get(0));
+
+        // Seguir escribiendo sin cambiar la validez no vuelve a publicar ni programar
+        int scheduled = scheduler.scheduled;
+        type(FormState.Field.NOMBRE, new StringBuilder("Ana"), " María", 10);
+        scheduler.advance(DEBOUNCE);
+        assertEquals(1, emitted.size());
+        assertEquals(scheduled, scheduler.scheduled);
+    }
+
+    @Test
+    public void transientChange_isNotEmitted() {
+        fillAll();
+        scheduler.advance(DEBOUNCE);
+
+        // Borrar y volver a escribir dentro del retardo no publica nada
+        form.onFieldChanged(FormState.Field.NOMBRE, "");
+        scheduler.advance(DEBOUNCE / 2);
+        form.onFieldChanged(FormState.Field.NOMBRE, "A");
+        scheduler.advance(DEBOUNCE * 2);
+        assertEquals(1, emitted.size());
+
+        form.onFieldChanged(FormState.Field.APELLIDO, "   ");
+        assertFalse(form.isValid());
+        scheduler.advance(DEBOUNCE);
+        assertEquals(2, emitted.size());
+        assertFalse(emitted.get(1));
+    }
+
+    @Test
+    public void applyTo_copiesOnlyDirtyFieldsIntoSameDraft() {
+        fillAll();
+        User draft = new User();
+        assertSame(draft, form.applyTo(draft));
+        assertEquals("Ana", draft.getNombre());
+        assertEquals("Pérez", draft.getApellido());
+        assertEquals("01/02/1990", draft.getFechaNacimiento());
+        assertEquals("Femenino", draft.getGenero());
+        assertFalse(form.isDirty(FormState.Field.NOMBRE));
+
+        String apellido = draft.getApellido();
+        form.onFieldChanged(FormState.Field.NOMBRE, "Eva");
+        form.onFieldChanged(FormState.Field.GENERO, "Femenino");
+        assertTrue(form.isDirty(FormState.Field.NOMBRE));
+        assertFalse(form.isDirty(FormState.Field.GENERO));
+
+        form.applyTo(draft);
+        assertEquals("Eva", draft.getNombre());
+        assertSame(apellido, draft.getApellido());
+    }
+
+    @Test
+    public void isBlank_matchesTrim() {
+        String[] samples = {"", " ", "\t\n", " a ", " ", "x"};
+        for (String sample : samples) {
+            assertEquals(sample, sample.trim().isEmpty(), FormState.isBlank(sample));
+        }
+    }
+
+    @Test
+    public void keystroke_allocatesNothingInSteadyState() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        fillAll();
+        scheduler.advance(DEBOUNCE);
+        int keystrokes = 20_000;
+        StringBuilder editable = new StringBuilder(64);
+
+        // Calentamiento: el buffer del campo crece hasta su tamaño final
+        for (int i = 0; i < keystrokes; i++) {
+            typeOneKey(editable, i);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < keystrokes; i++) {
+            typeOneKey(editable, i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Un solo objeto por tecla ocuparía al menos 16 bytes
+        assertTrue("bytes por tecla: " + (double) allocated / keystrokes, allocated < keystrokes);
+        assertEquals(1, emitted.size());
+    }
+
+    private void typeOneKey(StringBuilder editable, int i) {
+        if (editable.length() == 40) {
+            editable.setLength(1);
+        }
+        editable.append((char) ('a' + i % 26));
+        form.onFieldChanged(FormState.Field.NOMBRE, editable);
+        scheduler.advance(1);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.ejercicioenclase.viewmodel;
+
+import android.net.Uri;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.ejercicioenclase.repository.UserRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Pruebas de hilos del ViewModel con el Looper principal de Robolectric: el escaneo,
+ * la exportación, la importación y el respaldo llegan al repositorio solo desde el
+ * executor del ViewModel, nunca desde el hilo principal
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UserViewModelThreadingTest {
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Operación del repositorio y el hilo que la hizo
+     */
+    private static final class Access {
+        final String operation;
+        final String thread;
+        final boolean mainLooper;
+
+        Access(String operation, Thread thread) {
+            this.operation = operation;
+            this.thread = thread.getName();
+            this.mainLooper = Looper.myLooper() == Looper.getMainLooper();
+        }
+
+        @Override
+        public String toString() {
+            return operation + " en " + thread;
+        }
+    }
+
+    private final List<Access> accesses = new CopyOnWriteArrayList<>();
+    private UserViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        UserRepository.setAccessListener((operation, thread) -> accesses.add(new Access(operation, thread)));
+        viewModel = new UserViewModel(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        viewModel.onCleared();
+        UserRepository.setAccessListener(null);
+        UserRepository.closeInstance();
+    }
+
+    /**
+     * Procesa el Looper principal hasta que el LiveData tenga un valor que cumpla la condición
+     */
+    private static <T> T await(LiveData<T> liveData, Predicate<T> done) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (true) {
+            shadowOf(Looper.getMainLooper()).idle();
+            T value = liveData.getValue();
+            if (value != null && done.test(value)) {
+                return value;
+            }
+            if (System.nanoTime() > deadline) {
+                fail("Sin resultado después de " + TIMEOUT_MS + " ms; último valor: " + value);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static String awaitResult(LiveData<Event<String>> result) throws InterruptedException {
+        String message = await(result, event -> event.getContentIfNotHandled() != null).peekContent();
+        assertFalse(message, message.startsWith("Error"));
+        return message;
+    }
+
+    // Ruta del archivo al final de "Registros exportados a: ..." o "Respaldo de N registros en: ..."
+    private static Uri fileIn(String message) {
+        File file = new File(message.substring(message.lastIndexOf(": ") + 2));
+        assertTrue(message, file.isFile());
+        return Uri.fromFile(file);
+    }
+
+    private void scan(String nombre, String apellido) throws InterruptedException {
+        viewModel.onFieldChanged(FormState.Field.NOMBRE, nombre);
+        viewModel.onFieldChanged(FormState.Field.APELLIDO, apellido);
+        viewModel.onFieldChanged(FormState.Field.FECHA_NACIMIENTO, "01/02/1990");
+        viewModel.onFieldChanged(FormState.Field.GENERO, "Femenino");
+        viewModel.startFingerprintScan();
+        viewModel.processFingerprintResult(true);
+        await(viewModel.getProcessingResult(), message -> message.startsWith("Nacionalidad detectada"));
+    }
+
+    @Test
+    public void repositoryEntryPoints_runOnExecutorNeverOnMainLooper() throws InterruptedException {
+        // determineNationality: identificar la huella y guardar el escaneo
+        scan("Ana", "Quispe");
+        // La fila llegó a la tabla, así que la exportación y el respaldo la incluyen
+        await(viewModel.getHistoryChanges(), changes -> !changes.isEmpty());
+
+        viewModel.exportHistoryToCsv();
+        Uri csv = fileIn(awaitResult(viewModel.getExportResult()));
+        viewModel.importRosterFromCsv(csv);
+        awaitResult(viewModel.getImportResult());
+
+        viewModel.exportBackup();
+        Uri backup = fileIn(awaitResult(viewModel.getExportResult()));
+        viewModel.restoreBackup(backup);
+        awaitResult(viewModel.getImportResult());
+
+        Set<String> operations = new TreeSet<>();
+        for (Access access : accesses) {
+            assertFalse("En el Looper principal: " + access, access.mainLooper);
+            assertTrue("Fuera del executor del ViewModel: " + access,
+                    access.thread.startsWith(UserViewModel.BACKGROUND_THREAD_NAME));
+            operations.add(access.operation);
+        }
+        assertTrue(operations.toString(), operations.containsAll(Arrays.asList(
+                "getInstance", "saveScan",
+                "openAllUsersCursor", "getUserCount", "importUsersFromCsv",
+                "exportBackup", "restoreBackup")));
+    }
+
+    @Test
+    public void repositoryOnMainLooper_failsInsteadOfBlocking() {
+        try {
+            viewModel.getAllUsers();
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // BackgroundLazy rechaza el acceso antes de llegar al repositorio
+        }
+        for (Access access : accesses) {
+            assertFalse("En el Looper principal: " + access, access.mainLooper);
+        }
+    }
+}
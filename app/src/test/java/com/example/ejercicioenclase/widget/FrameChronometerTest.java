@@ -0,0 +1,125 @@
+package com.example.ejercicioenclase.widget;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import com.example.ejercicioenclase.util.Utils;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowChoreographer;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Pruebas del cronómetro con cuadros reales de Choreographer (Robolectric): a 200 cuadros
+ * por segundo solo la mitad cambia las centésimas mostradas, y en régimen estable un
+ * cuadro no reserva memoria
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FrameChronometerTest {
+    // 5 ms por cuadro: las centésimas cambian cada dos cuadros
+    private static final Duration FRAME = Duration.ofMillis(5);
+
+    private boolean defaultPaused;
+    private Duration defaultFrameDelay;
+    private TextView textView;
+    private FrameChronometer chronometer;
+
+    @Before
+    public void setUp() {
+        // Cuadros solo cuando avanza el reloj de Robolectric; si no, el cronómetro se
+        // vuelve a llamar en el mismo instante sin fin
+        defaultPaused = ShadowChoreographer.isPaused();
+        defaultFrameDelay = ShadowChoreographer.getFrameDelay();
+        ShadowChoreographer.setPaused(true);
+        ShadowChoreographer.setFrameDelay(FRAME);
+        textView = new TextView(RuntimeEnvironment.getApplication());
+        chronometer = new FrameChronometer(textView);
+    }
+
+    @After
+    public void tearDown() {
+        chronometer.stop();
+        ShadowChoreographer.setFrameDelay(defaultFrameDelay);
+        ShadowChoreographer.setPaused(defaultPaused);
+    }
+
+    private static void advanceFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+        }
+    }
+
+    @Test
+    public void frames_updateTextOnlyWhenCentisChange() {
+        chronometer.start(SystemClock.elapsedRealtime());
+
+        // Un segundo: el cuadro k muestra 5k ms, así que hay 101 valores de centésimas (0 a 100)
+        advanceFrames(200);
+
+        assertEquals(101, chronometer.getFramesRendered());
+        assertEquals(99, chronometer.getFramesSkipped());
+        assertEquals(Utils.formatElapsedTime(1000), textView.getText().toString());
+    }
+
+    @Test
+    public void stop_keepsTextAndStopsCountingFrames() {
+        chronometer.start(SystemClock.elapsedRealtime());
+        advanceFrames(20);
+        chronometer.stop();
+        CharSequence shown = textView.getText().toString();
+        long rendered = chronometer.getFramesRendered();
+        long skipped = chronometer.getFramesSkipped();
+
+        advanceFrames(20);
+
+        assertFalse(chronometer.isRunning());
+        assertEquals(rendered, chronometer.getFramesRendered());
+        assertEquals(skipped, chronometer.getFramesSkipped());
+        assertEquals(shown, textView.getText().toString());
+    }
+
+    @Test
+    public void frame_allocatesNothingInSteadyState() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        chronometer.start(SystemClock.elapsedRealtime());
+        int frames = 20_000;
+        // Calentamiento: TextView crea su envoltorio del buffer en el primer setText
+        advanceFrames(200);
+
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+        for (int i = 0; i < frames; i++) {
+            // El reloj y el looper simulados de Robolectric reservan memoria, así que se
+            // avanza el reloj fuera de la medición y se llama al cuadro directamente.
+            // Se retira el callback que vuelve a pedir doFrame para que su registro
+            // vuelva al pool de Choreographer y la cola no crezca
+            SystemClock.sleep(FRAME.toMillis());
+            long before = threads.getThreadAllocatedBytes(threadId);
+            chronometer.doFrame(SystemClock.uptimeMillis() * 1_000_000);
+            Choreographer.getInstance().removeFrameCallback(chronometer);
+            allocated += threads.getThreadAllocatedBytes(threadId) - before;
+        }
+
+        // Un solo objeto por cuadro ocuparía al menos 16 bytes
+        assertTrue("bytes por cuadro: " + (double) allocated / frames, allocated < frames);
+        assertEquals(200 + frames, chronometer.getFramesRendered() + chronometer.getFramesSkipped());
+        assertEquals((200 + frames) / 2 + 1, chronometer.getFramesRendered());
+    }
+}
@@ -0,0 +1,70 @@
+// Benchmarks JMH de los caminos críticos de la app, ejecutados en la JVM.
+//
+//   ./gradlew :benchmark:jmh                         todos los benchmarks
+//   ./gradlew :benchmark:jmh -PjmhInclude=Matching   solo los que coinciden con la expresión
+//   ./gradlew :benchmark:footprint                   memoria de User frente a las formas compactas y de las plantillas
+//
+// Los resultados quedan en build/results/jmh/results.json (formato JSON de JMH),
+// que se puede comparar entre builds. Los datos se generan con semillas fijas.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Código de la app que no necesita un dispositivo: se compila junto con los benchmarks
+val appSources = "../app/src/main/java"
+val appPackages = listOf(
+    "analytics",
+    "database",
+    "matching",
+    "metrics",
+    "model",
+    "util"
+)
+
+sourceSets {
+    named("jmh") {
+        java {
+            srcDir(appSources)
+            include("com/example/ejercicioenclase/benchmark/**")
+            appPackages.forEach { include("com/example/ejercicioenclase/$it/**") }
+            include("com/example/ejercicioenclase/repository/UserCache.java")
+        }
+        resources {
+            // Mismas nacionalidades que la app
+            srcDir("../app/src/main/res/values")
+            include("nacionalidades.xml")
+        }
+    }
+}
+
+dependencies {
+    // Clases de Android para compilar el código de la app; en la JVM solo se usan
+    // las que no dependen de código nativo (por ejemplo MatrixCursor)
+    jmhImplementation(libs.android.all)
+    // SQLite por JDBC en lugar de android.database.sqlite, con el mismo esquema y SQL
+    jmhImplementation(libs.sqlite.jdbc)
+    jmhImplementation(libs.jol.core)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    (findProperty("jmhInclude") as String?)?.let { includes.add(it) }
+}
+
+tasks.register<JavaExec>("footprint") {
+    description = "Mide la memoria de los usuarios en objetos, codificados y en columnas, y la de las plantillas cargadas"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.ejercicioenclase.benchmark.FootprintReport")
+    jvmArgs("-Djdk.attach.allowAttachSelf=true")
+}
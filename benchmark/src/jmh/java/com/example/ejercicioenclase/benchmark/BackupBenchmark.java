@@ -0,0 +1,238 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+import com.example.ejercicioenclase.util.BackupReader;
+import com.example.ejercicioenclase.util.BackupWriter;
+import com.example.ejercicioenclase.util.CsvExporter;
+import com.example.ejercicioenclase.util.CsvImporter;
+import com.example.ejercicioenclase.util.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Respaldo binario (BackupWriter/BackupReader) frente a CSV con 1.000.000 de registros:
+ * exportar recorriendo la tabla por páginas y restaurar en una base de datos nueva.
+ * El tamaño de ambos archivos se imprime al preparar el benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BackupBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final int CHUNK = 10_000;
+    private static final int PAGE_SIZE = 1000;
+
+    private File directory;
+    private JdbcUserStore source;
+    private UserCodec codec;
+    private File csv;
+    private File backup;
+
+    // Base de datos nueva para cada restauración
+    private File targetFile;
+    private JdbcUserStore target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("backup-bench").toFile();
+        NationalityRegistry registry = BenchmarkData.registry();
+        codec = new UserCodec(registry);
+
+        source = new JdbcUserStore(new File(directory, "source.db"));
+        for (int start = 0; start < ROWS; start += CHUNK) {
+            source.insertUsers(BenchmarkData.users(CHUNK, BenchmarkData.SEED + start),
+                    DatabaseHelper.DEFAULT_BATCH_SIZE);
+        }
+
+        csv = new File(directory, "export.csv");
+        backup = new File(directory, "export." + Utils.BACKUP_EXTENSION);
+        exportCsv(csv);
+        exportBackup(backup);
+        System.out.println();
+        System.out.println("CSV: " + csv.length() + " bytes, respaldo: " + backup.length() + " bytes");
+    }
+
+    @Setup(Level.Iteration)
+    public void openTarget() throws SQLException {
+        targetFile = new File(directory, "target.db");
+        target = new JdbcUserStore(targetFile);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeTarget() throws SQLException {
+        target.close();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(targetFile.getName()));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        source.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long csvExport() throws IOException, SQLException {
+        return exportCsv(new File(directory, "bench.csv"));
+    }
+
+    @Benchmark
+    public long backupExport() throws IOException, SQLException {
+        return exportBackup(new File(directory, "bench." + Utils.BACKUP_EXTENSION));
+    }
+
+    @Benchmark
+    public CsvImporter.Result csvRestore() throws IOException {
+        CsvImporter importer = new CsvImporter(nacionalidad -> false, (batch, templates, duplicates) -> {
+            try {
+                return target.importUsers(batch, duplicates);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }, DatabaseHelper.DEFAULT_BATCH_SIZE);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(csv))) {
+            return importer.importFrom(in, csv.length(), null);
+        }
+    }
+
+    /**
+     * Mismo recorrido que UserRepository.restoreBackup
+     */
+    @Benchmark
+    public long backupRestore() throws IOException, SQLException {
+        try (InputStream in = new FileInputStream(backup)) {
+            BackupReader reader = new BackupReader(in, codec);
+            List<User> batch = new ArrayList<>(DatabaseHelper.DEFAULT_BATCH_SIZE);
+            BitSet existing = new BitSet(DatabaseHelper.DEFAULT_BATCH_SIZE);
+            User user;
+            do {
+                user = reader.next();
+                if (user != null) {
+                    batch.add(user);
+                }
+                if (batch.size() == DatabaseHelper.DEFAULT_BATCH_SIZE || (user == null && !batch.isEmpty())) {
+                    existing.clear();
+                    target.insertScans(batch, existing);
+                    batch.clear();
+                }
+            } while (user != null);
+            return reader.getRecordCount();
+        }
+    }
+
+    /**
+     * Columnas y escape de CsvExporter, leyendo la tabla por páginas como exportBackup
+     */
+    private long exportCsv(File file) throws IOException, SQLException {
+        StringBuilder line = new StringBuilder(256);
+        char[] row = new char[256];
+        long rows = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write(CsvExporter.HEADER);
+            long afterId = 0;
+            List<User> page;
+            do {
+                page = source.getUsersAfter(afterId, PAGE_SIZE);
+                for (User user : page) {
+                    line.setLength(0);
+                    line.append(user.getId()).append(',');
+                    Utils.appendCsvField(line, user.getNombre());
+                    line.append(',');
+                    Utils.appendCsvField(line, user.getApellido());
+                    line.append(',');
+                    Utils.appendCsvField(line, user.getFechaNacimiento());
+                    line.append(',');
+                    Utils.appendCsvField(line, user.getGenero());
+                    line.append(',');
+                    Utils.appendCsvField(line, user.getNacionalidad());
+                    line.append(',').append(user.getTiempoEscaneo()).append(',');
+                    Utils.appendElapsedTime(line, user.getTiempoEscaneo());
+                    line.append(',');
+                    Utils.appendCsvField(line, user.getHuellaId());
+                    // Sin plantillas enroladas la columna queda vacía
+                    line.append(",\n");
+                    int length = line.length();
+                    if (row.length < length) {
+                        row = new char[Math.max(length, row.length * 2)];
+                    }
+                    line.getChars(0, length, row, 0);
+                    writer.write(row, 0, length);
+                    rows++;
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+        }
+        return rows;
+    }
+
+    /**
+     * Mismo recorrido que UserRepository.exportBackup
+     */
+    private long exportBackup(File file) throws IOException, SQLException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            BackupWriter writer = new BackupWriter(out, codec, DatabaseHelper.DATABASE_VERSION);
+            long afterId = 0;
+            List<User> page;
+            do {
+                page = source.getUsersAfter(afterId, PAGE_SIZE);
+                for (User user : page) {
+                    writer.write(user, null);
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            writer.finish();
+            return writer.getRecordCount();
+        }
+    }
+}
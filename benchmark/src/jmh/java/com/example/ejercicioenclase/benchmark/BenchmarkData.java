@@ -0,0 +1,111 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.model.Genero;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.util.EpochDays;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Datos repetibles para los benchmarks: todo se genera con semillas fijas,
+ * así que dos builds miden exactamente los mismos registros y plantillas
+ */
+public final class BenchmarkData {
+    public static final long SEED = 0x5EED_2024L;
+
+    private static final String[] NOMBRES = {
+            "Ana", "Luis", "María", "José", "Carmen", "Jorge", "Lucía", "Pedro",
+            "Sofía", "Diego", "Valeria", "Andrés", "Camila", "Raúl", "Elena", "Tomás"
+    };
+    private static final String[] APELLIDOS = {
+            "Pérez", "García", "López", "Martínez", "Rodríguez", "Hernández", "González",
+            "Ramírez", "Torres", "Flores", "De \"La\" Cruz", "Núñez, Jr."
+    };
+
+    // 2020-01-01 en milisegundos, inicio de las fechas de escaneo simuladas
+    private static final long FIRST_SCAN_MILLIS = 1_577_836_800_000L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Registro con las mismas nacionalidades que res/values/nacionalidades.xml
+     */
+    public static NationalityRegistry registry() {
+        return new NationalityRegistry(stringArray("nacionalidades"), stringArray("nacionalidades_restringidas"));
+    }
+
+    /**
+     * Usuarios sin ID con todos los campos llenos; incluye apellidos que requieren escape CSV
+     */
+    public static List<User> users(int count, long seed) {
+        Random random = new Random(seed);
+        NationalityRegistry registry = registry();
+        String[] generos = Genero.values();
+        int firstBirthDay = EpochDays.parse("01/01/1950");
+        int lastBirthDay = EpochDays.parse("31/12/2005");
+
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User(
+                    NOMBRES[random.nextInt(NOMBRES.length)],
+                    APELLIDOS[random.nextInt(APELLIDOS.length)],
+                    EpochDays.format(firstBirthDay + random.nextInt(lastBirthDay - firstBirthDay)),
+                    generos[random.nextInt(generos.length)]);
+            user.setNacionalidad(registry.nameOf(registry.randomAllowed(random)));
+            user.setHuellaId(FingerprintTemplate.idFromLong(random.nextLong()));
+            user.setTiempoEscaneo(200 + random.nextInt(4_800));
+            user.setFechaEscaneo(FIRST_SCAN_MILLIS + i * 37_000L);
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Plantillas enroladas; la plantilla i corresponde al ID i + 1
+     */
+    public static byte[][] templates(int count, long seed) {
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(seed);
+        byte[][] templates = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            templates[i] = generator.nextTemplate();
+        }
+        return templates;
+    }
+
+    private static String[] stringArray(String name) {
+        try (InputStream in = BenchmarkData.class.getResourceAsStream("/nacionalidades.xml")) {
+            if (in == null) {
+                throw new IllegalStateException("Falta nacionalidades.xml en el classpath");
+            }
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+            NodeList arrays = document.getElementsByTagName("string-array");
+            for (int i = 0; i < arrays.getLength(); i++) {
+                Element array = (Element) arrays.item(i);
+                if (name.equals(array.getAttribute("name"))) {
+                    NodeList items = array.getElementsByTagName("item");
+                    String[] values = new String[items.getLength()];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = items.item(j).getTextContent().trim();
+                    }
+                    return values;
+                }
+            }
+            throw new IllegalStateException("No existe el arreglo " + name);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo leer nacionalidades.xml", e);
+        }
+    }
+}
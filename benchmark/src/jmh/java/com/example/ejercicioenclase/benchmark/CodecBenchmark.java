@@ -0,0 +1,96 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codificación y decodificación de UserCodec frente a un registro que guarda
+ * todos los campos como texto, igual que las columnas de la base de datos
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+    private static final int USERS = 1024;
+
+    private final UserCodec codec = new UserCodec(BenchmarkData.registry());
+    private List<User> users;
+    private byte[][] encoded;
+    private byte[][] textEncoded;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        users = BenchmarkData.users(USERS, BenchmarkData.SEED);
+        encoded = new byte[USERS][];
+        textEncoded = new byte[USERS][];
+        for (int i = 0; i < USERS; i++) {
+            encoded[i] = codec.encode(users.get(i));
+            textEncoded[i] = encodeAsText(users.get(i));
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(users.get(next++ & (USERS - 1)));
+    }
+
+    @Benchmark
+    public User decode() throws IOException {
+        byte[] data = encoded[next++ & (USERS - 1)];
+        return codec.decode(data, 0, data.length);
+    }
+
+    @Benchmark
+    public byte[] encodeAsText() throws IOException {
+        return encodeAsText(users.get(next++ & (USERS - 1)));
+    }
+
+    @Benchmark
+    public User decodeFromText() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(textEncoded[next++ & (USERS - 1)]));
+        User user = new User();
+        user.setId(in.readInt());
+        user.setTiempoEscaneo(in.readLong());
+        user.setFechaEscaneo(in.readLong());
+        user.setNombre(in.readUTF());
+        user.setApellido(in.readUTF());
+        user.setFechaNacimiento(in.readUTF());
+        user.setGenero(in.readUTF());
+        user.setNacionalidad(in.readUTF());
+        user.setHuellaId(in.readUTF());
+        return user;
+    }
+
+    private static byte[] encodeAsText(User user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(user.getId());
+        out.writeLong(user.getTiempoEscaneo());
+        out.writeLong(user.getFechaEscaneo());
+        out.writeUTF(user.getNombre());
+        out.writeUTF(user.getApellido());
+        out.writeUTF(user.getFechaNacimiento());
+        out.writeUTF(user.getGenero());
+        out.writeUTF(user.getNacionalidad());
+        out.writeUTF(user.getHuellaId());
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ejercicioenclase.benchmark;
+
+import android.database.MatrixCursor;
+
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.util.CsvExporter;
+import com.example.ejercicioenclase.util.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuerpo de Utils.exportToCSV (CsvExporter sobre un cursor) frente a la exportación
+ * original que concatenaba un String por fila. El destino descarta los bytes para
+ * medir solo el formato y la codificación, sin el almacenamiento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvExportBenchmark {
+    private static final String[] COLUMNS = {
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_NOMBRE,
+            DatabaseHelper.COLUMN_APELLIDO,
+            DatabaseHelper.COLUMN_FECHA_NACIMIENTO,
+            DatabaseHelper.COLUMN_GENERO,
+            DatabaseHelper.COLUMN_NACIONALIDAD,
+            DatabaseHelper.COLUMN_HUELLA_ID,
+            DatabaseHelper.COLUMN_TIEMPO_ESCANEO
+    };
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private List<User> users;
+    private MatrixCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        users = BenchmarkData.users(rows, BenchmarkData.SEED);
+        cursor = new MatrixCursor(COLUMNS, rows);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            user.setId(rows - i);
+            cursor.addRow(new Object[]{user.getId(), user.getNombre(), user.getApellido(),
+                    user.getFechaNacimiento(), user.getGenero(), user.getNacionalidad(),
+                    user.getHuellaId(), user.getTiempoEscaneo()});
+        }
+    }
+
+    @Benchmark
+    public long streamingExport() throws IOException {
+        cursor.moveToPosition(-1);
+        return CsvExporter.write(cursor, rows, null, new DiscardingOutputStream(), null);
+    }
+
+    @Benchmark
+    public long legacyExport() throws IOException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        Writer writer = new OutputStreamWriter(out);
+        writer.write(CsvExporter.HEADER);
+        for (User user : users) {
+            writer.write(user.getId() + "," +
+                    Utils.escapeCsvField(user.getNombre()) + "," +
+                    Utils.escapeCsvField(user.getApellido()) + "," +
+                    Utils.escapeCsvField(user.getFechaNacimiento()) + "," +
+                    Utils.escapeCsvField(user.getGenero()) + "," +
+                    Utils.escapeCsvField(user.getNacionalidad()) + "," +
+                    user.getTiempoEscaneo() + "," +
+                    Utils.escapeCsvField(Utils.formatElapsedTime(user.getTiempoEscaneo())) + "," +
+                    Utils.escapeCsvField(user.getHuellaId()) + "\n");
+        }
+        writer.close();
+        return out.count;
+    }
+
+    /**
+     * Cuenta los bytes y los descarta
+     */
+    static final class DiscardingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
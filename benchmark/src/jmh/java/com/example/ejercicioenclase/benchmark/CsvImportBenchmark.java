@@ -0,0 +1,158 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.util.CsvExporter;
+import com.example.ejercicioenclase.util.CsvImporter;
+import com.example.ejercicioenclase.util.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación de una lista de 1.000.000 de personas con el diseño de la exportación:
+ * solo la lectura (el destino descarta los lotes) y la importación completa a SQLite
+ * con búsqueda de duplicados por ID de huella. Si la lectura y las inserciones se
+ * solapan, la importación completa tarda cerca del máximo de ambas y no de la suma.
+ * El archivo incluye un 1% de huellas repetidas y las nacionalidades restringidas
+ * que genere BenchmarkData.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CsvImportBenchmark {
+    private static final int ROWS = 1_000_000;
+
+    private File directory;
+    private File csv;
+    private NationalityRegistry registry;
+
+    // Base de datos nueva para cada importación completa
+    private File databaseFile;
+    private JdbcUserStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("csv-import-bench").toFile();
+        csv = new File(directory, "roster.csv");
+        registry = BenchmarkData.registry();
+        writeRoster(csv, BenchmarkData.users(4096, BenchmarkData.SEED));
+    }
+
+    private static void writeRoster(File file, List<User> users) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write(CsvExporter.HEADER);
+            for (int i = 0; i < ROWS; i++) {
+                User user = users.get(i & 4095);
+                // Una de cada cien filas repite la huella de la fila anterior
+                long huella = i % 100 == 99 ? i - 1 : i;
+                line.setLength(0);
+                line.append(i + 1).append(',');
+                Utils.appendCsvField(line, user.getNombre());
+                line.append(',');
+                Utils.appendCsvField(line, user.getApellido());
+                line.append(',');
+                Utils.appendCsvField(line, user.getFechaNacimiento());
+                line.append(',');
+                Utils.appendCsvField(line, user.getGenero());
+                line.append(',');
+                Utils.appendCsvField(line, user.getNacionalidad());
+                line.append(',').append(user.getTiempoEscaneo()).append(',');
+                Utils.appendElapsedTime(line, user.getTiempoEscaneo());
+                line.append(',').append(FingerprintTemplate.idFromLong(huella)).append(",\n");
+                writer.append(line);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openStore() throws SQLException {
+        databaseFile = new File(directory, "users.db");
+        store = new JdbcUserStore(databaseFile);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStore() throws SQLException {
+        store.close();
+        deleteDatabase();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private void deleteDatabase() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(databaseFile.getName()));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Benchmark
+    public CsvImporter.Result parseOnly() throws IOException {
+        CsvImporter importer = new CsvImporter(registry::isRestricted, (batch, templates, duplicates) -> {
+            long[] ids = new long[batch.size()];
+            Arrays.fill(ids, 1);
+            return ids;
+        }, CsvImporter.DEFAULT_BATCH_SIZE);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(csv))) {
+            return importer.importFrom(in, csv.length(), null);
+        }
+    }
+
+    @Benchmark
+    public CsvImporter.Result importIntoSqlite() throws IOException {
+        CsvImporter importer = new CsvImporter(registry::isRestricted, (batch, templates, duplicates) -> {
+            try {
+                return store.importUsers(batch, duplicates);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }, CsvImporter.DEFAULT_BATCH_SIZE);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(csv))) {
+            return importer.importFrom(in, csv.length(), null);
+        }
+    }
+}
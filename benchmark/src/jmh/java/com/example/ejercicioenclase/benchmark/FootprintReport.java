@@ -0,0 +1,94 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.analytics.ScanStatistics;
+import com.example.ejercicioenclase.matching.MappedTemplateStore;
+import com.example.ejercicioenclase.matching.TemplateIndex;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+import com.example.ejercicioenclase.repository.UserCache;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Memoria ocupada por N usuarios como objetos User, codificados con UserCodec,
+ * dentro de UserCache (que los guarda codificados) y como columnas de
+ * ScanStatistics. También la memoria del heap retenida por las plantillas enroladas
+ * según cómo se cargan: TemplateIndex.wrap sobre MappedTemplateStore (los registros
+ * quedan fuera del heap) o copiadas a un TemplateIndex desde un cursor de SQLite.
+ * Imprime una línea CSV por representación.
+ */
+public final class FootprintReport {
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        NationalityRegistry registry = BenchmarkData.registry();
+        List<User> users = BenchmarkData.users(count, BenchmarkData.SEED);
+        // Cada fila leída de un cursor tiene sus propios Strings; los datos generados los comparten
+        for (User user : users) {
+            user.setNombre(new String(user.getNombre()));
+            user.setApellido(new String(user.getApellido()));
+            user.setGenero(new String(user.getGenero()));
+            user.setNacionalidad(new String(user.getNacionalidad()));
+        }
+
+        UserCodec codec = new UserCodec(registry);
+        byte[][] encoded = new byte[count][];
+        ScanStatistics statistics = new ScanStatistics(registry.size());
+        UserCache cache = new UserCache(count, Long.MAX_VALUE, codec);
+        TimeZone timeZone = TimeZone.getTimeZone("UTC");
+        for (int i = 0; i < count; i++) {
+            User user = users.get(i);
+            encoded[i] = codec.encode(user);
+            cache.put(user);
+            statistics.add(i + 1, registry.codeOf(user.getNacionalidad()), user.getTiempoEscaneo(),
+                    ScanStatistics.dayOf(user.getFechaEscaneo(), timeZone));
+        }
+
+        System.out.println("representacion,usuarios,bytes,bytes_por_usuario");
+        print("User", count, GraphLayout.parseInstance(users).totalSize());
+        print("UserCodec", count, GraphLayout.parseInstance((Object) encoded).totalSize());
+        // Incluye las claves, los mapas y el índice por ID de fila
+        print("UserCache", cache.size(), GraphLayout.parseInstance(cache).totalSize());
+        print("ScanStatistics", count, GraphLayout.parseInstance(statistics).totalSize());
+        printTemplates(count);
+    }
+
+    private static void printTemplates(int count) throws IOException, SQLException {
+        File directory = Files.createTempDirectory("footprint").toFile();
+        File storeFile = new File(directory, "fingerprint_templates.bin");
+        File databaseFile = new File(directory, "templates.db");
+        try {
+            TemplateLoadBenchmark.writeStore(storeFile, count);
+            TemplateLoadBenchmark.writeTable(databaseFile, count);
+
+            try (MappedTemplateStore store = MappedTemplateStore.open(storeFile)) {
+                TemplateIndex mapped = TemplateIndex.wrap(store.records(), store.count(), store.deleted());
+                print("TemplateIndex.wrap", mapped.size(), GraphLayout.parseInstance(mapped).totalSize());
+            }
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath())) {
+                TemplateIndex loaded = TemplateLoadBenchmark.loadFromCursor(connection);
+                print("TemplateIndex (cursor)", loaded.size(), GraphLayout.parseInstance(loaded).totalSize());
+            }
+        } finally {
+            storeFile.delete();
+            databaseFile.delete();
+            directory.delete();
+        }
+    }
+
+    private static void print(String name, int count, long bytes) {
+        System.out.println(name + "," + count + "," + bytes + "," + (bytes / count));
+    }
+}
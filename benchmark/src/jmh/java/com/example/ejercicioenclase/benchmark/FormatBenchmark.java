@@ -0,0 +1,69 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.util.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formato del tiempo transcurrido y escape de campos CSV, frente a las versiones originales
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatBenchmark {
+    public long elapsedMillis = 754_321;
+    public String plainField = "Guatemalteca";
+    public String quotedField = "De \"La\" Cruz, Jr.";
+
+    private final char[] buffer = new char[Utils.MAX_ELAPSED_TIME_LENGTH];
+    private final StringBuilder builder = new StringBuilder(64);
+
+    @Benchmark
+    public String formatElapsedTimeStringFormat() {
+        long totalSeconds = elapsedMillis / 1000;
+        return String.format(Locale.getDefault(), "%02d:%02d.%02d",
+                totalSeconds / 60, totalSeconds % 60, (elapsedMillis % 1000) / 10);
+    }
+
+    @Benchmark
+    public String formatElapsedTime() {
+        return Utils.formatElapsedTime(elapsedMillis);
+    }
+
+    @Benchmark
+    public int formatElapsedTimeIntoBuffer() {
+        return Utils.formatElapsedTime(elapsedMillis, buffer, 0);
+    }
+
+    @Benchmark
+    public String escapeCsvFieldPlain() {
+        return Utils.escapeCsvField(plainField);
+    }
+
+    @Benchmark
+    public String escapeCsvFieldQuoted() {
+        return Utils.escapeCsvField(quotedField);
+    }
+
+    @Benchmark
+    public int appendCsvFieldPlain() {
+        builder.setLength(0);
+        Utils.appendCsvField(builder, plainField);
+        return builder.length();
+    }
+
+    @Benchmark
+    public int appendCsvFieldQuoted() {
+        builder.setLength(0);
+        Utils.appendCsvField(builder, quotedField);
+        return builder.length();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.matching.LinearFingerprintMatcher;
+import com.example.ejercicioenclase.matching.MatchResult;
+import com.example.ejercicioenclase.matching.MatchingEngine;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.matching.TemplateIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identificación 1:N lineal sobre galerías de 10k, 100k y 1M plantillas, con una
+ * huella enrolada (re-escaneo) y una desconocida. La versión paralela está en
+ * ParallelMatchingBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatchingBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int gallerySize;
+
+    private LinearFingerprintMatcher linear;
+    private byte[] knownProbe;
+    private byte[] unknownProbe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[][] templates = BenchmarkData.templates(gallerySize, BenchmarkData.SEED);
+        TemplateIndex index = new TemplateIndex();
+        for (int i = 0; i < templates.length; i++) {
+            index.add(i + 1, templates[i]);
+        }
+
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(BenchmarkData.SEED + 1);
+        // Una huella enrolada en el último cuarto de la galería, capturada con ruido
+        knownProbe = generator.capture(templates[gallerySize - gallerySize / 4]);
+        unknownProbe = generator.nextTemplate();
+
+        linear = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+    }
+
+    @Benchmark
+    public MatchResult linearKnown() {
+        return linear.identify(knownProbe);
+    }
+
+    @Benchmark
+    public MatchResult linearUnknown() {
+        return linear.identify(unknownProbe);
+    }
+}
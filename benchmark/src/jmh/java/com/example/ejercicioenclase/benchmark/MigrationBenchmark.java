@@ -0,0 +1,130 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Migración real del esquema (DatabaseHelper.MIGRATIONS) de una base de datos de la
+ * versión 1 a la actual: índices de búsqueda, tabla FTS con todas las filas y la columna
+ * de fecha de escaneo. Cada medición parte de una copia nueva de la base de datos v1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MigrationBenchmark {
+    private static final int CHUNK = 10_000;
+
+    // Tabla tal como la creaba la versión 1 de la app, sin índices ni FTS
+    private static final String CREATE_TABLE_USERS_V1 =
+            "CREATE TABLE users("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + "nombre TEXT NOT NULL,"
+            + "apellido TEXT NOT NULL,"
+            + "fecha_nacimiento TEXT,"
+            + "genero TEXT,"
+            + "nacionalidad TEXT,"
+            + "huella_id TEXT,"
+            + "tiempo_escaneo INTEGER"
+            + ")";
+
+    private static final String INSERT_USER_V1 =
+            "INSERT INTO users (nombre, apellido, fecha_nacimiento, genero, nacionalidad, huella_id, tiempo_escaneo)"
+            + " VALUES (?,?,?,?,?,?,?)";
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private File directory;
+    private File original;
+    private File copy;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("migration-bench").toFile();
+        original = new File(directory, "v1.db");
+        copy = new File(directory, "v1-copia.db");
+        try (Connection v1 = DriverManager.getConnection("jdbc:sqlite:" + original.getAbsolutePath())) {
+            try (Statement statement = v1.createStatement()) {
+                statement.execute(CREATE_TABLE_USERS_V1);
+            }
+            v1.setAutoCommit(false);
+            try (PreparedStatement insert = v1.prepareStatement(INSERT_USER_V1)) {
+                for (int start = 0; start < rows; start += CHUNK) {
+                    List<User> users = BenchmarkData.users(Math.min(CHUNK, rows - start), BenchmarkData.SEED + start);
+                    for (User user : users) {
+                        insert.setString(1, user.getNombre());
+                        insert.setString(2, user.getApellido());
+                        insert.setString(3, user.getFechaNacimiento());
+                        insert.setString(4, user.getGenero());
+                        insert.setString(5, user.getNacionalidad());
+                        insert.setString(6, user.getHuellaId());
+                        insert.setLong(7, user.getTiempoEscaneo());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+            v1.commit();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void openCopy() throws IOException, SQLException {
+        Files.copy(original.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        connection = DriverManager.getConnection("jdbc:sqlite:" + copy.getAbsolutePath());
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCopy() throws SQLException {
+        connection.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Como onUpgrade desde la versión 1; devuelve los milisegundos de cada paso
+     */
+    @Benchmark
+    public long[] upgradeFromVersion1() throws SQLException {
+        return JdbcUserStore.upgrade(connection, 1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.model.NationalityRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selección y verificación de nacionalidades: el ciclo de reintentos original
+ * (un Random nuevo por intento y comparación contra cada restringida) frente a
+ * NationalityRegistry
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NationalityBenchmark {
+    private final NationalityRegistry registry = BenchmarkData.registry();
+    private final String[] nacionalidades = new String[registry.size()];
+    private final Random random = new Random(BenchmarkData.SEED);
+    private int next;
+
+    {
+        for (short code = 0; code < nacionalidades.length; code++) {
+            nacionalidades[code] = registry.nameOf(code);
+        }
+    }
+
+    @Benchmark
+    public String pickWithRetryLoop() {
+        String nacionalidad;
+        do {
+            nacionalidad = nacionalidades[new Random().nextInt(nacionalidades.length)];
+        } while (isRestrictedLegacy(nacionalidad));
+        return nacionalidad;
+    }
+
+    @Benchmark
+    public String pickFromRegistry() {
+        return registry.nameOf(registry.randomAllowed(random));
+    }
+
+    @Benchmark
+    public boolean isRestrictedLegacy() {
+        return isRestrictedLegacy(nacionalidades[next++ % nacionalidades.length]);
+    }
+
+    @Benchmark
+    public boolean isRestrictedRegistry() {
+        return registry.isRestricted(nacionalidades[next++ % nacionalidades.length]);
+    }
+
+    private static boolean isRestrictedLegacy(String nacionalidad) {
+        return "Guatemalteca".equalsIgnoreCase(nacionalidad) || "Estadounidense".equalsIgnoreCase(nacionalidad);
+    }
+}
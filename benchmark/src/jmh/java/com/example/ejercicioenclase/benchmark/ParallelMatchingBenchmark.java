@@ -0,0 +1,72 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.matching.MatchResult;
+import com.example.ejercicioenclase.matching.MatchingEngine;
+import com.example.ejercicioenclase.matching.ParallelFingerprintMatcher;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.matching.TemplateIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identificación 1:N paralela con 1 a N hilos sobre las mismas galerías que
+ * MatchingBenchmark. Con la huella enrolada las tareas se detienen al encontrar
+ * una coincidencia muy cercana; con la desconocida se recorre toda la galería.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelMatchingBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int gallerySize;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ParallelFingerprintMatcher parallel;
+    private byte[] knownProbe;
+    private byte[] unknownProbe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[][] templates = BenchmarkData.templates(gallerySize, BenchmarkData.SEED);
+        TemplateIndex index = new TemplateIndex();
+        for (int i = 0; i < templates.length; i++) {
+            index.add(i + 1, templates[i]);
+        }
+
+        SyntheticTemplateGenerator generator = new SyntheticTemplateGenerator(BenchmarkData.SEED + 1);
+        // Una huella enrolada en el último cuarto de la galería, capturada con ruido
+        knownProbe = generator.capture(templates[gallerySize - gallerySize / 4]);
+        unknownProbe = generator.nextTemplate();
+
+        parallel = new ParallelFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE,
+                MatchingEngine.EARLY_STOP_DISTANCE, 5, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallel.shutdown();
+    }
+
+    @Benchmark
+    public MatchResult parallelKnown() {
+        return parallel.identify(knownProbe);
+    }
+
+    @Benchmark
+    public MatchResult parallelUnknown() {
+        return parallel.identify(unknownProbe);
+    }
+}
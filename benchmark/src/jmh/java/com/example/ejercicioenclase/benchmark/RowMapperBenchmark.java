@@ -0,0 +1,103 @@
+package com.example.ejercicioenclase.benchmark;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.database.UserRowMapper;
+import com.example.ejercicioenclase.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura de un cursor completo a una lista de usuarios: UserRowMapper, que resuelve
+ * los índices de las columnas una vez por cursor, frente al mapeo original que
+ * llamaba a getColumnIndexOrThrow en cada columna de cada fila. El cursor en memoria
+ * tiene las columnas de DatabaseHelper.USER_PROJECTION, así que solo se mide el mapeo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RowMapperBenchmark {
+    // Mismo orden que USER_PROJECTION
+    private static final String[] COLUMNS = {
+            DatabaseHelper.COLUMN_ID,
+            DatabaseHelper.COLUMN_NOMBRE,
+            DatabaseHelper.COLUMN_APELLIDO,
+            DatabaseHelper.COLUMN_FECHA_NACIMIENTO,
+            DatabaseHelper.COLUMN_GENERO,
+            DatabaseHelper.COLUMN_NACIONALIDAD,
+            DatabaseHelper.COLUMN_HUELLA_ID,
+            DatabaseHelper.COLUMN_TIEMPO_ESCANEO,
+            DatabaseHelper.COLUMN_FECHA_ESCANEO
+    };
+
+    @Param({"100000"})
+    public int rows;
+
+    private MatrixCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<User> users = BenchmarkData.users(rows, BenchmarkData.SEED);
+        cursor = new MatrixCursor(COLUMNS, rows);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            cursor.addRow(new Object[]{rows - i, user.getNombre(), user.getApellido(),
+                    user.getFechaNacimiento(), user.getGenero(), user.getNacionalidad(),
+                    user.getHuellaId(), user.getTiempoEscaneo(), user.getFechaEscaneo()});
+        }
+    }
+
+    /**
+     * Igual que DatabaseHelper.readUsers
+     */
+    @Benchmark
+    public List<User> rowMapper() {
+        cursor.moveToPosition(-1);
+        List<User> userList = new ArrayList<>(rows);
+        UserRowMapper mapper = new UserRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            userList.add(mapper.map(cursor));
+        }
+        return userList;
+    }
+
+    /**
+     * Mapeo original de getAllUsers, con la columna de fecha de escaneo agregada
+     */
+    @Benchmark
+    public List<User> lookupPerRow() {
+        Cursor cursor = this.cursor;
+        List<User> userList = new ArrayList<>(rows);
+        if (cursor.moveToFirst()) {
+            do {
+                User user = new User();
+                user.setId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_ID)));
+                user.setNombre(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NOMBRE)));
+                user.setApellido(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_APELLIDO)));
+                user.setFechaNacimiento(cursor.getString(
+                        cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_NACIMIENTO)));
+                user.setGenero(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_GENERO)));
+                user.setNacionalidad(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_NACIONALIDAD)));
+                user.setHuellaId(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_HUELLA_ID)));
+                user.setTiempoEscaneo(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIEMPO_ESCANEO)));
+                user.setFechaEscaneo(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FECHA_ESCANEO)));
+                userList.add(user);
+            } while (cursor.moveToNext());
+        }
+        return userList;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.GroupCommitWriter;
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.database.ScanJournal;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latencia de lo que espera un escaneo al guardarse, con 4 estaciones a la vez:
+ * la inserción directa en SQLite (una transacción por escaneo), el anexado al
+ * diario con el vaciado a la tabla en segundo plano, y el anexado con un fsync
+ * por escaneo como referencia. SampleTime reporta los percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class ScanJournalBenchmark {
+    private File directory;
+    private JdbcUserStore store;
+    private ScanJournal journal;
+    private GroupCommitWriter<ScanJournal.Entry> drainer;
+    private List<User> users;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("scan-journal-bench").toFile();
+        store = new JdbcUserStore(new File(directory, "users.db"));
+        journal = ScanJournal.open(new File(directory, "scans.journal"), new UserCodec(BenchmarkData.registry()));
+        users = BenchmarkData.users(4096, BenchmarkData.SEED);
+        drainer = new GroupCommitWriter<>("bench-journal", this::drain, 256, 4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        drainer.close();
+        journal.close();
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private User nextUser() {
+        return users.get(next.getAndIncrement() & 4095);
+    }
+
+    @Benchmark
+    public long directInsert() throws Exception {
+        User user = nextUser();
+        synchronized (store) {
+            return store.insertUser(user);
+        }
+    }
+
+    @Benchmark
+    public Object journalAppend() throws IOException {
+        ScanJournal.Entry scan = new ScanJournal.Entry(nextUser(), null);
+        journal.append(scan);
+        return drainer.submit(scan);
+    }
+
+    @Benchmark
+    public Object journalAppendSyncEach() throws IOException {
+        ScanJournal.Entry scan = new ScanJournal.Entry(nextUser(), null);
+        journal.append(scan);
+        journal.sync();
+        return drainer.submit(scan);
+    }
+
+    /**
+     * Igual que el vaciado del diario en UserRepository: un fsync por lote, una transacción y
+     * liberación del diario (sin plantillas que enrolar)
+     */
+    private long[] drain(List<ScanJournal.Entry> batch) {
+        try {
+            journal.sync();
+            List<User> users = new ArrayList<>(batch.size());
+            for (ScanJournal.Entry scan : batch) {
+                users.add(scan.getUser());
+            }
+            long[] ids;
+            synchronized (store) {
+                ids = store.insertUsers(users, users.size());
+            }
+            journal.release(batch);
+            return ids;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
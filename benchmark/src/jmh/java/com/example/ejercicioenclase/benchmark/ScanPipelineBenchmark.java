@@ -0,0 +1,148 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.matching.FingerprintMatcher;
+import com.example.ejercicioenclase.matching.FingerprintTemplate;
+import com.example.ejercicioenclase.matching.LinearFingerprintMatcher;
+import com.example.ejercicioenclase.matching.MatchResult;
+import com.example.ejercicioenclase.matching.MatchingEngine;
+import com.example.ejercicioenclase.matching.ParallelFingerprintMatcher;
+import com.example.ejercicioenclase.matching.SyntheticTemplateGenerator;
+import com.example.ejercicioenclase.matching.TemplateIndex;
+import com.example.ejercicioenclase.metrics.ScanMetrics;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+import com.example.ejercicioenclase.repository.UserCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Los pasos de UserViewModel.determineNationality sin LiveData ni executor:
+ * captura, identificación, consulta del enrolado (caché y base de datos) o
+ * asignación de nacionalidad, guardado y métricas. La mitad de los escaneos
+ * son de huellas ya enroladas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScanPipelineBenchmark {
+    @Param({"10000", "100000"})
+    public int enrolled;
+
+    private final NationalityRegistry registry = BenchmarkData.registry();
+    private final ScanMetrics metrics = ScanMetrics.getInstance();
+    private final UserCache cache = new UserCache(10_000, 4L * 1024 * 1024, new UserCodec(registry));
+    private File directory;
+    private JdbcUserStore store;
+    private TemplateIndex index;
+    private FingerprintMatcher matcher;
+    private ParallelFingerprintMatcher parallelMatcher;
+    private byte[][] templates;
+    private long[] ids;
+    private List<User> users;
+    private SyntheticTemplateGenerator generator;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        users = BenchmarkData.users(enrolled, BenchmarkData.SEED);
+        templates = BenchmarkData.templates(enrolled, BenchmarkData.SEED);
+        directory = Files.createTempDirectory("scan-pipeline-bench").toFile();
+        store = new JdbcUserStore(new File(directory, "users.db"));
+        ids = store.insertUsers(users, 500);
+
+        index = new TemplateIndex();
+        for (int i = 0; i < enrolled; i++) {
+            index.add(ids[i], templates[i]);
+        }
+        // Misma elección de estrategia que MatchingEngine
+        if (enrolled >= MatchingEngine.PARALLEL_THRESHOLD) {
+            parallelMatcher = new ParallelFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE,
+                    MatchingEngine.EARLY_STOP_DISTANCE, 5, Runtime.getRuntime().availableProcessors());
+            matcher = parallelMatcher;
+        } else {
+            matcher = new LinearFingerprintMatcher(index, MatchingEngine.ACCEPT_DISTANCE);
+        }
+        generator = new SyntheticTemplateGenerator(BenchmarkData.SEED + 1);
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (parallelMatcher != null) {
+            parallelMatcher.shutdown();
+        }
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public User scan() throws Exception {
+        int person = random.nextInt(enrolled);
+        boolean repeat = random.nextBoolean();
+        byte[] probe = repeat ? generator.capture(templates[person]) : generator.nextTemplate();
+        User user = new User(users.get(person).getNombre(), users.get(person).getApellido(),
+                users.get(person).getFechaNacimiento(), users.get(person).getGenero());
+
+        long matchStart = System.nanoTime();
+        MatchResult match = matcher.identify(probe);
+        metrics.recordSince(ScanMetrics.Stage.MATCHING, matchStart);
+
+        String nacionalidad = null;
+        String huellaId = null;
+        if (match.isMatch()) {
+            User enrolledUser = findEnrolled(match.key);
+            if (enrolledUser != null) {
+                nacionalidad = enrolledUser.getNacionalidad();
+                huellaId = enrolledUser.getHuellaId();
+            }
+        }
+        if (nacionalidad == null) {
+            nacionalidad = registry.nameOf(registry.randomAllowed(random));
+            huellaId = FingerprintTemplate.fingerprintId(probe);
+        }
+        user.setNacionalidad(nacionalidad);
+        user.setHuellaId(huellaId);
+        user.setTiempoEscaneo(1);
+        user.setFechaEscaneo(System.currentTimeMillis());
+
+        long insertStart = System.nanoTime();
+        user.setId((int) store.insertUser(user));
+        metrics.recordSince(ScanMetrics.Stage.DB_INSERT, insertStart);
+        // Las huellas nuevas no se enrolan para que la galería no crezca durante la medición
+        return user;
+    }
+
+    private User findEnrolled(long userId) throws Exception {
+        User user = cache.getByUserId(userId);
+        if (user == null) {
+            user = store.getUser(userId);
+            if (user != null) {
+                cache.put(user);
+            }
+        }
+        return user;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.analytics.ScanStatistics;
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.model.NationalityRegistry;
+import com.example.ejercicioenclase.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas del historial: ScanStatistics (columnas en memoria) frente a las
+ * consultas GROUP BY equivalentes sobre la tabla de usuarios
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsBenchmark {
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private final NationalityRegistry registry = BenchmarkData.registry();
+    private final TimeZone timeZone = TimeZone.getTimeZone("UTC");
+    private File directory;
+    private JdbcUserStore store;
+    private ScanStatistics statistics;
+    private short mexicana;
+    private int firstDay;
+    private long updatedTime;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<User> users = BenchmarkData.users(rows, BenchmarkData.SEED);
+        directory = Files.createTempDirectory("statistics-bench").toFile();
+        store = new JdbcUserStore(new File(directory, "users.db"));
+        long[] ids = store.insertUsers(users, DatabaseHelper.DEFAULT_BATCH_SIZE);
+
+        statistics = new ScanStatistics(registry.size());
+        for (int i = 0; i < ids.length; i++) {
+            User user = users.get(i);
+            statistics.add(ids[i], registry.codeOf(user.getNacionalidad()), user.getTiempoEscaneo(),
+                    ScanStatistics.dayOf(user.getFechaEscaneo(), timeZone));
+        }
+        mexicana = registry.codeOf("Mexicana");
+        firstDay = ScanStatistics.dayOf(users.get(0).getFechaEscaneo(), timeZone);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long countsAndAveragesSql() throws Exception {
+        return store.statisticsByNacionalidad();
+    }
+
+    @Benchmark
+    public double countsAndAveragesColumnar() {
+        double total = 0;
+        long[] counts = statistics.countsByNationality();
+        for (short code = 0; code < counts.length; code++) {
+            total += counts[code] + statistics.averageTime(code);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long percentileSql() throws Exception {
+        return store.percentileTime("Mexicana", 95);
+    }
+
+    @Benchmark
+    public long percentileColumnar() {
+        return statistics.percentileTime(mexicana, 95);
+    }
+
+    /**
+     * Percentil justo después de un cambio: incluye volver a ordenar las copias
+     */
+    @Benchmark
+    public long percentileAfterUpdate() {
+        statistics.update(1, mexicana, ++updatedTime % 5_000, firstDay);
+        return statistics.percentileTime(mexicana, 95);
+    }
+
+    @Benchmark
+    public int[] scansPerDayColumnar() {
+        return statistics.scansPerDay(firstDay, firstDay + 365);
+    }
+}
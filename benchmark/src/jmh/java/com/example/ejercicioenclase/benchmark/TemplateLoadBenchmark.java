@@ -0,0 +1,164 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.matching.MappedTemplateStore;
+import com.example.ejercicioenclase.matching.TemplateIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de las plantillas enroladas al arrancar: abrir MappedTemplateStore y envolver
+ * sus registros con TemplateIndex.wrap, frente a leerlas de una tabla de SQLite con un
+ * cursor y copiarlas a un TemplateIndex en el heap. Los dos archivos están en la caché
+ * de páginas del sistema, así que se mide el trabajo de la JVM y no el disco. La memoria
+ * retenida por cada índice se mide con ./gradlew :benchmark:footprint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TemplateLoadBenchmark {
+    private static final int CHUNK = 10_000;
+
+    // Cómo quedarían las plantillas en SQLite: una fila por usuario con la plantilla en un BLOB
+    private static final String CREATE_TABLE_TEMPLATES =
+            "CREATE TABLE templates(user_id INTEGER PRIMARY KEY, plantilla BLOB NOT NULL)";
+    private static final String INSERT_TEMPLATE =
+            "INSERT INTO templates (user_id, plantilla) VALUES (?,?)";
+    private static final String SELECT_TEMPLATES =
+            "SELECT user_id, plantilla FROM templates";
+
+    @Param({"10000", "100000"})
+    public int templates;
+
+    private File directory;
+    private File storeFile;
+    private File databaseFile;
+
+    // Abierto en cada medición de la carga mapeada
+    private MappedTemplateStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("template-load-bench").toFile();
+        storeFile = new File(directory, "fingerprint_templates.bin");
+        databaseFile = new File(directory, "templates.db");
+        writeStore(storeFile, templates);
+        writeTable(databaseFile, templates);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeStore() throws IOException {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Igual que MatchingEngine al arrancar
+     */
+    @Benchmark
+    public TemplateIndex mappedStore() throws IOException {
+        store = MappedTemplateStore.open(storeFile);
+        return TemplateIndex.wrap(store.records(), store.count(), store.deleted());
+    }
+
+    @Benchmark
+    public TemplateIndex sqliteCursor() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath())) {
+            return loadFromCursor(connection);
+        }
+    }
+
+    /**
+     * Almacén mapeado con las plantillas de BenchmarkData; la plantilla i es del ID i + 1
+     */
+    static void writeStore(File file, int count) throws IOException {
+        try (MappedTemplateStore store = MappedTemplateStore.open(file)) {
+            for (int start = 0; start < count; start += CHUNK) {
+                int n = Math.min(CHUNK, count - start);
+                byte[][] chunk = BenchmarkData.templates(n, BenchmarkData.SEED + start);
+                long[] keys = new long[n];
+                for (int i = 0; i < n; i++) {
+                    keys[i] = start + i + 1;
+                }
+                store.appendAll(keys, chunk, n);
+            }
+        }
+    }
+
+    /**
+     * Las mismas plantillas en una tabla de SQLite
+     */
+    static void writeTable(File file, int count) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE_TEMPLATES);
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_TEMPLATE)) {
+                for (int start = 0; start < count; start += CHUNK) {
+                    int n = Math.min(CHUNK, count - start);
+                    byte[][] chunk = BenchmarkData.templates(n, BenchmarkData.SEED + start);
+                    for (int i = 0; i < n; i++) {
+                        insert.setLong(1, start + i + 1);
+                        insert.setBytes(2, chunk[i]);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * Recorre la tabla con un cursor y copia cada plantilla a un índice en el heap
+     */
+    static TemplateIndex loadFromCursor(Connection connection) throws SQLException {
+        TemplateIndex index = new TemplateIndex();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(SELECT_TEMPLATES)) {
+            while (result.next()) {
+                index.add(result.getLong(1), result.getBytes(2));
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.DatabaseHelper;
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.model.User;
+import com.example.ejercicioenclase.model.UserCodec;
+import com.example.ejercicioenclase.repository.UserCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción y consultas de DatabaseHelper sobre SQLite por JDBC (mismo esquema y SQL):
+ * fila por fila frente a bloques de distintos tamaños, paginación por clave frente a desplazamiento,
+ * y búsqueda por ID de huella con y sin la caché LRU. La inserción, la página y la
+ * búsqueda por huella se miden también abriendo y cerrando la base de datos en cada
+ * operación, como hacía DatabaseHelper antes de conservar una sola conexión.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserStoreBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"100000"})
+    public int rows;
+
+    /**
+     * Conexión de cada operación: "shared" usa la misma durante toda la prueba y
+     * "perOperation" abre la base de datos y la cierra al terminar
+     */
+    @State(Scope.Benchmark)
+    public static class Handle {
+        @Param({"shared", "perOperation"})
+        public String handle;
+    }
+
+    /**
+     * Inserción de batchRows usuarios en bloques de chunkSize filas por transacción,
+     * sobre una base de datos vacía en cada medición. Con chunkSize 1 cada fila tiene
+     * su propia transacción, como DatabaseHelper.insertUser.
+     */
+    @State(Scope.Benchmark)
+    public static class BatchInsert {
+        @Param({"10000", "100000"})
+        public int batchRows;
+
+        @Param({"1", "100", "500", "5000"})
+        public int chunkSize;
+
+        private File directory;
+        private List<User> users;
+        private JdbcUserStore store;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("batch-insert-bench").toFile();
+            users = BenchmarkData.users(batchRows, BenchmarkData.SEED + 1);
+        }
+
+        @Setup(Level.Iteration)
+        public void createDatabase() throws SQLException {
+            store = new JdbcUserStore(new File(directory, "batch.db"));
+        }
+
+        @TearDown(Level.Iteration)
+        public void deleteDatabase() throws SQLException {
+            store.close();
+            deleteFiles(directory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            directory.delete();
+        }
+    }
+
+    private File directory;
+    private File file;
+    private JdbcUserStore store;
+    private List<User> preloaded;
+    private List<User> batch;
+    private UserCache cache;
+    private Random random;
+    private int nextInsert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("user-store-bench").toFile();
+        file = new File(directory, "users.db");
+        store = new JdbcUserStore(file);
+        preloaded = BenchmarkData.users(rows, BenchmarkData.SEED);
+        store.insertUsers(preloaded, DatabaseHelper.DEFAULT_BATCH_SIZE);
+        batch = BenchmarkData.users(DatabaseHelper.DEFAULT_BATCH_SIZE, BenchmarkData.SEED + 1);
+
+        cache = new UserCache(10_000, 4L * 1024 * 1024, new UserCodec(BenchmarkData.registry()));
+        for (int i = 0; i < 10_000; i++) {
+            User user = store.getUserByHuellaId(preloaded.get(i).getHuellaId());
+            cache.put(user);
+        }
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        deleteFiles(directory);
+        directory.delete();
+    }
+
+    private static void deleteFiles(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private JdbcUserStore acquire(Handle handle) throws SQLException {
+        return "perOperation".equals(handle.handle) ? JdbcUserStore.open(file) : store;
+    }
+
+    private void release(JdbcUserStore acquired) throws SQLException {
+        if (acquired != store) {
+            acquired.close();
+        }
+    }
+
+    @Benchmark
+    public long insertSingle(Handle handle) throws Exception {
+        JdbcUserStore target = acquire(handle);
+        try {
+            return target.insertUser(batch.get(nextInsert++ % batch.size()));
+        } finally {
+            release(target);
+        }
+    }
+
+    /**
+     * Tiempo total de insertar batchRows usuarios en una tabla vacía
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long[] insertBatch(BatchInsert batchInsert) throws Exception {
+        return batchInsert.store.insertUsers(batchInsert.users, batchInsert.chunkSize);
+    }
+
+    @Benchmark
+    public List<User> pageByKeyset(Handle handle) throws Exception {
+        JdbcUserStore target = acquire(handle);
+        try {
+            return target.getUsersPage(1 + random.nextInt(rows), PAGE_SIZE);
+        } finally {
+            release(target);
+        }
+    }
+
+    @Benchmark
+    public List<User> pageByOffset() throws Exception {
+        return store.getUsersPageByOffset(random.nextInt(rows), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public User lookupByHuellaId(Handle handle) throws Exception {
+        JdbcUserStore target = acquire(handle);
+        try {
+            return target.getUserByHuellaId(preloaded.get(random.nextInt(10_000)).getHuellaId());
+        } finally {
+            release(target);
+        }
+    }
+
+    @Benchmark
+    public User lookupByHuellaIdCached() throws Exception {
+        String huellaId = preloaded.get(random.nextInt(10_000)).getHuellaId();
+        User user = cache.get(huellaId);
+        return user != null ? user : store.getUserByHuellaId(huellaId);
+    }
+}
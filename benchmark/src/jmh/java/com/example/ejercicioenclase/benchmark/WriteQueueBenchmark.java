@@ -0,0 +1,89 @@
+package com.example.ejercicioenclase.benchmark;
+
+import com.example.ejercicioenclase.database.GroupCommitWriter;
+import com.example.ejercicioenclase.database.JdbcUserStore;
+import com.example.ejercicioenclase.database.UserWrite;
+import com.example.ejercicioenclase.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guardado concurrente desde 8 estaciones: una transacción por llamada (con un lock,
+ * como DatabaseHelper.insertUser) frente a la cola con commit agrupado. Se reportan
+ * el rendimiento (operaciones/s) y la latencia promedio por llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class WriteQueueBenchmark {
+    private File directory;
+    private JdbcUserStore store;
+    private GroupCommitWriter<UserWrite> writer;
+    private List<User> users;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("write-queue-bench").toFile();
+        store = new JdbcUserStore(new File(directory, "users.db"));
+        users = BenchmarkData.users(4096, BenchmarkData.SEED);
+        writer = new GroupCommitWriter<>("bench-writer", this::writeBatch, 256, 4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        writer.close();
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long transactionPerCall() throws Exception {
+        User user = users.get(next.getAndIncrement() & 4095);
+        synchronized (store) {
+            return store.insertUser(user);
+        }
+    }
+
+    @Benchmark
+    public long groupCommit() {
+        return writer.submit(UserWrite.insert(users.get(next.getAndIncrement() & 4095))).join();
+    }
+
+    private long[] writeBatch(List<UserWrite> batch) {
+        List<User> batchUsers = new ArrayList<>(batch.size());
+        for (UserWrite write : batch) {
+            batchUsers.add(write.getUser());
+        }
+        try {
+            synchronized (store) {
+                return store.insertUsers(batchUsers, batchUsers.size());
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.ejercicioenclase.database;
+
+import com.example.ejercicioenclase.model.User;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sustituto de DatabaseHelper para la JVM: SQLite por JDBC con el mismo esquema
+ * (DatabaseHelper.schemaStatements), la misma sentencia de inserción y las
+ * mismas consultas, para medir la persistencia sin un dispositivo
+ */
+public class JdbcUserStore implements AutoCloseable {
+    private static final String PAGE_QUERY =
+            "SELECT " + String.join(",", DatabaseHelper.USER_PROJECTION)
+            + " FROM " + DatabaseHelper.TABLE_USERS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " < ?"
+            + " ORDER BY " + DatabaseHelper.COLUMN_ID + " DESC LIMIT ?";
+
+    // Misma consulta que DatabaseHelper.getUsersAfter, para recorrer la tabla al respaldarla
+    private static final String AFTER_QUERY =
+            "SELECT " + String.join(",", DatabaseHelper.USER_PROJECTION)
+            + " FROM " + DatabaseHelper.TABLE_USERS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " > ?"
+            + " ORDER BY " + DatabaseHelper.COLUMN_ID + " ASC LIMIT ?";
+
+    // Paginación por desplazamiento, la forma anterior a la paginación por clave
+    private static final String OFFSET_PAGE_QUERY =
+            "SELECT " + String.join(",", DatabaseHelper.USER_PROJECTION)
+            + " FROM " + DatabaseHelper.TABLE_USERS
+            + " ORDER BY " + DatabaseHelper.COLUMN_ID + " DESC LIMIT ? OFFSET ?";
+
+    private static final String ID_QUERY =
+            "SELECT " + String.join(",", DatabaseHelper.USER_PROJECTION)
+            + " FROM " + DatabaseHelper.TABLE_USERS
+            + " WHERE " + DatabaseHelper.COLUMN_ID + " = ?";
+
+    private static final String STATISTICS_QUERY =
+            "SELECT " + DatabaseHelper.COLUMN_NACIONALIDAD
+            + ", COUNT(*), AVG(" + DatabaseHelper.COLUMN_TIEMPO_ESCANEO + ")"
+            + " FROM " + DatabaseHelper.TABLE_USERS
+            + " GROUP BY " + DatabaseHelper.COLUMN_NACIONALIDAD;
+
+    // Percentil por nacionalidad en SQL: ordenar y saltar hasta el rango buscado
+    private static final String PERCENTILE_QUERY =
+            "SELECT " + DatabaseHelper.COLUMN_TIEMPO_ESCANEO + " FROM " + DatabaseHelper.TABLE_USERS
+            + " WHERE " + DatabaseHelper.COLUMN_NACIONALIDAD + " = ?"
+            + " ORDER BY " + DatabaseHelper.COLUMN_TIEMPO_ESCANEO + " LIMIT 1 OFFSET"
+            + " (SELECT (COUNT(*) * ?) / 100 FROM " + DatabaseHelper.TABLE_USERS
+            + " WHERE " + DatabaseHelper.COLUMN_NACIONALIDAD + " = ?)";
+
+    private final Connection connection;
+    private final PreparedStatement insertStatement;
+    private final PreparedStatement pageStatement;
+    private final PreparedStatement offsetPageStatement;
+    private final PreparedStatement afterStatement;
+    private final PreparedStatement idStatement;
+    private final PreparedStatement huellaStatement;
+    private final PreparedStatement findHuellaStatement;
+    private final PreparedStatement findScanStatement;
+
+    /**
+     * Crea una base de datos nueva con el esquema actual
+     */
+    public JdbcUserStore(File file) throws SQLException {
+        this(file, true);
+    }
+
+    /**
+     * Abre una base de datos que ya tiene el esquema, como getWritableDatabase sobre un
+     * archivo existente
+     */
+    public static JdbcUserStore open(File file) throws SQLException {
+        return new JdbcUserStore(file, false);
+    }
+
+    private JdbcUserStore(File file, boolean createSchema) throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            // Los mismos modos que usa Android con setWriteAheadLoggingEnabled(true)
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            if (createSchema) {
+                for (String sql : DatabaseHelper.schemaStatements()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        insertStatement = connection.prepareStatement(DatabaseHelper.INSERT_USER);
+        pageStatement = connection.prepareStatement(PAGE_QUERY);
+        offsetPageStatement = connection.prepareStatement(OFFSET_PAGE_QUERY);
+        afterStatement = connection.prepareStatement(AFTER_QUERY);
+        idStatement = connection.prepareStatement(ID_QUERY);
+        huellaStatement = connection.prepareStatement(DatabaseHelper.USER_BY_HUELLA);
+        findHuellaStatement = connection.prepareStatement(DatabaseHelper.FIND_HUELLA);
+        findScanStatement = connection.prepareStatement(DatabaseHelper.FIND_SCAN);
+    }
+
+    /**
+     * Inserta un usuario en su propia transacción, como DatabaseHelper.insertUser
+     */
+    public long insertUser(User user) throws SQLException {
+        bindUser(insertStatement, user);
+        insertStatement.executeUpdate();
+        return lastInsertId();
+    }
+
+    /**
+     * Inserta un lote en una transacción omitiendo los IDs de huella ya registrados,
+     * como DatabaseHelper.importUsers
+     */
+    public long[] importUsers(List<User> users, BitSet duplicates) throws SQLException {
+        return insertIfAbsent(users, duplicates, false);
+    }
+
+    /**
+     * Inserta un lote en una transacción omitiendo los escaneos ya registrados (misma
+     * huella y fecha de escaneo), como DatabaseHelper.insertScans
+     */
+    public long[] insertScans(List<User> users, BitSet existing) throws SQLException {
+        return insertIfAbsent(users, existing, true);
+    }
+
+    private long[] insertIfAbsent(List<User> users, BitSet duplicates, boolean matchFecha) throws SQLException {
+        long[] ids = new long[users.size()];
+        connection.setAutoCommit(false);
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                User user = users.get(i);
+                long existingId = matchFecha ? findScan(user) : findHuella(user.getHuellaId());
+                if (existingId > 0) {
+                    ids[i] = existingId;
+                    duplicates.set(i);
+                    continue;
+                }
+                bindUser(insertStatement, user);
+                insertStatement.executeUpdate();
+                ids[i] = lastInsertId();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return ids;
+    }
+
+    private long findScan(User user) throws SQLException {
+        if (user.getHuellaId() == null || user.getFechaEscaneo() <= 0) {
+            return -1;
+        }
+        findScanStatement.setString(1, user.getHuellaId());
+        findScanStatement.setLong(2, user.getFechaEscaneo());
+        try (ResultSet resultSet = findScanStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+
+    private long findHuella(String huellaId) throws SQLException {
+        if (huellaId == null) {
+            return -1;
+        }
+        findHuellaStatement.setString(1, huellaId);
+        try (ResultSet resultSet = findHuellaStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+
+    /**
+     * Inserta usuarios con una transacción por bloque, como DatabaseHelper.insertUsers
+     */
+    public long[] insertUsers(List<User> users, int chunkSize) throws SQLException {
+        long[] ids = new long[users.size()];
+        for (int start = 0; start < ids.length; start += chunkSize) {
+            int end = Math.min(start + chunkSize, ids.length);
+            connection.setAutoCommit(false);
+            try {
+                for (int i = start; i < end; i++) {
+                    bindUser(insertStatement, users.get(i));
+                    insertStatement.executeUpdate();
+                    ids[i] = lastInsertId();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return ids;
+    }
+
+    public List<User> getUsersPage(long beforeId, int pageSize) throws SQLException {
+        pageStatement.setLong(1, beforeId > 0 ? beforeId : Long.MAX_VALUE);
+        pageStatement.setInt(2, pageSize);
+        return readUsers(pageStatement, pageSize);
+    }
+
+    public List<User> getUsersAfter(long afterId, int pageSize) throws SQLException {
+        afterStatement.setLong(1, afterId);
+        afterStatement.setInt(2, pageSize);
+        return readUsers(afterStatement, pageSize);
+    }
+
+    public List<User> getUsersPageByOffset(int offset, int pageSize) throws SQLException {
+        offsetPageStatement.setInt(1, pageSize);
+        offsetPageStatement.setInt(2, offset);
+        return readUsers(offsetPageStatement, pageSize);
+    }
+
+    public User getUser(long userId) throws SQLException {
+        idStatement.setLong(1, userId);
+        List<User> users = readUsers(idStatement, 1);
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    public User getUserByHuellaId(String huellaId) throws SQLException {
+        huellaStatement.setString(1, huellaId);
+        List<User> users = readUsers(huellaStatement, 1);
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    /**
+     * Conteo y promedio de tiempo por nacionalidad con GROUP BY
+     * @return la suma de los conteos, para que el resultado se consuma
+     */
+    public long statisticsByNacionalidad() throws SQLException {
+        long total = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(STATISTICS_QUERY)) {
+            while (rows.next()) {
+                total += rows.getLong(2) + (long) rows.getDouble(3);
+            }
+        }
+        return total;
+    }
+
+    public long percentileTime(String nacionalidad, int percentile) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(PERCENTILE_QUERY)) {
+            statement.setString(1, nacionalidad);
+            statement.setInt(2, percentile);
+            statement.setString(3, nacionalidad);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getLong(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Lleva la base de datos de oldVersion a la actual con las migraciones de
+     * DatabaseHelper, todas en una sola transacción como onUpgrade
+     * @return los milisegundos de cada paso
+     */
+    public static long[] upgrade(Connection connection, int oldVersion) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            long[] stepMillis = DatabaseHelper.MIGRATIONS.migrate(sql -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(sql, e);
+                }
+            }, oldVersion, DatabaseHelper.DATABASE_VERSION);
+            connection.commit();
+            return stepMillis;
+        } catch (RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        insertStatement.close();
+        pageStatement.close();
+        offsetPageStatement.close();
+        afterStatement.close();
+        idStatement.close();
+        huellaStatement.close();
+        findHuellaStatement.close();
+        findScanStatement.close();
+        connection.close();
+    }
+
+    private long lastInsertId() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT last_insert_rowid()")) {
+            return rows.next() ? rows.getLong(1) : -1;
+        }
+    }
+
+    // Mismo orden de parámetros que DatabaseHelper.bindUser
+    private static void bindUser(PreparedStatement statement, User user) throws SQLException {
+        statement.setString(1, user.getNombre());
+        statement.setString(2, user.getApellido());
+        statement.setString(3, user.getFechaNacimiento());
+        statement.setString(4, user.getGenero());
+        statement.setString(5, user.getNacionalidad());
+        statement.setString(6, user.getHuellaId());
+        statement.setLong(7, user.getTiempoEscaneo());
+        if (user.getFechaEscaneo() > 0) {
+            statement.setLong(8, user.getFechaEscaneo());
+        } else {
+            statement.setNull(8, Types.INTEGER);
+        }
+    }
+
+    private static List<User> readUsers(PreparedStatement statement, int expected) throws SQLException {
+        List<User> users = new ArrayList<>(expected);
+        try (ResultSet rows = statement.executeQuery()) {
+            // Las columnas siguen el orden de DatabaseHelper.USER_PROJECTION
+            while (rows.next()) {
+                User user = new User();
+                user.setId(rows.getInt(1));
+                user.setNombre(rows.getString(2));
+                user.setApellido(rows.getString(3));
+                user.setFechaNacimiento(rows.getString(4));
+                user.setGenero(rows.getString(5));
+                user.setNacionalidad(rows.getString(6));
+                user.setHuellaId(rows.getString(7));
+                user.setTiempoEscaneo(rows.getLong(8));
+                user.setFechaEscaneo(rows.getLong(9));
+                users.add(user);
+            }
+        }
+        return users;
+    }
+}